@@ -0,0 +1,59 @@
+package com.fmsware;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The LZW compression of gif frames. In this package because the encoder is package private
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class LZWEncoderBenchmark {
+	/** side length of the square frame */
+	@Param({"256", "1024"})
+	public int size;
+
+	/** chance that a pixel differs from its left neighbor; rendered layers have long runs of the same color */
+	@Param({"0.05", "0.5"})
+	public double noise;
+
+	private byte[] pixels;
+	private ByteArrayOutputStream out;
+	private LZWEncoder encoder = new LZWEncoder();
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		this.pixels = new byte[this.size * this.size];
+		byte current = 0;
+		for (int i = 0; i < this.pixels.length; ++i) {
+			if (random.nextDouble() < this.noise) current = (byte) random.nextInt(256);
+			this.pixels[i] = current;
+		}
+		this.out = new ByteArrayOutputStream(this.pixels.length);
+	}
+
+	@Benchmark
+	public int encode() throws Exception {
+		this.out.reset();
+		this.encoder.encode(this.size, this.size, this.pixels, 8, this.out);
+		return this.out.size();
+	}
+}
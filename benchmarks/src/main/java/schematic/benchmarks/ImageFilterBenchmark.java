@@ -0,0 +1,87 @@
+package schematic.benchmarks;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import schematic.models.images.BufferedImageColorFilter;
+import schematic.models.images.ImageProvider;
+import schematic.models.images.RedstoneImageProvider$;
+import scala.collection.JavaConversions;
+
+/**
+ * The per pixel image operations: the mask filter of the redstone sprites and the multiply tint of colored items
+ * @author klaue
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ImageFilterBenchmark {
+	private static final Color TINT = new Color(139, 69, 19);
+
+	private int[] spriteTemplate;
+	private BufferedImage sprite;
+	private BufferedImage source;
+	private BufferedImage freshSource;
+
+	@Setup
+	public void setUp() {
+		// a redstone sprite sized image, a third of it mask colored
+		Random random = new Random(SyntheticSchematics.DEFAULT_SEED);
+		this.sprite = RedstoneImageProvider$.MODULE$.createBlankImage();
+		this.spriteTemplate = new int[this.sprite.getWidth() * this.sprite.getHeight()];
+		for (int i = 0; i < this.spriteTemplate.length; ++i) {
+			this.spriteTemplate[i] = (random.nextInt(3) == 0) ? 0xFFFF00FF | (random.nextInt(256) << 8) : random.nextInt();
+		}
+
+		// an item sized image
+		this.source = new BufferedImage(32, 32, BufferedImage.TYPE_4BYTE_ABGR);
+		for (int y = 0; y < this.source.getHeight(); ++y) {
+			for (int x = 0; x < this.source.getWidth(); ++x) {
+				this.source.setRGB(x, y, random.nextInt());
+			}
+		}
+	}
+
+	/**
+	 * multiplyImage caches per source image, so every invocation gets a new one
+	 */
+	@Setup(Level.Invocation)
+	public void newSource() {
+		this.freshSource = ImageProvider.copyImage(this.source);
+	}
+
+	@Benchmark
+	public BufferedImage processImage() {
+		int[] pixels = ((DataBufferInt) this.sprite.getRaster().getDataBuffer()).getData();
+		System.arraycopy(this.spriteTemplate, 0, pixels, 0, pixels.length);
+		return BufferedImageColorFilter.processImage(this.sprite, JavaConversions.asScalaBuffer(java.util.Arrays.asList(TINT, Color.RED)));
+	}
+
+	@Benchmark
+	public BufferedImage tint() {
+		return BufferedImageColorFilter.tint(this.source, TINT);
+	}
+
+	@Benchmark
+	public BufferedImage multiplyImage() {
+		return ImageProvider.multiplyImage(this.freshSource, TINT);
+	}
+}
@@ -0,0 +1,78 @@
+package schematic.benchmarks;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import schematic.models.ImageGridStack;
+import schematic.models.SliceStack;
+import schematic.models.images.ImageProvider;
+
+/**
+ * Texture lookups and layer exports from several threads at once, to see whether the threads wait for each other.
+ * Run with -t 1 and -t N and compare the throughput per thread
+ * @author klaue
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(4)
+public class ImageProviderContentionBenchmark {
+	private static final String[] NAMES = {"stone", "dirt", "wood", "glass", "sand", "gravel", "oreGold", "bedrock", "sponge", "brick"};
+
+	private ImageGridStack grids;
+
+	/**
+	 * Where every thread is in the lists of names and ids
+	 */
+	@State(Scope.Thread)
+	public static class Position {
+		int index = 0;
+	}
+
+	@Setup
+	public void setUp() throws Exception {
+		ImageProvider.initialize();
+		SliceStack stack = SyntheticSchematics.create("4x32x32", 0.6);
+		this.grids = stack.getImages(1, true);
+	}
+
+	@Benchmark
+	public BufferedImage getImage(Position position) {
+		position.index = (position.index + 1) % NAMES.length;
+		return ImageProvider.getImage(NAMES[position.index]);
+	}
+
+	@Benchmark
+	public BufferedImage getImageByBlockOrItemID(Position position) {
+		position.index = (position.index + 1) & 0xFF;
+		return ImageProvider.getImageByBlockOrItemID((short)position.index);
+	}
+
+	@Benchmark
+	public BufferedImage[] stringToImage() {
+		return ImageProvider.stringToImage("Hello", 0xFFFFFFFF);
+	}
+
+	@Benchmark
+	public BufferedImage exportImage(Position position) {
+		position.index = (position.index + 1) % this.grids.getStackSize();
+		// not through the grids, getGridAtLevel() may only be called on the event dispatch thread
+		return this.grids.exportImage(position.index, Color.WHITE, Color.BLACK);
+	}
+}
@@ -0,0 +1,72 @@
+package schematic.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import schematic.models.images.ImageProvider;
+
+/**
+ * Zooming textures, sharp (whole multiples and nearest pixel) against bicubic. zoomAllBlocks is about what a change of the
+ * zoom costs, as the blocks zoom their images again on the first paint after it
+ * @author klaue
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ImageZoomBenchmark {
+	@Param({"0.5", "1", "1.5", "2", "3", "4", "7.5", "10"})
+	public float zoom;
+
+	@Param({"false", "true"})
+	public boolean smooth;
+
+	private BufferedImage texture;
+	private BufferedImage[] blockTextures;
+
+	@Setup
+	public void setUp() throws Exception {
+		ImageProvider.initialize();
+		this.texture = ImageProvider.getImageByBlockOrItemID((short)1); // stone
+
+		// every texture of the block ids once
+		IdentityHashMap<BufferedImage, Boolean> seen = new IdentityHashMap<BufferedImage, Boolean>();
+		List<BufferedImage> textures = new ArrayList<BufferedImage>();
+		for (short id = 1; id < ImageProvider.BLOCK_ID_COUNT; ++id) {
+			BufferedImage img = ImageProvider.getImageByBlockOrItemID(id);
+			if (img != null && seen.put(img, Boolean.TRUE) == null) textures.add(img);
+		}
+		this.blockTextures = textures.toArray(new BufferedImage[textures.size()]);
+	}
+
+	@Benchmark
+	public BufferedImage zoom() {
+		return ImageProvider.zoom(this.zoom, this.texture, this.smooth);
+	}
+
+	@Benchmark
+	public int zoomAllBlocks() {
+		int pixels = 0;
+		for (BufferedImage img : this.blockTextures) {
+			pixels += ImageProvider.zoom(this.zoom, img, this.smooth).getWidth();
+		}
+		return pixels;
+	}
+}
@@ -0,0 +1,85 @@
+package schematic.benchmarks;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fmsware.AnimatedGifEncoder;
+
+import schematic.models.ImageGridStack;
+import schematic.models.LayerRasterizer;
+import schematic.models.Slice;
+import schematic.models.SliceStack;
+import schematic.models.images.ImageProvider;
+
+/**
+ * Rendering layers to images and encoding them to an animated gif
+ * @author klaue
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class RenderBenchmark {
+	@Param({"8x32x32", "8x96x96"})
+	public String size;
+
+	@Param({"0.6"})
+	public double density;
+
+	@Param({"1", "2"})
+	public float zoom;
+
+	private Slice layer;
+	private BufferedImage[] frames;
+
+	@Setup
+	public void setUp() throws Exception {
+		ImageProvider.initialize();
+		SliceStack stack = SyntheticSchematics.create(this.size, this.density);
+		ImageGridStack grids = stack.getImages(this.zoom, true);
+		this.layer = stack.getSlice(stack.getHeight() / 2);
+		this.frames = new BufferedImage[grids.getStackSize()];
+		for (int i = 0; i < this.frames.length; ++i) {
+			this.frames[i] = grids.exportImage(i, Color.WHITE, Color.BLACK);
+		}
+	}
+
+	/**
+	 * The rasterizer alone, without the grids around it
+	 */
+	@Benchmark
+	public BufferedImage renderLayer() {
+		return LayerRasterizer.render(this.layer, this.zoom, Color.WHITE, Color.BLACK);
+	}
+
+	@Benchmark
+	public byte[] encodeGif() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AnimatedGifEncoder encoder = new AnimatedGifEncoder();
+		encoder.setDelay(1000);
+		encoder.setRepeat(0);
+		encoder.setDeltaFrames(true);
+		encoder.start(out);
+		for (BufferedImage frame : this.frames) {
+			encoder.addFrame(frame);
+		}
+		encoder.finish();
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,85 @@
+package schematic.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import schematic.models.Region;
+import schematic.models.SchematicInfo;
+import schematic.models.SchematicReader;
+import schematic.models.SchematicWriter;
+import schematic.models.SliceStack;
+
+/**
+ * Reading and writing schematic files
+ * @author klaue
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class SchematicIoBenchmark {
+	@Param({"16x32x32", "64x64x64"})
+	public String size;
+
+	@Param({"0.3", "0.9"})
+	public double density;
+
+	private SliceStack stack;
+	private File source;
+	private File target;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.stack = SyntheticSchematics.create(this.size, this.density);
+		this.source = File.createTempFile("benchmark", ".schematic");
+		this.target = File.createTempFile("benchmark", ".schematic");
+		SchematicWriter.writeSchematicsFile(this.stack, this.source);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.source.delete();
+		this.target.delete();
+	}
+
+	@Benchmark
+	public SliceStack read() throws Exception {
+		return SchematicReader.readSchematicsFile(this.source);
+	}
+
+	@Benchmark
+	public SliceStack readMiddleLayer() throws Exception {
+		return SchematicReader.readSchematicsFile(this.source, Region.layers(this.stack.getHeight() / 2, 1));
+	}
+
+	@Benchmark
+	public SchematicInfo probe() throws Exception {
+		return SchematicReader.probe(this.source, false);
+	}
+
+	@Benchmark
+	public SchematicInfo probeWithBlockCounts() throws Exception {
+		return SchematicReader.probe(this.source, true);
+	}
+
+	@Benchmark
+	public File write() throws Exception {
+		SchematicWriter.writeSchematicsFile(this.stack, this.target);
+		return this.target;
+	}
+}
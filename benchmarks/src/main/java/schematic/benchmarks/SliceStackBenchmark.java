@@ -0,0 +1,88 @@
+package schematic.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import schematic.models.BlockCounter;
+import schematic.models.SliceStack;
+import schematic.models.images.ImageProvider;
+
+/**
+ * Operations on a whole SliceStack: trimming, turning, calculating the wires, rendering the first layer and counting the blocks
+ * @author klaue
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class SliceStackBenchmark {
+	@Param({"16x32x32", "64x64x64"})
+	public String size;
+
+	@Param({"0.3", "0.9"})
+	public double density;
+
+	private SliceStack stack;
+
+	@Setup
+	public void setUp() throws Exception {
+		ImageProvider.initialize();
+		this.stack = SyntheticSchematics.create(this.size, this.density);
+	}
+
+	/**
+	 * The generated schematics have blocks on all sides, so after the first call this measures the search for empty borders
+	 */
+	@Benchmark
+	public SliceStack trim() {
+		this.stack.trim();
+		return this.stack;
+	}
+
+	/**
+	 * Turning changes the stack, but every turn costs the same
+	 */
+	@Benchmark
+	public SliceStack turn() {
+		this.stack.turn(true);
+		return this.stack;
+	}
+
+	/**
+	 * The directions of the redstone wires, done once when a schematic is opened
+	 */
+	@Benchmark
+	public SliceStack calculateWires() {
+		this.stack.calculateWires();
+		return this.stack;
+	}
+
+	/**
+	 * Wire calculation and the image of the first layer, as when a schematic is opened. The grids only render their
+	 * layer when it is first requested
+	 */
+	@Benchmark
+	public BufferedImage firstLayerImage() {
+		return this.stack.getImages(1, true).getGridAtLevel(0).getLayerImage();
+	}
+
+	@Benchmark
+	public List<BlockCounter.Entry> countBlocks() {
+		return BlockCounter.countBlocks(this.stack);
+	}
+}
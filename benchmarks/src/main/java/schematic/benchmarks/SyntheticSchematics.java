@@ -0,0 +1,54 @@
+package schematic.benchmarks;
+
+import schematic.models.SchematicGenerator;
+import schematic.models.SliceStack;
+
+/**
+ * Reproducible schematics for the benchmarks, made by the SchematicGenerator with a fixed block mix and no tile entities
+ * @author klaue
+ */
+public class SyntheticSchematics {
+	/** block ids and the number of valid data values, a mix of simple blocks, directional blocks, redstone and wool */
+	private static final short[] IDS =		{1, 2, 3, 4, 5, 12, 13, 17, 20, 24, 35, 45, 53, 55, 67, 75, 76, 89, 93, 98, 109};
+	private static final byte[] DATA_VALUES =	{1, 1, 1, 1, 4,  1,  1,  4,  1,  3, 16,  1,  4, 16,  4,  5,  5,  1, 16,  4,   4};
+
+	/** the seed used if none is given */
+	public static final long DEFAULT_SEED = 42;
+
+	private SyntheticSchematics() {
+		// prevent instances
+	}
+
+	/**
+	 * Generates a schematic
+	 * @param size the size as "height x length x width", for example "16x32x32"
+	 * @param density the part of the blocks that are not air, 0 to 1
+	 * @return the schematic
+	 */
+	public static SliceStack create(String size, double density) {
+		String[] parts = size.split("x");
+		if (parts.length != 3) throw new IllegalArgumentException("size has to be height x length x width: " + size);
+		return create(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), density, DEFAULT_SEED);
+	}
+
+	/**
+	 * Generates a schematic
+	 * @param height number of layers
+	 * @param length length of a layer
+	 * @param width width of a layer
+	 * @param density the part of the blocks that are not air, 0 to 1
+	 * @param seed the random seed
+	 * @return the schematic
+	 */
+	public static SliceStack create(int height, int length, int width, double density, long seed) {
+		SchematicGenerator generator = new SchematicGenerator(height, length, width, seed);
+		generator.setAirRatio(1 - density);
+		generator.setTileEntityRatio(0);
+		generator.clearBlockTypes();
+		for (int i = 0; i < IDS.length; ++i) {
+			byte min = (IDS[i] == 75 || IDS[i] == 76) ? (byte)1 : (byte)0; // torches: 1-5
+			generator.addBlockType(IDS[i], min, (byte)(min + DATA_VALUES[i] - 1), 1);
+		}
+		return generator.createSliceStack();
+	}
+}
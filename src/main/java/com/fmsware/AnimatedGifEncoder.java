@@ -48,6 +48,14 @@ public class AnimatedGifEncoder {
 	protected boolean firstFrame = true;
 	protected boolean sizeSet = false; // if false, get size from first frame
 	protected int sample = 10; // default sample interval for quantizer
+	protected boolean deltaFrames = false; // only write changed regions
+	protected byte[] prevPixels; // BGR byte array of previous frame
+	protected boolean[] unchanged; // pixels of region equal to previous frame
+	protected boolean frameTransparent = false; // region uses transIndex
+	protected int frameX, frameY; // position of current frame region
+	protected int frameWidth, frameHeight; // size of current frame region
+	protected LZWEncoder encoder = new LZWEncoder(); // reused for all frames
+	protected long quantizationTime = 0; // nanoseconds spent in analyzePixels
 
 	/**
 	 * Sets the delay time between each frame, or changes it
@@ -86,6 +94,22 @@ public class AnimatedGifEncoder {
 		}
 	}
 	
+	/**
+	 * Sets whether frames after the first should only contain the
+	 * bounding box of the pixels that changed since the previous frame.
+	 * Unchanged pixels inside that box are written as transparent and
+	 * frames are left in place (disposal code 1), so the animation
+	 * looks the same as with full frames.  Has no effect while a
+	 * transparent color is set.  Must be invoked before the first
+	 * image is added.
+	 *
+	 * @param delta true to write delta frames.
+	 */
+	public void setDeltaFrames(boolean delta) {
+		if (started && !firstFrame) return;
+		deltaFrames = delta;
+	}
+	
 	/**
 	 * Sets the transparent color for the last added frame
 	 * and any subsequent frames.
@@ -123,7 +147,10 @@ public class AnimatedGifEncoder {
 			}
 			image = im;
 			getImagePixels(); // convert to correct format if necessary
+			findFrameRegion(); // changed area if writing delta frames
+			long start = System.nanoTime();
 			analyzePixels(); // build color table & map pixels
+			quantizationTime += System.nanoTime() - start;
 			if (firstFrame) {
 				writeLSD(); // logical screen descriptior
 				writePalette(); // global color table
@@ -146,6 +173,16 @@ public class AnimatedGifEncoder {
 		return ok;
 	}
 	
+	/**
+	 * Returns the time spent quantizing the colors of all frames so far
+	 * (building the color tables and mapping the pixels to them).
+	 *
+	 * @return time in nanoseconds
+	 */
+	public long getQuantizationTime() {
+		return quantizationTime;
+	}
+
 	/**
 	 * Flushes any pending data and closes output file.
 	 * If writing to an OutputStream, the stream is not
@@ -158,18 +195,25 @@ public class AnimatedGifEncoder {
 		try {
 			out.write(0x3b); // gif trailer
 			out.flush();
-			if (closeStream) {
-				out.close();
-			}
 		} catch (IOException e) {
 			ok = false;
 		}
+		if (closeStream) {
+			// also when the trailer could not be written, so the file isn't left open
+			try {
+				out.close();
+			} catch (IOException e) {
+				ok = false;
+			}
+		}
 
 		// reset for subsequent use
 		transIndex = 0;
 		out = null;
 		image = null;
 		pixels = null;
+		prevPixels = null;
+		unchanged = null;
 		indexedPixels = null;
 		colorTab = null;
 		closeStream = false;
@@ -265,10 +309,11 @@ public class AnimatedGifEncoder {
 	 * Analyzes image colors and creates color map.
 	 */
 	protected void analyzePixels() {
-		int len = pixels.length;
+		byte[] regionPixels = getRegionPixels();
+		int len = regionPixels.length;
 		int nPix = len / 3;
 		indexedPixels = new byte[nPix];
-		NeuQuant nq = new NeuQuant(pixels, len, sample);
+		NeuQuant nq = new NeuQuant(regionPixels, len, sample);
 		// initialize quantizer
 		colorTab = nq.process(); // create reduced palette
 		// convert map from BGR to RGB
@@ -280,15 +325,49 @@ public class AnimatedGifEncoder {
 		}
 		// map image pixels to new palette
 		int k = 0;
+		boolean anyUnchanged = false;
 		for (int i = 0; i < nPix; i++) {
+			if (unchanged != null && unchanged[i]) {
+				anyUnchanged = true;
+				k += 3;
+				continue;
+			}
 			int index =
-				nq.map(pixels[k++] & 0xff,
-					   pixels[k++] & 0xff,
-					   pixels[k++] & 0xff);
+				nq.map(regionPixels[k++] & 0xff,
+					   regionPixels[k++] & 0xff,
+					   regionPixels[k++] & 0xff);
 			usedEntry[index] = true;
 			indexedPixels[i] = (byte) index;
 		}
+		frameTransparent = false;
+		if (anyUnchanged) {
+			// unchanged pixels use a free palette entry as transparent color,
+			// or keep their own color if the whole palette is in use
+			int free = findUnusedEntry();
+			k = 0;
+			for (int i = 0; i < nPix; i++, k += 3) {
+				if (!unchanged[i]) continue;
+				if (free >= 0) {
+					indexedPixels[i] = (byte) free;
+				} else {
+					int index =
+						nq.map(regionPixels[k] & 0xff,
+							   regionPixels[k + 1] & 0xff,
+							   regionPixels[k + 2] & 0xff);
+					usedEntry[index] = true;
+					indexedPixels[i] = (byte) index;
+				}
+			}
+			if (free >= 0) {
+				frameTransparent = true;
+				transIndex = free;
+			}
+		}
+		if (deltaFrames) {
+			prevPixels = pixels;
+		}
 		pixels = null;
+		unchanged = null;
 		colorDepth = 8;
 		palSize = 7;
 		// get closest match to transparent color if specified
@@ -297,6 +376,88 @@ public class AnimatedGifEncoder {
 		}
 	}
 	
+	/**
+	 * Determines the region of the current frame that has to be written.
+	 * This is the whole frame unless delta frames are enabled, in which
+	 * case it is the bounding box of all pixels that differ from the
+	 * previous frame.
+	 */
+	protected void findFrameRegion() {
+		frameX = 0;
+		frameY = 0;
+		frameWidth = width;
+		frameHeight = height;
+		if (!deltaFrames || transparent != null || prevPixels == null) {
+			return;
+		}
+		int stride = width * 3;
+		int minX = width, maxX = -1, minY = -1, maxY = -1;
+		for (int y = 0; y < height; y++) {
+			int row = y * stride;
+			int first = 0;
+			while (first < stride && pixels[row + first] == prevPixels[row + first]) {
+				first++;
+			}
+			if (first == stride) continue;
+			int last = stride - 1;
+			while (pixels[row + last] == prevPixels[row + last]) {
+				last--;
+			}
+			minX = Math.min(minX, first / 3);
+			maxX = Math.max(maxX, last / 3);
+			if (minY < 0) minY = y;
+			maxY = y;
+		}
+		if (maxY < 0) {
+			// nothing changed, write a single transparent pixel
+			frameWidth = 1;
+			frameHeight = 1;
+		} else {
+			frameX = minX;
+			frameY = minY;
+			frameWidth = maxX - minX + 1;
+			frameHeight = maxY - minY + 1;
+		}
+	}
+	
+	/**
+	 * Returns the BGR pixels of the current frame region and, for delta
+	 * frames, marks the pixels equal to the previous frame in "unchanged"
+	 */
+	protected byte[] getRegionPixels() {
+		unchanged = null;
+		if (!deltaFrames || transparent != null || prevPixels == null) {
+			return pixels;
+		}
+		byte[] region = new byte[frameWidth * frameHeight * 3];
+		unchanged = new boolean[frameWidth * frameHeight];
+		int k = 0;
+		int i = 0;
+		for (int y = frameY; y < frameY + frameHeight; y++) {
+			int src = (y * width + frameX) * 3;
+			for (int x = 0; x < frameWidth; x++, src += 3) {
+				region[k++] = pixels[src];
+				region[k++] = pixels[src + 1];
+				region[k++] = pixels[src + 2];
+				unchanged[i++] = pixels[src] == prevPixels[src]
+					&& pixels[src + 1] == prevPixels[src + 1]
+					&& pixels[src + 2] == prevPixels[src + 2];
+			}
+		}
+		return region;
+	}
+	
+	/**
+	 * Returns index of a palette entry not used by the current frame,
+	 * or -1 if all entries are used
+	 */
+	protected int findUnusedEntry() {
+		for (int i = 0; i < colorTab.length / 3; i++) {
+			if (!usedEntry[i]) return i;
+		}
+		return -1;
+	}
+	
 	/**
 	 * Returns index of palette color closest to c
 	 *
@@ -328,6 +489,7 @@ public class AnimatedGifEncoder {
 	 * Extracts image pixels into byte array "pixels"
 	 */
 	protected void getImagePixels() {
+		BufferedImage im = image;
 		int w = image.getWidth();
 		int h = image.getHeight();
 		int type = image.getType();
@@ -342,6 +504,10 @@ public class AnimatedGifEncoder {
 			image = temp;
 		}
 		pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		if (deltaFrames && image == im) {
+			// kept as previous frame, so don't hold on to the caller's buffer
+			pixels = pixels.clone();
+		}
 	}
 	
 	/**
@@ -352,7 +518,10 @@ public class AnimatedGifEncoder {
 		out.write(0xf9); // GCE label
 		out.write(4); // data block size
 		int transp, disp;
-		if (transparent == null) {
+		if (transparent == null && deltaFrames) {
+			transp = frameTransparent ? 1 : 0;
+			disp = 1; // leave in place, next frame only covers changes
+		} else if (transparent == null) {
 			transp = 0;
 			disp = 0; // dispose = no action
 		} else {
@@ -380,10 +549,10 @@ public class AnimatedGifEncoder {
 	 */
 	protected void writeImageDesc() throws IOException {
 		out.write(0x2c); // image separator
-		writeShort(0); // image position x,y = 0,0
-		writeShort(0);
-		writeShort(width); // image size
-		writeShort(height);
+		writeShort(frameX); // image position x,y
+		writeShort(frameY);
+		writeShort(frameWidth); // image size
+		writeShort(frameHeight);
 		// packed fields
 		if (firstFrame) {
 			// no LCT  - GCT is used for first (or only) frame
@@ -445,9 +614,7 @@ public class AnimatedGifEncoder {
 	 * Encodes and writes pixel data
 	 */
 	protected void writePixels() throws IOException {
-		LZWEncoder encoder =
-			new LZWEncoder(width, height, indexedPixels, colorDepth);
-		encoder.encode(out);
+		encoder.encode(frameWidth, frameHeight, indexedPixels, colorDepth, out);
 	}
 	
 	/**
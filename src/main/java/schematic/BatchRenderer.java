@@ -0,0 +1,227 @@
+package schematic;
+
+import com.fmsware.AnimatedGifEncoder;
+import schematic.common.Metrics;
+import schematic.models.BlockCounter;
+import schematic.models.SchematicReader;
+import schematic.models.SliceStack;
+import schematic.models.images.ImageProvider;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command line entry point that renders schematics without any user interface. For every given schematic a
+ * directory with one png per layer, an animated gif, the txt for the "Builders" mod and a material list is
+ * written. Files are processed concurrently and no Swing component is created, so this runs fine with
+ * java.awt.headless=true.
+ * @author klaue
+ */
+public class BatchRenderer {
+    private File outDir = null;
+    private float zoom = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int delay = 1000;
+    private Color background = Color.WHITE;
+    private Color gridColor = Color.BLACK;
+    private List<File> files = new ArrayList<File>();
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        BatchRenderer renderer = new BatchRenderer();
+        try {
+            renderer.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(2);
+        }
+        if (renderer.files.isEmpty()) {
+            printUsage();
+            System.exit(2);
+        }
+
+        try {
+            ImageProvider.initialize();
+        } catch (Exception e) {
+            System.err.println("Could not load the block images: " + e.getLocalizedMessage());
+            System.exit(1);
+        }
+
+        System.exit(renderer.run() ? 0 : 1);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: BatchRenderer [options] <schematic file or directory>...");
+        System.err.println("  -out <dir>          output directory (default: next to each schematic)");
+        System.err.println("  -zoom <value>       zoom value, 1 is 16x16 pixels per block (default: 1)");
+        System.err.println("  -threads <n>        number of schematics rendered at once (default: number of cores)");
+        System.err.println("  -delay <ms>         delay between the frames of the gif (default: 1000)");
+        System.err.println("  -background <rgb>   background color as hex, e.g. ffffff (default: ffffff)");
+        System.err.println("  -grid <rgb>         grid line color as hex (default: 000000)");
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; ++i) {
+            String arg = args[i];
+            if (arg.startsWith("-")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                try {
+                    if (arg.equals("-out")) {
+                        this.outDir = new File(value);
+                    } else if (arg.equals("-zoom")) {
+                        this.zoom = Float.parseFloat(value);
+                    } else if (arg.equals("-threads")) {
+                        this.threads = Integer.parseInt(value);
+                    } else if (arg.equals("-delay")) {
+                        this.delay = Integer.parseInt(value);
+                    } else if (arg.equals("-background")) {
+                        this.background = new Color(Integer.parseInt(value, 16));
+                    } else if (arg.equals("-grid")) {
+                        this.gridColor = new Color(Integer.parseInt(value, 16));
+                    } else {
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+                }
+            } else {
+                File file = new File(arg);
+                if (file.isDirectory()) {
+                    File[] content = file.listFiles();
+                    if (content != null) {
+                        for (File f : content) {
+                            if (f.isFile() && f.getName().toLowerCase().endsWith(".schematic")) {
+                                this.files.add(f);
+                            }
+                        }
+                    }
+                } else {
+                    this.files.add(file);
+                }
+            }
+        }
+        if (this.zoom <= 0 || this.threads < 1 || this.delay < 0) {
+            throw new IllegalArgumentException("Zoom and threads have to be positive, delay must not be negative");
+        }
+    }
+
+    /**
+     * Renders all files on a pool of worker threads
+     * @return true if all files were rendered successfully
+     */
+    private boolean run() {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.threads, this.files.size()));
+        List<Future<?>> results = new ArrayList<Future<?>>();
+        for (final File file : this.files) {
+            results.add(pool.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    render(file);
+                    return null;
+                }
+            }));
+        }
+        pool.shutdown();
+
+        boolean allOk = true;
+        for (int i = 0; i < results.size(); ++i) {
+            try {
+                results.get(i).get();
+                System.out.println("Rendered " + this.files.get(i).getPath());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof OutOfMemoryError) {
+                    System.err.println("Ran out of memory while rendering " + this.files.get(i).getPath()
+                            + ", try a lower zoom value, less threads or more memory");
+                } else {
+                    System.err.println("Could not render " + this.files.get(i).getPath() + ": " + e.getCause());
+                }
+                allOk = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return allOk;
+    }
+
+    private void render(File file) throws Exception {
+        SliceStack stack = SchematicReader.readSchematicsFile(file);
+        stack.trim();
+        stack.calculateWires();
+
+        String name = file.getName();
+        if (name.toLowerCase().endsWith(".schematic")) {
+            name = name.substring(0, name.length() - ".schematic".length());
+        }
+        File dir = new File(this.outDir != null ? this.outDir : file.getAbsoluteFile().getParentFile(), name);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IllegalStateException("Could not create directory " + dir.getPath());
+        }
+
+        stack.exportToTextFile(name, new File(dir, name + ".txt"));
+        BlockCounter.exportToTextFile(stack, new File(dir, name + "_materials.txt"));
+
+        AnimatedGifEncoder encoder = new AnimatedGifEncoder();
+        encoder.setDelay(this.delay);
+        encoder.setRepeat(0);
+        encoder.setDeltaFrames(true);
+        File gif = new File(dir, name + ".gif");
+        if (!encoder.start(gif.getPath())) {
+            throw new IllegalStateException("Could not write " + gif.getName());
+        }
+
+        // only the encoding of the gif is timed, not the rendering and the pngs
+        long gifNanos = 0;
+        boolean written = false;
+        try {
+            int numberLength = Integer.toString(stack.getHeight()).length();
+            for (int i = 0; i < stack.getHeight(); ++i) {
+                BufferedImage img = stack.getSlice(i).exportImage(this.zoom, false, this.background, this.gridColor);
+                if (img == null) continue;
+
+                StringBuffer imgName = new StringBuffer(Integer.toString(i));
+                while (imgName.length() < numberLength) {
+                    imgName.insert(0, "0");
+                }
+                imgName.insert(0, name + "_").append(".png");
+                ImageIO.write(img, "png", new File(dir, imgName.toString()));
+
+                long frameStart = System.nanoTime();
+                if (!encoder.addFrame(img)) {
+                    throw new IllegalStateException("Could not write " + gif.getName());
+                }
+                gifNanos += System.nanoTime() - frameStart;
+            }
+            long finishStart = System.nanoTime();
+            written = encoder.finish();
+            gifNanos += System.nanoTime() - finishStart;
+            if (!written) {
+                throw new IllegalStateException("Could not write " + gif.getName());
+            }
+        } finally {
+            if (!written) {
+                // e.g. out of memory, which run() survives, so close the file and don't leave a broken gif
+                encoder.finish();
+                gif.delete();
+            }
+        }
+        Metrics.timer("export.gif").record(gifNanos, stack.getHeight());
+        Metrics.timer("gif.quantize").record(encoder.getQuantizationTime(), stack.getHeight());
+    }
+}
@@ -10,7 +10,7 @@ trait CachedObject[A] {
 
     protected def create: A
 
-    def apply(): A = {
+    def apply(): A = synchronized {
         accessor match {
             case Some(ret) =>
                 ret
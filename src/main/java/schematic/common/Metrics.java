@@ -0,0 +1,465 @@
+package schematic.common;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A small registry of counters, timers, histograms and cache statistics. Every metric is registered as an MXBean under
+ * "schematic:type=...,name=...", so it can be watched with jconsole or any other JMX client. If the system property
+ * schematic.metrics.log is set to a number of seconds, a summary of all metrics is printed to System.err in that interval.<br>
+ * Recording a value only touches atomic longs, so the metrics can be used from any thread and in hot paths
+ * @author klaue
+ */
+public final class Metrics {
+	/** the JMX domain of all metrics */
+	public static final String DOMAIN = "schematic";
+
+	private static final ConcurrentMap<String, Object> metrics = new ConcurrentHashMap<String, Object>();
+	private static final ConcurrentMap<Class<?>, CacheStats> classCaches = new ConcurrentHashMap<Class<?>, CacheStats>();
+	private static ScheduledExecutorService logger = null;
+
+	static {
+		Long interval = Long.getLong("schematic.metrics.log");
+		if (interval != null && interval > 0) {
+			startLogging(interval);
+		}
+	}
+
+	private Metrics() {
+		// prevent instances
+	}
+
+	public interface CounterMXBean {
+		long getCount();
+		void reset();
+	}
+
+	public interface TimerMXBean {
+		long getCount();
+		double getTotalMillis();
+		double getMeanMillis();
+		double getMaxMillis();
+		long getUnits();
+		double getUnitsPerSecond();
+		void reset();
+	}
+
+	public interface HistogramMXBean {
+		long getCount();
+		long getMin();
+		long getMax();
+		double getMean();
+		long getMedian();
+		long get99thPercentile();
+		void reset();
+	}
+
+	public interface CacheStatsMXBean {
+		long getHits();
+		long getMisses();
+		double getHitRatio();
+		void reset();
+	}
+
+	/**
+	 * A number that only goes up
+	 */
+	public static class Counter implements CounterMXBean {
+		private final AtomicLong count = new AtomicLong();
+
+		public void increment() {
+			this.count.incrementAndGet();
+		}
+
+		public void add(long n) {
+			this.count.addAndGet(n);
+		}
+
+		@Override
+		public long getCount() {
+			return this.count.get();
+		}
+
+		@Override
+		public void reset() {
+			this.count.set(0);
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(getCount());
+		}
+	}
+
+	/**
+	 * Measures how long something takes and optionally how many units (blocks, pixels) were processed in that time
+	 */
+	public static class Timer implements TimerMXBean {
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final AtomicLong units = new AtomicLong();
+
+		/**
+		 * @return the start time to give to stop()
+		 */
+		public long start() {
+			return System.nanoTime();
+		}
+
+		/**
+		 * @param start the value returned by start()
+		 * @return the measured time in nanoseconds
+		 */
+		public long stop(long start) {
+			return stop(start, 0);
+		}
+
+		/**
+		 * @param start the value returned by start()
+		 * @param units the number of processed units
+		 * @return the measured time in nanoseconds
+		 */
+		public long stop(long start, long units) {
+			long nanos = System.nanoTime() - start;
+			record(nanos, units);
+			return nanos;
+		}
+
+		/**
+		 * @param nanos a time measured elsewhere
+		 * @param units the number of processed units
+		 */
+		public void record(long nanos, long units) {
+			this.count.incrementAndGet();
+			this.totalNanos.addAndGet(nanos);
+			this.units.addAndGet(units);
+			long max;
+			while (nanos > (max = this.maxNanos.get()) && !this.maxNanos.compareAndSet(max, nanos)) {
+				// retry
+			}
+		}
+
+		@Override
+		public long getCount() {
+			return this.count.get();
+		}
+
+		@Override
+		public double getTotalMillis() {
+			return this.totalNanos.get() / 1e6;
+		}
+
+		@Override
+		public double getMeanMillis() {
+			long n = this.count.get();
+			return (n == 0) ? 0 : getTotalMillis() / n;
+		}
+
+		@Override
+		public double getMaxMillis() {
+			return this.maxNanos.get() / 1e6;
+		}
+
+		@Override
+		public long getUnits() {
+			return this.units.get();
+		}
+
+		@Override
+		public double getUnitsPerSecond() {
+			long nanos = this.totalNanos.get();
+			return (nanos == 0) ? 0 : this.units.get() * 1e9 / nanos;
+		}
+
+		@Override
+		public void reset() {
+			this.count.set(0);
+			this.totalNanos.set(0);
+			this.maxNanos.set(0);
+			this.units.set(0);
+		}
+
+		@Override
+		public String toString() {
+			String s = String.format("%d x %.2f ms", getCount(), getMeanMillis());
+			if (getUnits() > 0) s += String.format(", %.0f/s", getUnitsPerSecond());
+			return s;
+		}
+	}
+
+	/**
+	 * The distribution of non-negative values. Values are counted in power of two buckets, so the percentiles are upper bounds
+	 * that can be off by up to a factor of two
+	 */
+	public static class Histogram implements HistogramMXBean {
+		private final AtomicLongArray buckets = new AtomicLongArray(64);
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong sum = new AtomicLong();
+		private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+		private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+		public void record(long value) {
+			if (value < 0) value = 0;
+			this.buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+			this.count.incrementAndGet();
+			this.sum.addAndGet(value);
+			long m;
+			while (value < (m = this.min.get()) && !this.min.compareAndSet(m, value)) {
+				// retry
+			}
+			while (value > (m = this.max.get()) && !this.max.compareAndSet(m, value)) {
+				// retry
+			}
+		}
+
+		@Override
+		public long getCount() {
+			return this.count.get();
+		}
+
+		@Override
+		public long getMin() {
+			return (getCount() == 0) ? 0 : this.min.get();
+		}
+
+		@Override
+		public long getMax() {
+			return (getCount() == 0) ? 0 : this.max.get();
+		}
+
+		@Override
+		public double getMean() {
+			long n = this.count.get();
+			return (n == 0) ? 0 : (double) this.sum.get() / n;
+		}
+
+		@Override
+		public long getMedian() {
+			return getPercentile(0.5);
+		}
+
+		@Override
+		public long get99thPercentile() {
+			return getPercentile(0.99);
+		}
+
+		private long getPercentile(double p) {
+			long n = this.count.get();
+			if (n == 0) return 0;
+			long rank = (long) Math.ceil(n * p);
+			long seen = 0;
+			for (int i = 0; i < 64; ++i) {
+				seen += this.buckets.get(i);
+				if (seen >= rank) return Math.min((i == 0) ? 0 : (1L << i) - 1, getMax());
+			}
+			return getMax();
+		}
+
+		@Override
+		public void reset() {
+			for (int i = 0; i < 64; ++i) {
+				this.buckets.set(i, 0);
+			}
+			this.count.set(0);
+			this.sum.set(0);
+			this.min.set(Long.MAX_VALUE);
+			this.max.set(Long.MIN_VALUE);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d x mean %.1f, median %d, max %d", getCount(), getMean(), getMedian(), getMax());
+		}
+	}
+
+	/**
+	 * Hits and misses of a cache
+	 */
+	public static class CacheStats implements CacheStatsMXBean {
+		private final AtomicLong hits = new AtomicLong();
+		private final AtomicLong misses = new AtomicLong();
+
+		public void hit() {
+			this.hits.incrementAndGet();
+		}
+
+		public void miss() {
+			this.misses.incrementAndGet();
+		}
+
+		@Override
+		public long getHits() {
+			return this.hits.get();
+		}
+
+		@Override
+		public long getMisses() {
+			return this.misses.get();
+		}
+
+		@Override
+		public double getHitRatio() {
+			long hits = this.hits.get();
+			long total = hits + this.misses.get();
+			return (total == 0) ? 0 : (double) hits / total;
+		}
+
+		@Override
+		public void reset() {
+			this.hits.set(0);
+			this.misses.set(0);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d hits, %d misses", getHits(), getMisses());
+		}
+	}
+
+	/**
+	 * @param name the name of the counter
+	 * @return the counter, created on first use
+	 */
+	public static Counter counter(String name) {
+		Object metric = metrics.get(name);
+		if (metric == null) metric = add(name, "Counter", new Counter());
+		return cast(name, "Counter", Counter.class, metric);
+	}
+
+	/**
+	 * @param name the name of the timer
+	 * @return the timer, created on first use
+	 */
+	public static Timer timer(String name) {
+		Object metric = metrics.get(name);
+		if (metric == null) metric = add(name, "Timer", new Timer());
+		return cast(name, "Timer", Timer.class, metric);
+	}
+
+	/**
+	 * @param name the name of the histogram
+	 * @return the histogram, created on first use
+	 */
+	public static Histogram histogram(String name) {
+		Object metric = metrics.get(name);
+		if (metric == null) metric = add(name, "Histogram", new Histogram());
+		return cast(name, "Histogram", Histogram.class, metric);
+	}
+
+	/**
+	 * @param name the name of the cache
+	 * @return the statistics of the cache, created on first use
+	 */
+	public static CacheStats cache(String name) {
+		Object metric = metrics.get(name);
+		if (metric == null) metric = add(name, "Cache", new CacheStats());
+		return cast(name, "Cache", CacheStats.class, metric);
+	}
+
+	/**
+	 * The statistics of the image cache of a block or item class, named "imageCache.&lt;simple class name&gt;"
+	 * @param type the class
+	 * @return the statistics of the cache, created on first use
+	 */
+	public static CacheStats imageCache(Class<?> type) {
+		CacheStats stats = classCaches.get(type);
+		if (stats == null) {
+			stats = cache("imageCache." + type.getSimpleName());
+			classCaches.putIfAbsent(type, stats);
+		}
+		return stats;
+	}
+
+	/**
+	 * Registers a new metric unless another thread was faster
+	 * @return the metric that is registered under the name
+	 */
+	private static Object add(String name, String type, Object metric) {
+		Object previous = metrics.putIfAbsent(name, metric);
+		if (previous != null) return previous;
+		register(name, type, metric);
+		return metric;
+	}
+
+	private static <T> T cast(String name, String type, Class<T> metricClass, Object metric) {
+		if (!metricClass.isInstance(metric)) {
+			throw new IllegalArgumentException("Metric " + name + " is not a " + type);
+		}
+		return metricClass.cast(metric);
+	}
+
+	private static void register(String name, String type, Object metric) {
+		try {
+			ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metric, objectName);
+		} catch (JMException e) {
+			// the metric still works, it's just not visible over JMX
+			System.err.println("Could not register metric " + name + ": " + e.getLocalizedMessage());
+		} catch (SecurityException e) {
+			// same, e.g. in a sandbox
+		}
+	}
+
+	/**
+	 * @return all metrics with a value, sorted by name, on one line
+	 */
+	public static String getSummary() {
+		StringBuilder sb = new StringBuilder("metrics:");
+		for (Map.Entry<String, Object> entry : new TreeMap<String, Object>(metrics).entrySet()) {
+			Object metric = entry.getValue();
+			if ((metric instanceof Counter && ((Counter) metric).getCount() == 0)
+					|| (metric instanceof Timer && ((Timer) metric).getCount() == 0)
+					|| (metric instanceof Histogram && ((Histogram) metric).getCount() == 0)
+					|| (metric instanceof CacheStats && ((CacheStats) metric).getHits() + ((CacheStats) metric).getMisses() == 0)) {
+				continue;
+			}
+			sb.append(' ').append(entry.getKey()).append("=[").append(metric).append(']');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Starts printing the summary to System.err in the given interval, on a daemon thread
+	 * @param seconds the interval
+	 */
+	public static synchronized void startLogging(long seconds) {
+		stopLogging();
+		logger = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Metrics logger");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		logger.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				System.err.println(getSummary());
+			}
+		}, seconds, seconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stops printing the summary
+	 */
+	public static synchronized void stopLogging() {
+		if (logger != null) {
+			logger.shutdownNow();
+			logger = null;
+		}
+	}
+}
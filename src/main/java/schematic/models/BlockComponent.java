@@ -51,7 +51,7 @@ public class BlockComponent extends JComponent {
 	public void paintComponent(Graphics g) {
 		if (this.block.getId() == 0) return; // air
 		
-		BufferedImage img = this.block.getImage(this.zoom);
+		BufferedImage img = this.block.getTexture(this.zoom);
 		g.drawImage(img, 0, 0, null); // see javadoc for more info on the parameters
 	}
 	
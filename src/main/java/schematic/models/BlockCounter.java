@@ -0,0 +1,199 @@
+package schematic.models;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import schematic.models.blocktypes.Bed;
+import schematic.models.blocktypes.Block;
+import schematic.models.blocktypes.Door;
+import schematic.models.blocktypes.Furnace;
+import schematic.models.blocktypes.PoweredRail;
+import schematic.models.blocktypes.RedstoneTorch;
+import schematic.models.itemtypes.Item;
+
+/**
+ * Counts the blocks of a SliceStack for a material list. Blocks that consist of multiple parts or states
+ * (beds, doors, burning furnaces, ...) are only counted once, as the item needed to place them
+ * @author klaue
+ */
+public class BlockCounter {
+	/**
+	 * One line of the material list
+	 * @author klaue
+	 */
+	public static class Entry implements Comparable<Entry> {
+		private String name;
+		private short id;
+		private byte data;
+		private int amount = 0;
+
+		Entry(String name, short id, byte data) {
+			this.name = name;
+			this.id = id;
+			this.data = data;
+		}
+
+		/**
+		 * @return the name of the block or item
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * @return the block or item id of the first block counted for this entry
+		 */
+		public short getId() {
+			return this.id;
+		}
+
+		/**
+		 * @return the data value of the first block counted for this entry, -1 for the default
+		 */
+		public byte getData() {
+			return this.data;
+		}
+
+		/**
+		 * @return how many blocks or items were counted
+		 */
+		public int getAmount() {
+			return this.amount;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			return this.name.compareTo(o.name);
+		}
+
+		@Override
+		public String toString() {
+			return this.amount + " x " + this.name + " (" + this.id + ")";
+		}
+	}
+
+	/**
+	 * Counts all non-air blocks in the given stack, grouped by name
+	 * @param sliceStack the stack
+	 * @return the entries sorted by name
+	 */
+	public static List<Entry> countBlocks(SliceStack sliceStack) {
+		HashMap<String, Entry> entries = new HashMap<String, Entry>();
+		for (int i = 0; i < sliceStack.getHeight(); i++) {
+			Slice s = sliceStack.getSlice(i);
+			for (int j = 0; j < s.getWidth(); j++) {
+				for (int k = 0; k < s.getHeight(); k++) {
+					Block b = s.getBlockAt(j, k);
+
+					if (b.getId() == 0) { // air
+						continue;
+					}
+
+					short id = b.getId();
+					byte data = b.getData();
+
+					// only count one block for: bed, door, furnace (burning and off), reds. torch (burn. and off), redst. ore (glowing and not),
+					// powered rail (on, off), redst. repeater (on, off), redst. wire (on, off) and sign (wall, ground)
+					if (b.isBed()) {
+						if (((Bed)b).isFoot()) continue; // only save head as "Bed"
+						id = (short)355; // item id
+					} else if (b.isDoor()) {
+						Door door = (Door)b;
+						if (door.isBottomHalf()) continue; // only sabe top half as door
+						if (door.getDoorType() == Door.DoorType.IRON) {
+							id = (short)324; // item id
+						} else {
+							id = (short)330; // item id
+						}
+					} else if (b.isFurnace() && ((Furnace)b).isOn()) {
+						id = (short)61; // furnace off
+					} else if (b.isRedstoneTorch() && !((RedstoneTorch)b).isOn()) {
+						id = (short)76; // burning rs torch
+					} else if (id == 74) { // glowing redstone ore
+						id = (short)73; // redstone ore (w/o glowing)
+					} else if (b.isPoweredRail() && !((PoweredRail)b).isOn()) {
+						data = -1; // default value
+					} else if (b.isRepeater()) {
+						id = (short)356; // item id
+					} else if (b.isRedstoneWire()) {
+						id = (short)331; // item id of redstone
+					} else if (b.isTripwire()) {
+						id = (short)287; // item id of string
+					} else if (b.isSign()) {
+						// both wall and freestanding sign replaced by item id
+						id = (short)323;
+					}
+
+					// add new entry or increase number of old
+					String name = NameProvider.getNameOfBlockOrItem(id, data);
+					Entry entry = entries.get(name);
+					if (entry == null) {
+						entry = new Entry(name, id, data);
+						entries.put(name, entry);
+					}
+					++entry.amount;
+				}
+			}
+		}
+
+		List<Entry> result = new ArrayList<Entry>(entries.values());
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Counts the items in all chests, dispensers, hoppers, droppers and brewing stands of the given stack, grouped by name.
+	 * Only the blocks with tile entities are looked at, see BlockIndex
+	 * @param sliceStack the stack
+	 * @return the entries sorted by name, the amounts are the sums of the stack sizes
+	 */
+	public static List<Entry> countContents(SliceStack sliceStack) {
+		HashMap<String, Entry> entries = new HashMap<String, Entry>();
+		BlockIndex index = sliceStack.getBlockIndex();
+		for (int i = 0; i < sliceStack.getHeight(); i++) {
+			Slice s = sliceStack.getSlice(i);
+			for (int position : index.getTileEntities(i)) {
+				Item[] content = s.getBlockAt(BlockIndex.getX(position), BlockIndex.getY(position)).getContent();
+				if (content == null) continue;
+
+				for (Item item : content) {
+					if (item.getId() == 0) continue; // empty
+
+					// item data values above 15 are damage, not a different item
+					byte data = (item.getData() < 0 || item.getData() > 15) ? -1 : (byte)item.getData();
+					String name = NameProvider.getNameOfBlockOrItem(item.getId(), data);
+					Entry entry = entries.get(name);
+					if (entry == null) {
+						entry = new Entry(name, item.getId(), data);
+						entries.put(name, entry);
+					}
+					entry.amount += item.getStacksize();
+				}
+			}
+		}
+
+		List<Entry> result = new ArrayList<Entry>(entries.values());
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Writes the material list of the given stack to a text file, one "amount x name (id)" line per entry
+	 * @param sliceStack the stack
+	 * @param file The file to save the txt to. Note, contents will be overridden
+	 * @throws FileNotFoundException
+	 */
+	public static void exportToTextFile(SliceStack sliceStack, File file) throws FileNotFoundException {
+		PrintWriter writer = new PrintWriter(file);
+		for (Entry entry : countBlocks(sliceStack)) {
+			writer.println(entry.toString());
+		}
+		writer.flush();
+		writer.close();
+	}
+}
@@ -0,0 +1,285 @@
+package schematic.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import schematic.common.Metrics;
+import schematic.models.NameProvider.Id;
+import schematic.models.blocktypes.Block;
+
+/**
+ * An index from block ids and data values to the positions of the blocks in every layer of a SliceStack, to find all chests,
+ * signs etc. without looking at every block. Air is not indexed.<br>
+ * Positions are packed into one int per block, see pack(), getX() and getY(). Every layer remembers which slice it was made from
+ * and the modification count of that slice, so changed, turned or cut off layers are indexed again on the next search.<br>
+ * The blocks with tile entities (chests, signs, ...) are indexed separately, so writers and content reports only look at those
+ * @author klaue
+ */
+public class BlockIndex {
+	private SliceStack stack;
+	private ArrayList<Layer> layers = new ArrayList<Layer>();
+
+	/**
+	 * The index of one slice
+	 */
+	private static final class Layer {
+		final Slice slice;
+		final int modCount;
+		final int[] keys;		// the different (id << 4) | data values, sorted
+		final int[] starts;		// where the positions of keys[i] start in positions, one more than keys
+		final int[] positions;	// packed positions, grouped by key
+		final int[] tileEntities;	// packed positions of the blocks with tile entities
+
+		Layer(Slice slice) {
+			this.slice = slice;
+			this.modCount = slice.getModCount();
+
+			// sort the blocks by key, then position
+			int width = slice.getWidth();
+			int height = slice.getHeight();
+			long[] blocks = new long[width * height];
+			int[] tileEntities = new int[16];
+			int count = 0;
+			int tileEntityCount = 0;
+			for (int x = 0; x < width; ++x) {
+				for (int y = 0; y < height; ++y) {
+					Block block = slice.getBlockAt(x, y);
+					if (block.getId() == 0) continue;
+					long key = (block.getId() << 4) | (block.getData() & 0xF);
+					blocks[count++] = (key << 32) | pack(x, y);
+					if (block.hasTileEntity()) {
+						if (tileEntityCount == tileEntities.length) tileEntities = Arrays.copyOf(tileEntities, tileEntityCount * 2);
+						tileEntities[tileEntityCount++] = pack(x, y);
+					}
+				}
+			}
+			Arrays.sort(blocks, 0, count);
+			this.tileEntities = Arrays.copyOf(tileEntities, tileEntityCount);
+
+			int keyCount = 0;
+			for (int i = 0; i < count; ++i) {
+				if (i == 0 || (blocks[i] >>> 32) != (blocks[i - 1] >>> 32)) ++keyCount;
+			}
+			this.keys = new int[keyCount];
+			this.starts = new int[keyCount + 1];
+			this.positions = new int[count];
+			int k = -1;
+			for (int i = 0; i < count; ++i) {
+				int key = (int)(blocks[i] >>> 32);
+				if (k < 0 || this.keys[k] != key) {
+					this.keys[++k] = key;
+					this.starts[k] = i;
+				}
+				this.positions[i] = (int)blocks[i];
+			}
+			this.starts[keyCount] = count;
+		}
+
+		/**
+		 * Adds the positions of all keys from first to last (inclusive) to the list
+		 */
+		void find(int first, int last, List<int[]> ranges) {
+			int i = Arrays.binarySearch(this.keys, first);
+			if (i < 0) i = -i - 1;
+			for (; i < this.keys.length && this.keys[i] <= last; ++i) {
+				ranges.add(Arrays.copyOfRange(this.positions, this.starts[i], this.starts[i + 1]));
+			}
+		}
+	}
+
+	/**
+	 * An index of the given stack. Nothing is indexed before the first search or update()
+	 * @param stack the stack
+	 */
+	public BlockIndex(SliceStack stack) {
+		this.stack = stack;
+	}
+
+	/**
+	 * @param x the column
+	 * @param y the row
+	 * @return both in one int
+	 */
+	public static int pack(int x, int y) {
+		return (x << 16) | y;
+	}
+
+	/**
+	 * @param position a packed position
+	 * @return the column
+	 */
+	public static int getX(int position) {
+		return position >>> 16;
+	}
+
+	/**
+	 * @param position a packed position
+	 * @return the row
+	 */
+	public static int getY(int position) {
+		return position & 0xFFFF;
+	}
+
+	/**
+	 * Indexes all layers that were changed since they were indexed, or were never indexed, in parallel
+	 */
+	public synchronized void update() {
+		int height = this.stack.getHeight();
+		while (this.layers.size() > height) {
+			this.layers.remove(this.layers.size() - 1);
+		}
+		while (this.layers.size() < height) {
+			this.layers.add(null);
+		}
+
+		final List<Integer> stale = new ArrayList<Integer>();
+		for (int i = 0; i < height; ++i) {
+			Layer layer = this.layers.get(i);
+			Slice slice = this.stack.getSlice(i);
+			if (layer == null || layer.slice != slice || layer.modCount != slice.getModCount()) {
+				stale.add(i);
+			}
+		}
+		if (stale.isEmpty()) return;
+
+		Metrics.Timer timer = Metrics.timer("index.update");
+		long start = timer.start();
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), stale.size());
+		if (threads <= 1) {
+			for (int i : stale) {
+				this.layers.set(i, new Layer(this.stack.getSlice(i)));
+			}
+		} else {
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<Layer>> results = new ArrayList<Future<Layer>>();
+				for (int i : stale) {
+					final Slice slice = this.stack.getSlice(i);
+					results.add(pool.submit(new Callable<Layer>() {
+						@Override
+						public Layer call() {
+							return new Layer(slice);
+						}
+					}));
+				}
+				for (int i = 0; i < stale.size(); ++i) {
+					this.layers.set(stale.get(i), results.get(i).get());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while indexing", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Could not index the layers", e.getCause());
+			} finally {
+				pool.shutdown();
+			}
+		}
+		timer.stop(start, stale.size());
+	}
+
+	/**
+	 * Finds blocks in one layer
+	 * @param level the layer
+	 * @param ids the ids and data values to look for
+	 * @return the packed positions, sorted
+	 */
+	public synchronized int[] find(int level, Collection<Id> ids) {
+		update();
+		Layer layer = this.layers.get(level);
+		List<int[]> ranges = new ArrayList<int[]>();
+		for (Id id : ids) {
+			int key = (id.getId() << 4) | id.getData();
+			layer.find(key, key, ranges);
+		}
+		return merge(ranges);
+	}
+
+	/**
+	 * Finds blocks with any data value in one layer
+	 * @param level the layer
+	 * @param id the block id to look for
+	 * @return the packed positions, sorted
+	 */
+	public synchronized int[] find(int level, short id) {
+		update();
+		List<int[]> ranges = new ArrayList<int[]>();
+		this.layers.get(level).find(id << 4, (id << 4) | 0xF, ranges);
+		return merge(ranges);
+	}
+
+	/**
+	 * Finds blocks in all layers
+	 * @param ids the ids and data values to look for
+	 * @return the packed positions by layer, only layers that contain any of the blocks
+	 */
+	public synchronized SortedMap<Integer, int[]> findAll(Collection<Id> ids) {
+		update();
+		TreeMap<Integer, int[]> result = new TreeMap<Integer, int[]>();
+		for (int level = 0; level < this.layers.size(); ++level) {
+			int[] positions = find(level, ids);
+			if (positions.length > 0) result.put(level, positions);
+		}
+		return result;
+	}
+
+	/**
+	 * @param level the layer
+	 * @return the packed positions of the blocks with tile entities, sorted
+	 */
+	public synchronized int[] getTileEntities(int level) {
+		update();
+		return this.layers.get(level).tileEntities.clone();
+	}
+
+	/**
+	 * @return the number of blocks with tile entities in all layers
+	 */
+	public synchronized int getTileEntityCount() {
+		update();
+		int count = 0;
+		for (Layer layer : this.layers) {
+			count += layer.tileEntities.length;
+		}
+		return count;
+	}
+
+	/**
+	 * Counts blocks in all layers
+	 * @param ids the ids and data values to count
+	 * @return how many blocks there are
+	 */
+	public synchronized int count(Collection<Id> ids) {
+		update();
+		int count = 0;
+		for (Layer layer : this.layers) {
+			for (Id id : ids) {
+				int i = Arrays.binarySearch(layer.keys, (id.getId() << 4) | id.getData());
+				if (i >= 0) count += layer.starts[i + 1] - layer.starts[i];
+			}
+		}
+		return count;
+	}
+
+	private static int[] merge(List<int[]> ranges) {
+		if (ranges.size() == 1) return ranges.get(0);
+		int length = 0;
+		for (int[] range : ranges) length += range.length;
+		int[] result = new int[length];
+		int pos = 0;
+		for (int[] range : ranges) {
+			System.arraycopy(range, 0, result, pos, range.length);
+			pos += range.length;
+		}
+		Arrays.sort(result);
+		return result;
+	}
+}
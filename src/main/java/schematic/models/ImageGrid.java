@@ -6,6 +6,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.MouseInfo;
 import java.awt.Point;
+import java.awt.RenderingHints;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
@@ -19,6 +20,7 @@ import javax.swing.JToolTip;
 import javax.swing.RepaintManager;
 import javax.swing.ToolTipManager;
 
+import schematic.common.Metrics;
 import schematic.models.blocktypes.Block;
 import schematic.models.images.ImageProvider;
 
@@ -28,15 +30,25 @@ import schematic.models.images.ImageProvider;
  * @author klaue
  */
 public class ImageGrid extends JComponent implements Printable, MouseListener {
-	private Slice slice = null;
-	private Color gridColor = null;
+	private volatile Slice slice = null;
+	private volatile Color gridColor = null;
 	private Color markColor = null;
-	private float zoom = 1;
+	private volatile float zoom = 1;
 	private long lastPrintTime = new Date().getTime();
 	private BufferedImage printCache = null;
 	private Point markedBlock = null;
+	private int[] highlightedBlocks = null;
+	
+	// the slice rendered without marks and what it was rendered with, see getLayerImage()
+	private final Object renderLock = new Object();
+	private BufferedImage layerImage = null;
+	private Slice layerSlice = null;
+	private int layerModCount = 0;
+	private float layerZoom = 0;
+	private Color layerGridColor = null;
 	
 	private static Dimension imgDim = ImageProvider.DEFAULT_IMAGE_SIZE;
+	private static final Color HIGHLIGHT_COLOR = Color.ORANGE;
 	
 	/**
 	 * An ImageGrid with the given images, black grid lines and a red marker.
@@ -82,28 +94,7 @@ public class ImageGrid extends JComponent implements Printable, MouseListener {
 	
 	private void calcNewSize() {
 		if (this.slice != null) {
-			int sliceWidth = this.slice.getWidth();
-			int sliceHeight = this.slice.getHeight();
-			
-			int width = sliceWidth * ((int)(imgDim.width * this.zoom));
-			int height = sliceHeight * ((int)(imgDim.height * this.zoom));
-			
-			// add lines
-			width += sliceWidth - 2;
-			height += sliceHeight - 2;
-			
-			// add thicker lines every 5th block
-			for (int i = 0; i < sliceWidth; ++i) {
-				if ((i + 1) % 5 == 0) {
-					++width;
-				}
-			}
-			for (int i = 0; i < sliceHeight; ++i) {
-				if ((i + 1) % 5 == 0) {
-					++height;
-				}
-			}
-			Dimension dim = new Dimension(width, height);
+			Dimension dim = LayerRasterizer.getSize(this.slice, this.zoom);
 			this.setMinimumSize(dim);
 			this.setPreferredSize(dim);
 			this.setMaximumSize(dim);
@@ -111,7 +102,7 @@ public class ImageGrid extends JComponent implements Printable, MouseListener {
 			
 		}
 	}
-
+	
 	/**
 	 * @return the grid color
 	 */
@@ -142,104 +133,57 @@ public class ImageGrid extends JComponent implements Printable, MouseListener {
 	
 	@Override
 	public void paint(Graphics g) {
-		int hzBlockNum = this.slice.getWidth();
-		int vtBlockNum = this.slice.getHeight();
-		
-		if (this.slice == null || hzBlockNum == 0 || vtBlockNum == 0) {
+		if (this.slice == null || this.slice.getWidth() == 0 || this.slice.getHeight() == 0) {
 			super.paint(g);
 		} else {
-			int imgWidth = (int)(imgDim.width * this.zoom);
-			int imgHeight = (int)(imgDim.height * this.zoom);
-			int thisWidth = this.getPreferredSize().width;
-			int thisHeight = this.getPreferredSize().height;
-			
-			// draw grid lines
-			g.setColor(this.gridColor);
-			// vert
-			int xPx = imgWidth;
-			for (int x = 0; x < hzBlockNum - 1; ++x) {
-				g.drawLine(xPx, 0, xPx, thisHeight - 1);
-				
-				if ((x + 1) % 5 == 0) {
-					// double line
-					g.drawLine(xPx + 1, 0, xPx + 1, thisHeight - 1);
-					xPx = xPx + imgWidth + 2;
-				} else {
-					xPx = xPx + imgWidth + 1;
-				}
-			}
-			// horz
-			int yPx = imgHeight;
-			for (int y = 0; y < vtBlockNum - 1; ++y) {
-				g.drawLine(0, yPx, thisWidth - 1, yPx);
-				
-				if ((y + 1) % 5 == 0) {
-					// double line
-					g.drawLine(0, yPx + 1, thisWidth - 1, yPx + 1);
-					yPx = yPx + imgHeight + 2;
-				} else {
-					yPx = yPx + imgHeight + 1;
-				}
-			}
-			
-			
-			// draw block images
-			xPx = 0;
-			yPx = 0;
-			for (int y = 0; y < vtBlockNum; ++y) {
-				for (int x = 0; x < hzBlockNum; ++x) {
-					Block block = this.slice.getBlockAt(x, y);
-					
-					if (block.getId() != 0) {
-						BufferedImage img = block.getImage(this.zoom);
-						g.drawImage(img, xPx, yPx, null); // see javadoc for more info on the parameters
-					}
-					
-					if (this.markedBlock != null && this.markedBlock.x == x && this.markedBlock.y == y) {
-						// draw a red border around this block
-						g.setColor(this.markColor);
-						boolean drawLeft = (x != 0);
-						boolean drawRight = (x != hzBlockNum -1);
-						boolean drawTop = (y != 0);
-						boolean drawBottom = (y != vtBlockNum -1);
-						
-						int left = xPx - 1;
-						int top = yPx - 1;
-						int right = xPx + imgWidth;
-						int bottom = yPx + imgHeight;
-						
-						// corner points
-						if (drawLeft && drawTop)		g.drawLine(left, top, left, top);
-						if (drawLeft && drawBottom)		g.drawLine(left, bottom, left, bottom);
-						if (drawRight && drawTop)		g.drawLine(right, top, right, top);
-						if (drawRight && drawBottom)	g.drawLine(right, bottom, right, bottom);
-						
-						// lines
-						if (drawLeft)	g.drawLine(left, top+1, left, bottom-1);
-						if (drawRight)	g.drawLine(right, top+1, right, bottom-1);
-						if (drawTop)	g.drawLine(left+1, top, right-1, top);
-						if (drawBottom)	g.drawLine(left+1, bottom, right-1, bottom);
-						
-						Color c = new Color(this.markColor.getRed(), this.markColor.getGreen(), this.markColor.getBlue(), 50);
-						g.setColor(c);
-						g.fillRect(xPx, yPx, imgWidth, imgHeight);
-					}
-					
-					if ((x + 1) % 5 == 0) {
-						// double line
-						xPx = xPx + (imgWidth + 2);
-					} else {
-						xPx = xPx + (imgWidth + 1);
-					}
-				}
-				xPx = 0;
-				if ((y + 1) % 5 == 0) {
-					// double line
-					yPx = yPx + (imgHeight + 2);
-				} else {
-					yPx = yPx + (imgHeight + 1);
-				}
+			Metrics.Timer timer = Metrics.timer("grid.paint");
+			long start = timer.start();
+			Slice slice = this.slice;
+			g.drawImage(getLayerImage(), 0, 0, null);
+			LayerRasterizer.paintMarks(g, slice, this.zoom, this.markedBlock, this.markColor, this.highlightedBlocks, HIGHLIGHT_COLOR);
+			int tiles = slice.getWidth() * slice.getHeight();
+			timer.stop(start, tiles);
+			Metrics.histogram("grid.tilesPerFrame").record(tiles);
+		}
+	}
+	
+	/**
+	 * Renders the slice without the marked and highlighted blocks, or returns the image of the last call if the slice, zoom and grid
+	 * color didn't change since then. Can be called on any thread, the ImageGridStack renders layers in the background before
+	 * they are shown with it
+	 * @return the image or null if the slice is empty. The image is shared, don't change it
+	 */
+	public BufferedImage getLayerImage() {
+		synchronized (this.renderLock) {
+			Slice slice = this.slice;
+			float zoom = this.zoom;
+			Color gridColor = this.gridColor;
+			if (slice == null || slice.getWidth() == 0 || slice.getHeight() == 0) return null;
+			int modCount = slice.getModCount();
+			if (this.layerImage != null && this.layerSlice == slice && this.layerModCount == modCount && this.layerZoom == zoom
+					&& this.layerGridColor.equals(gridColor)) {
+				Metrics.cache("layers").hit();
+				return this.layerImage;
 			}
+			Metrics.cache("layers").miss();
+			this.layerImage = null; // so the old image can be collected while rendering the new one
+			BufferedImage img = LayerRasterizer.render(slice, zoom, null, gridColor, null, null);
+			this.layerImage = img;
+			this.layerSlice = slice;
+			this.layerModCount = modCount;
+			this.layerZoom = zoom;
+			this.layerGridColor = gridColor;
+			return img;
+		}
+	}
+	
+	/**
+	 * Drops the rendered slice, to free the memory of grids that aren't shown anymore
+	 */
+	public void releaseLayerImage() {
+		synchronized (this.renderLock) {
+			this.layerImage = null;
+			this.layerSlice = null;
 		}
 	}
 	
@@ -250,39 +194,11 @@ public class ImageGrid extends JComponent implements Printable, MouseListener {
 	 * @param background the background color to use. Null for transparent
 	 * @param gridLines the color to use for the grid lines
 	 * @return the generated image
+	 * @see LayerRasterizer#render(Slice, float, Color, Color)
 	 */
 	public BufferedImage exportImage(Color background, Color gridLines) {
-		if (this.slice == null || this.slice.getWidth() == 0 || this.slice.getHeight() == 0) return null;
-		
-		int width = this.getMinimumSize().width;
-		int height = this.getMinimumSize().height;
-		
-		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
-		
-		Graphics2D g = img.createGraphics();
-		if (background != null) {
-			g.setColor(background);
-			g.fillRect(0, 0, width, height);
-		} else {
-			g.setBackground(new Color(0x00FFFFFF, true)); // transp. white
-			g.clearRect(0, 0, width, height);
-		}
-		
-		Color previousGridColor = this.getGridColor();
-		if (previousGridColor != gridLines) {
-			this.setGridColor(gridLines);
-		}
-		
-		// set marker color to grid color to hide
-		Color previousMarkColor = this.getMarkColor();
-		this.setMarkColor(gridLines);
-		
-		this.paint(g);
-		
-		this.setGridColor(previousGridColor);
-		this.setMarkColor(previousMarkColor);
-		
-		return img;
+		if (this.slice == null) return null;
+		return LayerRasterizer.render(this.slice, this.zoom, background, gridLines);
 	}
 
 	/**
@@ -416,6 +332,8 @@ public class ImageGrid extends JComponent implements Printable, MouseListener {
 		float vZoom = (float) height / this.getPreferredSize().height;
 		float zoom = (hZoom < vZoom) ? hZoom : vZoom;
 		g2d.scale(zoom, zoom);
+		// the layer is rendered with sharp textures, smooth them while scaling to the page
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
 		
 		// I know that this caching, using time, is ugly, but there's no other way and this method
 		// may be called hundreds of times for the same page, which takes ages w/o caching
@@ -478,4 +396,19 @@ public class ImageGrid extends JComponent implements Printable, MouseListener {
 	public void setMarkedBlock(Point markedBlock) {
 		this.markedBlock = markedBlock;
 	}
+
+	/**
+	 * @return the highlighted blocks, packed as by BlockIndex.pack(), or null
+	 */
+	public int[] getHighlightedBlocks() {
+		return this.highlightedBlocks;
+	}
+
+	/**
+	 * @param highlightedBlocks the blocks to highlight, packed as by BlockIndex.pack(), or null for none
+	 */
+	public void setHighlightedBlocks(int[] highlightedBlocks) {
+		this.highlightedBlocks = highlightedBlocks;
+		repaint();
+	}
 }
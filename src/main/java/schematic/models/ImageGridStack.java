@@ -1,69 +1,222 @@
 package schematic.models;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.image.BufferedImage;
 import java.awt.print.PageFormat;
 import java.awt.print.Printable;
 import java.awt.print.PrinterException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.ToolTipManager;
+
+import schematic.common.Metrics;
 
 /**
- * A stack of ImageGrids
+ * A stack of ImageGrids, one per slice of a SliceStack. The grids are only created when a level is requested,
+ * and only the most recently used ones are kept.<br>
+ * prefetch() renders the layers next to the shown one on low priority background threads, so going up or down a layer
+ * doesn't have to wait for the layer to be rendered
  * @author klaue
  */
 public class ImageGridStack implements Printable {
-	private ImageGrid[] grids;
-	private Color gridColor = null;
-	private Color markColor = null;
+	/** how many layers above and below the shown one are rendered in advance */
+	private static final int PREFETCH_DISTANCE = 2;
+	/** how many pixels the layers rendered in advance may have together, about 4 bytes each */
+	private static final long PREFETCH_PIXELS = 32 * 1024 * 1024;
+	/** how many ImageGrid components are kept alive at most, the shown one, the prefetched ones and the one shown before */
+	private static final int MAX_LIVE_GRIDS = 2 * PREFETCH_DISTANCE + 2;
+	
+	private static ExecutorService prefetcher = null;
+	
+	private SliceStack sliceStack;
+	private LinkedHashMap<Integer, ImageGrid> grids;
+	private List<Prefetch> prefetches = new ArrayList<Prefetch>();
+	private ImageGrid printGrid = null; // the page being printed, kept out of grids so printing doesn't drop the shown grid
+	private int printLevel = -1;
+	private Color gridColor = Color.black;
+	private Color markColor = Color.RED;
 	private float zoom = 1;
 	
 	/**
 	 * initialize the image grid stack.
-	 * @param grids the ImageGrids. It is assumed that all grids in this array are of the same zoom value and grid line color
+	 * @param sliceStack the slices to show
+	 * @param zoom the zoom value of the grids
 	 */
-	public ImageGridStack(ImageGrid[] grids) {
-		this.grids = grids;
-		if (grids.length > 0) {
-			this.zoom = grids[0].getZoom();
-			this.gridColor = grids[0].getGridColor();
-			this.markColor = grids[0].getMarkColor();
-		}
+	public ImageGridStack(SliceStack sliceStack, float zoom) {
+		this.sliceStack = sliceStack;
+		this.zoom = zoom;
+		this.grids = new LinkedHashMap<Integer, ImageGrid>(MAX_LIVE_GRIDS * 2, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, ImageGrid> eldest) {
+				if (size() <= MAX_LIVE_GRIDS) return false;
+				ToolTipManager.sharedInstance().unregisterComponent(eldest.getValue());
+				eldest.getValue().releaseLayerImage();
+				return true;
+			}
+		};
 	}
 	
 	/**
-	 * Gets the grid at the level
+	 * Gets the grid at the level, creating it if it's not alive anymore or was never requested.
+	 * A grid that was released and is created again loses its marked block
 	 * @param level the level
 	 * @return the grid
 	 */
 	public ImageGrid getGridAtLevel(int level) {
-		return this.grids[level];
+		if (level < 0 || level >= this.sliceStack.getHeight()) {
+			throw new IndexOutOfBoundsException("No level " + level + " in stack of size " + this.sliceStack.getHeight());
+		}
+		ImageGrid grid = this.grids.get(level);
+		if (grid == null) {
+			grid = new ImageGrid(this.sliceStack.getSlice(level), this.zoom, this.gridColor, this.markColor);
+			this.grids.put(level, grid);
+		}
+		return grid;
 	}
 	
 	/**
-	 * Sets the grid at the given level
-	 * @param level
-	 * @param grid the grid. Has to have the same zoom value as the other grids in this stack
+	 * Renders the layers above and below the given level in the background, nearest first, and cancels the rendering of the
+	 * layers around the level given before that didn't start yet. Has to be called on the event dispatch thread, like
+	 * getGridAtLevel()
+	 * @param level the shown level
 	 */
-	public void setGridAtLevel(int level, ImageGrid grid) {
-		if (grid == null) {
-			throw new IllegalArgumentException("null grids not allowed");
+	public void prefetch(int level) {
+		cancelPrefetch();
+		if (level < 0 || level >= this.sliceStack.getHeight()) return;
+		
+		Dimension size = LayerRasterizer.getSize(this.sliceStack.getSlice(level), this.zoom);
+		long pixels = Math.max(1, (long)size.width * size.height);
+		int count = (int)Math.min(2 * PREFETCH_DISTANCE, PREFETCH_PIXELS / pixels);
+		for (int i = 0; i < count; ++i) {
+			int distance = i / 2 + 1;
+			int prefetchLevel = (i % 2 == 0) ? level + distance : level - distance;
+			if (prefetchLevel < 0 || prefetchLevel >= this.sliceStack.getHeight()) continue;
+			Prefetch prefetch = new Prefetch(getGridAtLevel(prefetchLevel));
+			this.prefetches.add(prefetch);
+			getPrefetcher().execute(prefetch);
+		}
+		getGridAtLevel(level); // the shown grid stays the most recently used one
+	}
+	
+	/**
+	 * Cancels the rendering of layers in advance that didn't start yet. Layers that are already being rendered are
+	 * finished in the background, see stopPrefetch()
+	 */
+	public void cancelPrefetch() {
+		cancelPrefetches();
+	}
+	
+	/**
+	 * Cancels the rendering of layers in advance like cancelPrefetch() and waits until the layers that are already being
+	 * rendered are done, so the slices can be changed afterwards. Has to be called on the event dispatch thread
+	 */
+	public void stopPrefetch() {
+		try {
+			for (Prefetch prefetch : cancelPrefetches()) {
+				prefetch.done.await();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * @return the prefetches that could not be cancelled because they already started
+	 */
+	private List<Prefetch> cancelPrefetches() {
+		List<Prefetch> started = new ArrayList<Prefetch>();
+		for (Prefetch prefetch : this.prefetches) {
+			if (prefetch.cancel()) {
+				Metrics.counter("grid.prefetch.cancelled").increment();
+			} else {
+				started.add(prefetch);
+			}
 		}
-		if (this.grids.length == 0) {
-			// first imagegrid
-			this.zoom = grid.getZoom();
-			this.gridColor = grid.getGridColor();
-			this.markColor = grid.getMarkColor();
-		} else if (grid.getZoom() != this.zoom || grid.getGridColor() != this.gridColor || grid.getMarkColor() != this.markColor) {
-			throw new IllegalArgumentException("new grid not of same gridcolor, markcolor or zoom as the rest of the grids");
+		this.prefetches.clear();
+		return started;
+	}
+	
+	/**
+	 * Renders the layer of a grid in the background. Unlike a Future, it knows whether it already started when it's
+	 * cancelled, so stopPrefetch() can wait for it
+	 */
+	private static class Prefetch implements Runnable {
+		final ImageGrid grid;
+		final AtomicBoolean claimed = new AtomicBoolean(false); // by the thread that runs it or by cancel()
+		final CountDownLatch done = new CountDownLatch(1);
+		
+		Prefetch(ImageGrid grid) {
+			this.grid = grid;
+		}
+		
+		/**
+		 * @return true if it was cancelled before it started
+		 */
+		boolean cancel() {
+			return this.claimed.compareAndSet(false, true);
 		}
 		
-		this.grids[level] = grid; // may throw arrayoutofboundsexception
+		@Override
+		public void run() {
+			if (!this.claimed.compareAndSet(false, true)) return; // cancelled
+			Metrics.Timer timer = Metrics.timer("grid.prefetch");
+			long start = timer.start();
+			try {
+				this.grid.getLayerImage();
+				timer.stop(start);
+			} catch (RuntimeException e) {
+				// the stack was changed while rendering, the layer will be rendered again when it's shown
+			} catch (OutOfMemoryError e) {
+				this.grid.releaseLayerImage();
+			} finally {
+				this.done.countDown();
+			}
+		}
+	}
+	
+	private static synchronized ExecutorService getPrefetcher() {
+		if (prefetcher == null) {
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+			prefetcher = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "ImageGridStack prefetcher");
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+		}
+		return prefetcher;
+	}
+	
+	/**
+	 * Renders the given level without creating an ImageGrid for it
+	 * @param level the level
+	 * @param background the background color to use. Null for transparent
+	 * @param gridLines the color to use for the grid lines
+	 * @return the generated image
+	 * @see LayerRasterizer#render(Slice, float, Color, Color)
+	 */
+	public BufferedImage exportImage(int level, Color background, Color gridLines) {
+		return LayerRasterizer.render(this.sliceStack.getSlice(level), this.zoom, background, gridLines);
 	}
 	
 	/**
 	 * @return the size of this stack
 	 */
 	public int getStackSize() {
-		return this.grids.length;
+		return this.sliceStack.getHeight();
 	}
 
 	/**
@@ -79,7 +232,7 @@ public class ImageGridStack implements Printable {
 	public void setZoom(float zoom) {
 		if (zoom == this.zoom) return;
 		this.zoom = zoom;
-		for (ImageGrid grid : this.grids) {
+		for (ImageGrid grid : this.grids.values()) {
 			grid.setZoom(zoom);
 		}
 	}
@@ -97,7 +250,7 @@ public class ImageGridStack implements Printable {
 	public void setGridColor(Color gridColor) {
 		if (this.gridColor == gridColor) return;
 		this.gridColor = gridColor;
-		for (ImageGrid grid : this.grids) {
+		for (ImageGrid grid : this.grids.values()) {
 			grid.setGridColor(gridColor);
 		}
 	}
@@ -115,17 +268,28 @@ public class ImageGridStack implements Printable {
 	public void setMarkColor(Color markColor) {
 		if (this.markColor == markColor) return;
 		this.markColor = markColor;
-		for (ImageGrid grid : this.grids) {
+		for (ImageGrid grid : this.grids.values()) {
 			grid.setMarkColor(markColor);
 		}
 	}
 
 	@Override
 	public int print(Graphics g, PageFormat pageFormat, int pageIndex) throws PrinterException {
-		if (pageIndex >= this.grids.length) {
+		if (pageIndex >= getStackSize()) {
+			// asked after the last page, the job is done
+			if (this.printGrid != null) this.printGrid.releaseLayerImage();
+			this.printGrid = null;
+			this.printLevel = -1;
 			return NO_SUCH_PAGE;
 		}
-		this.grids[pageIndex].print(g, pageFormat, 0);
+		// print() is called several times per page, so the grid of the page is kept until the next page
+		if (this.printGrid == null || this.printLevel != pageIndex) {
+			if (this.printGrid != null) this.printGrid.releaseLayerImage();
+			this.printGrid = new ImageGrid(this.sliceStack.getSlice(pageIndex), this.zoom, this.gridColor, this.markColor);
+			ToolTipManager.sharedInstance().unregisterComponent(this.printGrid); // never shown
+			this.printLevel = pageIndex;
+		}
+		this.printGrid.print(g, pageFormat, 0);
 		
 		return PAGE_EXISTS;
 	}
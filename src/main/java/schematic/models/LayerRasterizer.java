@@ -0,0 +1,436 @@
+package schematic.models;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import schematic.common.Metrics;
+import schematic.models.blocktypes.Block;
+import schematic.models.images.ImageProvider;
+
+/**
+ * Renders a Slice to an image by writing the block textures directly into the int array of a TYPE_INT_ARGB image.
+ * The layout is the same as the one of ImageGrid: a 1px grid line between the blocks and a 2px line after every
+ * 5th block from the top left. Blocks smaller than MIN_TEXTURE_SIZE are filled with the average color of their texture
+ * instead, as the textures can't be made out at that size anyway.<br>
+ * This class holds no state, so layers can be rendered on any thread and in parallel, without Swing
+ * @author klaue
+ */
+public class LayerRasterizer {
+	private static Dimension imgDim = ImageProvider.DEFAULT_IMAGE_SIZE;
+	/** blocks with less pixels than this in width or height are drawn in one color */
+	public static final int MIN_TEXTURE_SIZE = 4;
+
+	private LayerRasterizer() {}
+
+	/**
+	 * Returns the size of the given slice when rendered with the given zoom, including the grid lines
+	 * @param slice the slice
+	 * @param zoom the zoom value (1 is a 16x16 image/block)
+	 * @return the size in pixels
+	 */
+	public static Dimension getSize(Slice slice, float zoom) {
+		int sliceWidth = slice.getWidth();
+		int sliceHeight = slice.getHeight();
+
+		int width = sliceWidth * ((int)(imgDim.width * zoom));
+		int height = sliceHeight * ((int)(imgDim.height * zoom));
+
+		// add lines
+		width += sliceWidth - 2;
+		height += sliceHeight - 2;
+
+		// add thicker lines every 5th block
+		width += sliceWidth / 5;
+		height += sliceHeight / 5;
+
+		return new Dimension(width, height);
+	}
+
+	/**
+	 * Renders the given slice. This is the method used for exports, the time and number of pixels go to the
+	 * "export.layer" timer of the Metrics.
+	 * A check for enough memory should be done before calling this or this should be wrapped
+	 * inside a try-catch for java.lang.OutOfMemoryError - it'll need ~4 byte of memory per pixel
+	 * @param slice the slice to render
+	 * @param zoom the zoom value (1 is a 16x16 image/block)
+	 * @param background the background color to use. Null for transparent
+	 * @param gridColor the color to use for the grid lines
+	 * @return the generated TYPE_INT_ARGB image or null if the slice is empty
+	 */
+	public static BufferedImage render(Slice slice, float zoom, Color background, Color gridColor) {
+		Metrics.Timer timer = Metrics.timer("export.layer");
+		long start = timer.start();
+		BufferedImage img = render(slice, zoom, background, gridColor, null, null);
+		if (img != null) timer.stop(start, (long)img.getWidth() * img.getHeight());
+		return img;
+	}
+
+	/**
+	 * Renders the given slice with a marked block.
+	 * A check for enough memory should be done before calling this or this should be wrapped
+	 * inside a try-catch for java.lang.OutOfMemoryError - it'll need ~4 byte of memory per pixel
+	 * @param slice the slice to render
+	 * @param zoom the zoom value (1 is a 16x16 image/block)
+	 * @param background the background color to use. Null for transparent
+	 * @param gridColor the color to use for the grid lines
+	 * @param markedBlock the index of the block to mark or null for none
+	 * @param markColor the color of the marked block
+	 * @return the generated TYPE_INT_ARGB image or null if the slice is empty
+	 */
+	public static BufferedImage render(Slice slice, float zoom, Color background, Color gridColor,
+			Point markedBlock, Color markColor) {
+		return render(slice, zoom, background, gridColor, markedBlock, markColor, null, null);
+	}
+
+	/**
+	 * Renders the given slice with a marked block and highlighted blocks, e.g. the results of a search.
+	 * A check for enough memory should be done before calling this or this should be wrapped
+	 * inside a try-catch for java.lang.OutOfMemoryError - it'll need ~4 byte of memory per pixel
+	 * @param slice the slice to render
+	 * @param zoom the zoom value (1 is a 16x16 image/block)
+	 * @param background the background color to use. Null for transparent
+	 * @param gridColor the color to use for the grid lines
+	 * @param markedBlock the index of the block to mark or null for none
+	 * @param markColor the color of the marked block
+	 * @param highlighted the positions of the blocks to highlight, packed as by BlockIndex.pack(). Null for none
+	 * @param highlightColor the color of the highlighted blocks
+	 * @return the generated TYPE_INT_ARGB image or null if the slice is empty
+	 */
+	public static BufferedImage render(Slice slice, float zoom, Color background, Color gridColor,
+			Point markedBlock, Color markColor, int[] highlighted, Color highlightColor) {
+		int hzBlockNum = slice.getWidth();
+		int vtBlockNum = slice.getHeight();
+		if (hzBlockNum == 0 || vtBlockNum == 0) return null;
+
+		Dimension size = getSize(slice, zoom);
+		BufferedImage img = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+		int width = size.width;
+		int height = size.height;
+
+		Arrays.fill(pixels, (background == null) ? 0x00FFFFFF : background.getRGB()); // transp. white
+
+		int imgWidth = (int)(imgDim.width * zoom);
+		int imgHeight = (int)(imgDim.height * zoom);
+
+		// grid lines
+		int line = gridColor.getRGB();
+		int xPx = imgWidth;
+		for (int x = 0; x < hzBlockNum - 1; ++x) {
+			fillRect(pixels, width, height, xPx, 0, ((x + 1) % 5 == 0) ? 2 : 1, height, line);
+			xPx += ((x + 1) % 5 == 0) ? imgWidth + 2 : imgWidth + 1;
+		}
+		int yPx = imgHeight;
+		for (int y = 0; y < vtBlockNum - 1; ++y) {
+			fillRect(pixels, width, height, 0, yPx, width, ((y + 1) % 5 == 0) ? 2 : 1, line);
+			yPx += ((y + 1) % 5 == 0) ? imgHeight + 2 : imgHeight + 1;
+		}
+
+		// block textures, looked up for the whole layer at once so the image caches are only locked once.
+		// The ARGB values of each texture are only fetched once per layer
+		boolean flat = imgWidth < MIN_TEXTURE_SIZE || imgHeight < MIN_TEXTURE_SIZE;
+		BufferedImage[] textures = flat ? null : getTextures(slice);
+		IdentityHashMap<BufferedImage, BufferedImage> zoomed = new IdentityHashMap<BufferedImage, BufferedImage>();
+		IdentityHashMap<BufferedImage, int[]> texels = new IdentityHashMap<BufferedImage, int[]>();
+		yPx = 0;
+		for (int y = 0; y < vtBlockNum; ++y) {
+			xPx = 0;
+			for (int x = 0; x < hzBlockNum; ++x) {
+				if (flat) {
+					int color = OverviewRasterizer.getColor(slice.getBlockAt(x, y));
+					if (color != 0) fillRect(pixels, width, height, xPx, yPx, imgWidth, imgHeight, color);
+				} else if (textures[y * hzBlockNum + x] != null) {
+					BufferedImage base = textures[y * hzBlockNum + x];
+					BufferedImage texture = zoomed.get(base);
+					if (texture == null) {
+						texture = Block.zoomTexture(base, zoom);
+						zoomed.put(base, texture);
+						texels.put(texture, getARGB(texture));
+					}
+					drawTexture(pixels, width, height, xPx, yPx, texels.get(texture), texture.getWidth(), texture.getHeight());
+				}
+				xPx += ((x + 1) % 5 == 0) ? imgWidth + 2 : imgWidth + 1;
+			}
+			yPx += ((y + 1) % 5 == 0) ? imgHeight + 2 : imgHeight + 1;
+		}
+
+		drawMarks(img, slice, zoom, markedBlock, markColor, highlighted, highlightColor);
+		return img;
+	}
+
+	/**
+	 * Returns the base images of all blocks of the slice, see Block.getBaseImage(), taken from the image caches of the blocks while holding
+	 * Block.IMAGE_LOCK once
+	 * @return the textures, index y * slice.getWidth() + x. Null for air and blocks without image
+	 */
+	private static BufferedImage[] getTextures(Slice slice) {
+		int hzBlockNum = slice.getWidth();
+		BufferedImage[] textures = new BufferedImage[hzBlockNum * slice.getHeight()];
+		synchronized (Block.IMAGE_LOCK) {
+			for (int y = 0; y < slice.getHeight(); ++y) {
+				for (int x = 0; x < hzBlockNum; ++x) {
+					Block block = slice.getBlockAt(x, y);
+					if (block.getId() != 0) textures[y * hzBlockNum + x] = block.getBaseImage();
+				}
+			}
+		}
+		return textures;
+	}
+
+	/**
+	 * Draws a marked block and highlighted blocks onto a layer that was rendered without them, so an already rendered layer
+	 * can be reused when only the marks change
+	 * @param img the image of the slice, as returned by render()
+	 * @param slice the rendered slice
+	 * @param zoom the zoom value the slice was rendered with
+	 * @param markedBlock the index of the block to mark or null for none
+	 * @param markColor the color of the marked block
+	 * @param highlighted the positions of the blocks to highlight, packed as by BlockIndex.pack(). Null for none
+	 * @param highlightColor the color of the highlighted blocks
+	 */
+	public static void drawMarks(BufferedImage img, Slice slice, float zoom, Point markedBlock, Color markColor,
+			int[] highlighted, Color highlightColor) {
+		int hzBlockNum = slice.getWidth();
+		int vtBlockNum = slice.getHeight();
+		int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+		int width = img.getWidth();
+		int height = img.getHeight();
+		int imgWidth = (int)(imgDim.width * zoom);
+		int imgHeight = (int)(imgDim.height * zoom);
+
+		if (highlighted != null && highlightColor != null) {
+			for (int position : highlighted) {
+				int x = BlockIndex.getX(position);
+				int y = BlockIndex.getY(position);
+				if (x < hzBlockNum && y < vtBlockNum) {
+					drawMark(pixels, width, height, x, y, hzBlockNum, vtBlockNum, imgWidth, imgHeight, highlightColor);
+				}
+			}
+		}
+
+		if (markedBlock != null && markColor != null
+				&& markedBlock.x >= 0 && markedBlock.x < hzBlockNum && markedBlock.y >= 0 && markedBlock.y < vtBlockNum) {
+			drawMark(pixels, width, height, markedBlock.x, markedBlock.y, hzBlockNum, vtBlockNum, imgWidth, imgHeight, markColor);
+		}
+	}
+
+	/**
+	 * Paints a marked block and highlighted blocks like drawMarks(), but with a Graphics, e.g. over the shared image of
+	 * a layer when it is shown, so the image doesn't have to be copied. Only the blocks inside the clip are painted
+	 * @param g the graphics to paint with, with the origin at the top left of the slice
+	 * @param slice the rendered slice
+	 * @param zoom the zoom value the slice was rendered with
+	 * @param markedBlock the index of the block to mark or null for none
+	 * @param markColor the color of the marked block
+	 * @param highlighted the positions of the blocks to highlight, packed as by BlockIndex.pack(). Null for none
+	 * @param highlightColor the color of the highlighted blocks
+	 */
+	public static void paintMarks(Graphics g, Slice slice, float zoom, Point markedBlock, Color markColor,
+			int[] highlighted, Color highlightColor) {
+		int hzBlockNum = slice.getWidth();
+		int vtBlockNum = slice.getHeight();
+		int imgWidth = (int)(imgDim.width * zoom);
+		int imgHeight = (int)(imgDim.height * zoom);
+		Rectangle clip = g.getClipBounds();
+
+		if (highlighted != null && highlightColor != null) {
+			for (int position : highlighted) {
+				int x = BlockIndex.getX(position);
+				int y = BlockIndex.getY(position);
+				if (x < hzBlockNum && y < vtBlockNum) {
+					paintMark(g, clip, x, y, hzBlockNum, vtBlockNum, imgWidth, imgHeight, highlightColor);
+				}
+			}
+		}
+
+		if (markedBlock != null && markColor != null
+				&& markedBlock.x >= 0 && markedBlock.x < hzBlockNum && markedBlock.y >= 0 && markedBlock.y < vtBlockNum) {
+			paintMark(g, clip, markedBlock.x, markedBlock.y, hzBlockNum, vtBlockNum, imgWidth, imgHeight, markColor);
+		}
+	}
+
+	/**
+	 * Returns the pixel position of the top left corner of the block at the given index
+	 * @param index the index of the block in x or y direction
+	 * @param imgSize the size of a block image
+	 * @return the position in pixels
+	 */
+	private static int getPosition(int index, int imgSize) {
+		return index * (imgSize + 1) + index / 5;
+	}
+
+	/**
+	 * Returns the pixel position of the top left corner of the block at the given index in a rendered slice
+	 * @param index the index of the block in x or y direction
+	 * @param zoom the zoom value (1 is a 16x16 image/block)
+	 * @return the position in pixels
+	 */
+	public static int getBlockPosition(int index, float zoom) {
+		return getPosition(index, (int)(imgDim.width * zoom));
+	}
+
+	/**
+	 * Returns the index of the block at the given pixel position in a rendered slice, the inverse of getBlockPosition()
+	 * @param position the position in pixels in x or y direction
+	 * @param zoom the zoom value (1 is a 16x16 image/block)
+	 * @return the index of the block, or of the block before the grid line at that position
+	 */
+	public static int getBlockIndex(int position, float zoom) {
+		int imgSize = (int)(imgDim.width * zoom);
+		int fiver = 5 * (imgSize + 1) + 1; // five blocks and their lines
+		int index = (position / fiver) * 5 + Math.min(4, (position % fiver) / (imgSize + 1));
+		return Math.max(0, index);
+	}
+
+	/**
+	 * Draws a border around a marked or highlighted block and tints it with the given color
+	 */
+	private static void drawMark(int[] pixels, int width, int height, int x, int y, int hzBlockNum, int vtBlockNum,
+			int imgWidth, int imgHeight, Color markColor) {
+		int xPx = getPosition(x, imgWidth);
+		int yPx = getPosition(y, imgHeight);
+		int left = xPx - 1;
+		int top = yPx - 1;
+		int right = xPx + imgWidth;
+		int bottom = yPx + imgHeight;
+		int mark = markColor.getRGB();
+
+		boolean drawLeft = (x != 0);
+		boolean drawRight = (x != hzBlockNum - 1);
+		boolean drawTop = (y != 0);
+		boolean drawBottom = (y != vtBlockNum - 1);
+
+		// lines, the vertical ones include the corner points
+		int lineTop = drawTop ? top : top + 1;
+		int lineBottom = drawBottom ? bottom : bottom - 1;
+		if (drawLeft)	fillRect(pixels, width, height, left, lineTop, 1, lineBottom - lineTop + 1, mark);
+		if (drawRight)	fillRect(pixels, width, height, right, lineTop, 1, lineBottom - lineTop + 1, mark);
+		if (drawTop)	fillRect(pixels, width, height, left + 1, top, right - left - 1, 1, mark);
+		if (drawBottom)	fillRect(pixels, width, height, left + 1, bottom, right - left - 1, 1, mark);
+
+		// tint
+		int tint = (mark & 0x00FFFFFF) | (50 << 24);
+		for (int py = Math.max(0, yPx); py < Math.min(height, yPx + imgHeight); ++py) {
+			for (int px = Math.max(0, xPx); px < Math.min(width, xPx + imgWidth); ++px) {
+				pixels[py * width + px] = blend(tint, pixels[py * width + px]);
+			}
+		}
+	}
+
+	/**
+	 * Paints the border and tint of drawMark() with a Graphics, if the block is inside the clip (null for all)
+	 */
+	private static void paintMark(Graphics g, Rectangle clip, int x, int y, int hzBlockNum, int vtBlockNum,
+			int imgWidth, int imgHeight, Color markColor) {
+		int xPx = getPosition(x, imgWidth);
+		int yPx = getPosition(y, imgHeight);
+		int left = xPx - 1;
+		int top = yPx - 1;
+		int right = xPx + imgWidth;
+		int bottom = yPx + imgHeight;
+		if (clip != null && !clip.intersects(left, top, right - left + 1, bottom - top + 1)) return;
+
+		boolean drawLeft = (x != 0);
+		boolean drawRight = (x != hzBlockNum - 1);
+		boolean drawTop = (y != 0);
+		boolean drawBottom = (y != vtBlockNum - 1);
+
+		// lines, the vertical ones include the corner points
+		int lineTop = drawTop ? top : top + 1;
+		int lineBottom = drawBottom ? bottom : bottom - 1;
+		g.setColor(markColor);
+		if (drawLeft)	g.fillRect(left, lineTop, 1, lineBottom - lineTop + 1);
+		if (drawRight)	g.fillRect(right, lineTop, 1, lineBottom - lineTop + 1);
+		if (drawTop)	g.fillRect(left + 1, top, right - left - 1, 1);
+		if (drawBottom)	g.fillRect(left + 1, bottom, right - left - 1, 1);
+
+		// tint
+		g.setColor(new Color(markColor.getRed(), markColor.getGreen(), markColor.getBlue(), 50));
+		g.fillRect(xPx, yPx, imgWidth, imgHeight);
+	}
+
+	/**
+	 * Fills a rectangle, clipped to the image
+	 */
+	private static void fillRect(int[] pixels, int width, int height, int x, int y, int w, int h, int argb) {
+		int x0 = Math.max(0, x);
+		int x1 = Math.min(width, x + w);
+		int y0 = Math.max(0, y);
+		int y1 = Math.min(height, y + h);
+		if (x0 >= x1) return;
+		boolean opaque = (argb >>> 24) == 0xFF;
+		for (int py = y0; py < y1; ++py) {
+			int row = py * width;
+			if (opaque) {
+				Arrays.fill(pixels, row + x0, row + x1, argb);
+			} else {
+				for (int px = x0; px < x1; ++px) {
+					pixels[row + px] = blend(argb, pixels[row + px]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws a texture at the given position, clipped to the image
+	 */
+	private static void drawTexture(int[] pixels, int width, int height, int x, int y, int[] argb, int w, int h) {
+		int x0 = Math.max(0, x);
+		int x1 = Math.min(width, x + w);
+		int y0 = Math.max(0, y);
+		int y1 = Math.min(height, y + h);
+		for (int py = y0; py < y1; ++py) {
+			int dst = py * width;
+			int src = (py - y) * w - x;
+			for (int px = x0; px < x1; ++px) {
+				int c = argb[src + px];
+				int a = c >>> 24;
+				if (a == 0xFF) {
+					pixels[dst + px] = c;
+				} else if (a != 0) {
+					pixels[dst + px] = blend(c, pixels[dst + px]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the non-premultiplied ARGB values of an image
+	 */
+	private static int[] getARGB(BufferedImage image) {
+		int w = image.getWidth();
+		int h = image.getHeight();
+		if (image.getType() == BufferedImage.TYPE_INT_ARGB && image.getRaster().getDataBuffer() instanceof DataBufferInt
+				&& image.getRaster().getWidth() == w && image.getRaster().getHeight() == h) {
+			// no sub image, so the data is exactly the image
+			int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			if (data.length == w * h) return data;
+		}
+		return image.getRGB(0, 0, w, h, null, 0, w);
+	}
+
+	/**
+	 * Composes a non-premultiplied ARGB color over another one (SrcOver)
+	 */
+	static int blend(int src, int dst) {
+		int sa = src >>> 24;
+		if (sa == 0xFF) return src;
+		if (sa == 0) return dst;
+		int da = dst >>> 24;
+		int outA = sa * 255 + da * (255 - sa); // times 255
+		if (outA == 0) return 0;
+		int dw = da * (255 - sa); // weight of dst times 255
+		int r = (((src >> 16) & 0xFF) * sa * 255 + ((dst >> 16) & 0xFF) * dw + outA / 2) / outA;
+		int g = (((src >> 8) & 0xFF) * sa * 255 + ((dst >> 8) & 0xFF) * dw + outA / 2) / outA;
+		int b = ((src & 0xFF) * sa * 255 + (dst & 0xFF) * dw + outA / 2) / outA;
+		int a = (outA + 127) / 255;
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+}
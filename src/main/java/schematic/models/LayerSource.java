@@ -0,0 +1,29 @@
+package schematic.models;
+
+/**
+ * Something that provides a schematic one layer after the other, like a SliceStack or a SchematicGenerator. The SchematicWriter
+ * reads every layer more than once, so getSlice() has to give the same blocks every time it's called for a level
+ * @author klaue
+ */
+public interface LayerSource {
+	/**
+	 * @return the number of layers
+	 */
+	public int getHeight();
+
+	/**
+	 * @return the width of a layer
+	 */
+	public int getLength();
+
+	/**
+	 * @return the height of a layer
+	 */
+	public int getWidth();
+
+	/**
+	 * @param index the level, 0 is the bottom layer
+	 * @return the layer
+	 */
+	public Slice getSlice(int index);
+}
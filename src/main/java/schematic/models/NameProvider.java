@@ -1,12 +1,108 @@
 package schematic.models;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
- * This helper class returns the name of the given blocks
+ * This helper class returns the name of the given blocks.
+ * The names of all ids and data values are computed once and kept in a table, together with an index from the (lower case)
+ * names back to the ids
  * @author klaue
  *
  */
 public class NameProvider {
+	/** the ids in the table, higher ids are unknown */
+	private static final int ID_COUNT = 4096;
+
+	/**
+	 * A block or item id with a data value, as found by the name index
+	 * @author klaue
+	 */
+	public static final class Id implements Comparable<Id> {
+		private final short id;
+		private final byte data;
+
+		Id(short id, byte data) {
+			this.id = id;
+			this.data = data;
+		}
+
+		/**
+		 * @return the block or item id
+		 */
+		public short getId() {
+			return this.id;
+		}
+
+		/**
+		 * @return the data value, 0 to 15
+		 */
+		public byte getData() {
+			return this.data;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Id)) return false;
+			Id other = (Id) obj;
+			return this.id == other.id && this.data == other.data;
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.id << 4) | this.data;
+		}
+
+		@Override
+		public int compareTo(Id o) {
+			return hashCode() - o.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return this.id + ":" + this.data;
+		}
+	}
+
+	/**
+	 * The tables, built on first use
+	 */
+	private static final class Names {
+		static final String[] byIdAndData = new String[ID_COUNT << 4];	// by (id << 4) | data
+		static final String[] byId = new String[ID_COUNT];				// by id, the names for data -1
+		// lower case name -> all ids and data values with that name, sorted by name for the prefix search
+		static final TreeMap<String, Set<Id>> index = new TreeMap<String, Set<Id>>();
+
+		static {
+			HashMap<String, Set<Id>> ids = new HashMap<String, Set<Id>>();
+			for (int id = 0; id < ID_COUNT; ++id) {
+				byId[id] = lookUpName((short)id, (byte)-1).intern();
+				for (byte data = 0; data < 16; ++data) {
+					String name = lookUpName((short)id, data).intern();
+					byIdAndData[(id << 4) | data] = name;
+					if (name.startsWith("Unknown with id")) continue;
+
+					String key = name.toLowerCase(Locale.ENGLISH);
+					Set<Id> set = ids.get(key);
+					if (set == null) {
+						set = new LinkedHashSet<Id>();
+						ids.put(key, set);
+					}
+					set.add(new Id((short)id, data));
+				}
+			}
+			for (Map.Entry<String, Set<Id>> entry : ids.entrySet()) {
+				index.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+			}
+		}
+	}
+
 	/**
 	 * This method provides the name of the given block/item id and data
 	 * It only provides the name of the block itself, so giving the data value for, for example, rails makes no sense as the rails data
@@ -16,6 +112,49 @@ public class NameProvider {
 	 * @return the name of the block
 	 */
 	public static String getNameOfBlockOrItem(short id, byte data) {
+		if (id < 0 || id >= ID_COUNT) return lookUpName(id, data);
+		if ((data & ~0xF) == 0) return Names.byIdAndData[(id << 4) | data];
+		if (data == -1) return Names.byId[id];
+		return lookUpName(id, data);
+	}
+	
+	/**
+	 * This method provides the name of the given block id. same as getNameOfBlock(<id>, -1)
+	 * @param id the id of the block
+	 * @return the name of the block
+	 */
+	public static String getNameOfBlockOrItem(short id) {
+		return getNameOfBlockOrItem(id, (byte)-1);
+	}
+	
+	/**
+	 * Finds the blocks and items with the given name
+	 * @param name the name, case is ignored
+	 * @return the ids and data values (0 to 15) that have this name, empty if there are none
+	 */
+	public static Set<Id> findByName(String name) {
+		Set<Id> ids = Names.index.get(name.toLowerCase(Locale.ENGLISH));
+		if (ids == null) return Collections.emptySet();
+		return ids;
+	}
+	
+	/**
+	 * Finds the blocks and items whose name starts with the given text
+	 * @param prefix the start of the name, case is ignored
+	 * @return the ids and data values (0 to 15) by lower case name, sorted by name
+	 */
+	public static SortedMap<String, Set<Id>> findByPrefix(String prefix) {
+		String key = prefix.toLowerCase(Locale.ENGLISH);
+		return Collections.unmodifiableSortedMap(Names.index.subMap(key, key + Character.MAX_VALUE));
+	}
+	
+	/**
+	 * The names as defined by minecraft. Used to fill the tables and for data values that are not in them
+	 * @param id the id of the block
+	 * @param data the data of the block or -1
+	 * @return the name of the block
+	 */
+	private static String lookUpName(short id, byte data) {
 		
 		switch(id) {
 			case 0:		return "Air";
@@ -524,13 +663,4 @@ public class NameProvider {
 			default:	return "Unknown with id = " + id;
 		}
 	}
-	
-	/**
-	 * This method provides the name of the given block id. same as getNameOfBlock(<id>, -1)
-	 * @param id the id of the block
-	 * @return the name of the block
-	 */
-	public static String getNameOfBlockOrItem(short id) {
-		return getNameOfBlockOrItem(id, (byte)-1);
-	}
 }
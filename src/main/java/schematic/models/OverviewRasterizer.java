@@ -0,0 +1,164 @@
+package schematic.models;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import schematic.common.Metrics;
+import schematic.models.blocktypes.Block;
+import schematic.models.images.ImageProvider;
+
+/**
+ * Renders overviews with one pixel per block, in the average color of the block's texture (see
+ * ImageProvider.getAverageColorByBlockOrItemID()). The pixels are returned as ARGB arrays, row by row, with the width of
+ * the slices as row length. Columns are rendered in parallel.<br>
+ * Like LayerRasterizer, this class holds no state and needs no Swing
+ * @author klaue
+ */
+public class OverviewRasterizer {
+	/** columns below this are not split between threads */
+	private static final int MIN_COLUMNS_PER_THREAD = 32;
+
+	private OverviewRasterizer() {}
+
+	/**
+	 * The work for a range of columns
+	 */
+	private static abstract class Columns implements Runnable {
+		int from;
+		int to;
+
+		@Override
+		public void run() {
+			for (int x = this.from; x < this.to; ++x) {
+				render(x);
+			}
+		}
+
+		abstract void render(int x);
+	}
+
+	/**
+	 * @param block the block
+	 * @return the color of the block as non-premultiplied ARGB, 0 for air
+	 */
+	public static int getColor(Block block) {
+		if (block.getId() == 0) return 0;
+		return ImageProvider.getAverageColorByBlockOrItemID(block.getId(), block.getData());
+	}
+
+	/**
+	 * Renders one slice
+	 * @param slice the slice
+	 * @return one pixel per block, index y * slice.getWidth() + x
+	 */
+	public static int[] renderSlice(final Slice slice) {
+		Metrics.Timer timer = Metrics.timer("overview.render");
+		long start = timer.start();
+		final int width = slice.getWidth();
+		final int height = slice.getHeight();
+		final int[] pixels = new int[width * height];
+		forEachColumn(width, new Columns() {
+			@Override
+			void render(int x) {
+				for (int y = 0; y < height; ++y) {
+					pixels[y * width + x] = getColor(slice.getBlockAt(x, y));
+				}
+			}
+		});
+		timer.stop(start, pixels.length);
+		return pixels;
+	}
+
+	/**
+	 * Renders the whole stack seen from above. Every pixel shows the highest block that isn't air, and the blocks below it
+	 * as long as the blocks above are not opaque, so water and glass don't hide what's under them
+	 * @param source the stack
+	 * @return one pixel per column, index y * width + x with the width of the slices. Empty if there are no layers
+	 */
+	public static int[] renderTopDown(LayerSource source) {
+		Metrics.Timer timer = Metrics.timer("overview.render");
+		long start = timer.start();
+		final Slice[] slices = new Slice[source.getHeight()];
+		for (int i = 0; i < slices.length; ++i) {
+			slices[i] = source.getSlice(i);
+		}
+		if (slices.length == 0) return new int[0];
+		final int width = slices[0].getWidth();
+		final int height = slices[0].getHeight();
+		final int[] pixels = new int[width * height];
+		forEachColumn(width, new Columns() {
+			@Override
+			void render(int x) {
+				for (int y = 0; y < height; ++y) {
+					int color = 0;
+					for (int level = slices.length - 1; level >= 0 && (color >>> 24) != 0xFF; --level) {
+						int below = getColor(slices[level].getBlockAt(x, y));
+						if (below != 0) color = (color == 0) ? below : LayerRasterizer.blend(color, below);
+					}
+					pixels[y * width + x] = color;
+				}
+			}
+		});
+		timer.stop(start, (long)pixels.length * slices.length);
+		return pixels;
+	}
+
+	/**
+	 * @param pixels the pixels as returned by renderSlice() or renderTopDown()
+	 * @param width the width of the rows
+	 * @return a TYPE_INT_ARGB image of the pixels, or null if there are none
+	 */
+	public static BufferedImage toImage(int[] pixels, int width) {
+		if (pixels.length == 0 || width == 0) return null;
+		BufferedImage img = new BufferedImage(width, pixels.length / width, BufferedImage.TYPE_INT_ARGB);
+		int[] data = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+		System.arraycopy(pixels, 0, data, 0, pixels.length);
+		return img;
+	}
+
+	/**
+	 * Runs the work for all columns, split into ranges that are rendered in parallel
+	 */
+	private static void forEachColumn(int width, Columns work) {
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), width / MIN_COLUMNS_PER_THREAD);
+		if (threads <= 1) {
+			work.from = 0;
+			work.to = width;
+			work.run();
+			return;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> results = new ArrayList<Future<?>>();
+			for (int i = 0; i < threads; ++i) {
+				final Columns all = work;
+				Columns range = new Columns() {
+					@Override
+					void render(int x) {
+						all.render(x);
+					}
+				};
+				range.from = width * i / threads;
+				range.to = width * (i + 1) / threads;
+				results.add(pool.submit(range));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while rendering the overview", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Could not render the overview", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
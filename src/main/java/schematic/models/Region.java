@@ -0,0 +1,129 @@
+package schematic.models;
+
+/**
+ * A cuboid part of a schematic, used to read only some layers or a part of the layers of a file.
+ * The names are the same as in SliceStack: the layer is the level (0 is the bottom), x and length go along the width of
+ * a slice, y and width along the height of a slice
+ * @author klaue
+ */
+public class Region {
+	private final int layer;
+	private final int x;
+	private final int y;
+	private final int height;
+	private final int length;
+	private final int width;
+
+	/**
+	 * A region, parts outside of the schematic are ignored when reading
+	 * @param layer the lowest layer
+	 * @param x the first column of the slices
+	 * @param y the first row of the slices
+	 * @param height the number of layers
+	 * @param length the number of columns
+	 * @param width the number of rows
+	 * @throws IllegalArgumentException if a value is negative
+	 */
+	public Region(int layer, int x, int y, int height, int length, int width) {
+		if (layer < 0 || x < 0 || y < 0 || height < 0 || length < 0 || width < 0) {
+			throw new IllegalArgumentException("Negative values are not allowed in a region");
+		}
+		this.layer = layer;
+		this.x = x;
+		this.y = y;
+		this.height = height;
+		this.length = length;
+		this.width = width;
+	}
+
+	/**
+	 * @param first the lowest layer
+	 * @param count the number of layers
+	 * @return a region with the given layers, complete
+	 */
+	public static Region layers(int first, int count) {
+		return new Region(first, 0, 0, count, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param height the number of layers of the schematic
+	 * @param length the width of the slices
+	 * @param width the height of the slices
+	 * @return the part of this region that is inside a schematic of the given size
+	 */
+	public Region clip(int height, int length, int width) {
+		int layer = Math.min(this.layer, height);
+		int x = Math.min(this.x, length);
+		int y = Math.min(this.y, width);
+		return new Region(layer, x, y,
+				(int)Math.min((long)this.layer + this.height, height) - layer,
+				(int)Math.min((long)this.x + this.length, length) - x,
+				(int)Math.min((long)this.y + this.width, width) - y);
+	}
+
+	/**
+	 * @param layer a level
+	 * @param x a column
+	 * @param y a row
+	 * @return true if the block is inside the region
+	 */
+	public boolean contains(int layer, int x, int y) {
+		return layer >= this.layer && layer - this.layer < this.height
+				&& x >= this.x && x - this.x < this.length
+				&& y >= this.y && y - this.y < this.width;
+	}
+
+	/**
+	 * @return true if the region contains no blocks
+	 */
+	public boolean isEmpty() {
+		return this.height == 0 || this.length == 0 || this.width == 0;
+	}
+
+	/**
+	 * @return the lowest layer
+	 */
+	public int getLayer() {
+		return this.layer;
+	}
+
+	/**
+	 * @return the first column
+	 */
+	public int getX() {
+		return this.x;
+	}
+
+	/**
+	 * @return the first row
+	 */
+	public int getY() {
+		return this.y;
+	}
+
+	/**
+	 * @return the number of layers
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * @return the number of columns
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	@Override
+	public String toString() {
+		return "Region [layer " + this.layer + ", x " + this.x + ", y " + this.y + ", " + this.height + "x" + this.length + "x" + this.width + "]";
+	}
+}
@@ -0,0 +1,282 @@
+package schematic.models;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import schematic.models.blocktypes.Block;
+import schematic.models.blocktypes.BrewingStand;
+import schematic.models.blocktypes.Chest;
+import schematic.models.blocktypes.MobHead;
+import schematic.models.blocktypes.Note;
+import schematic.models.blocktypes.Sign;
+import schematic.models.exceptions.ParseException;
+import schematic.models.itemtypes.ColoredItem;
+import schematic.models.itemtypes.Item;
+
+/**
+ * Generates random but reproducible schematics for load tests. Every layer has its own random seed derived from the main seed, so
+ * a layer can be generated again at any time and the same size, ratios, block types and seed always give the same schematic. Since
+ * layers are only generated when asked for, schematics up to the limits of the format can be written without ever being in memory
+ * @author klaue
+ */
+public class SchematicGenerator implements LayerSource {
+	/** items found in generated chests */
+	private static final short[] CHEST_ITEMS = {1, 4, 5, 17, 263, 264, 265, 266, 280, 331, 298, 299, 300, 301};
+
+	private int height;
+	private int length;
+	private int width;
+	private long seed;
+	private double airRatio = 0.5;
+	private double tileEntityRatio = 0.01;
+
+	// the block mix: id, data value range and the summed up weights
+	private ArrayList<Short> ids = new ArrayList<Short>();
+	private ArrayList<Byte> minData = new ArrayList<Byte>();
+	private ArrayList<Byte> maxData = new ArrayList<Byte>();
+	private ArrayList<Integer> cumulativeWeights = new ArrayList<Integer>();
+
+	/**
+	 * A generator with the default block mix, 50% air and 1% tile entities
+	 * @param height number of layers
+	 * @param length width of a layer
+	 * @param width height of a layer
+	 * @param seed the random seed
+	 * @throws IllegalArgumentException if the size can't be saved in a schematic
+	 */
+	public SchematicGenerator(int height, int length, int width, long seed) {
+		SchematicWriter.checkSize(height, length, width);
+		this.height = height;
+		this.length = length;
+		this.width = width;
+		this.seed = seed;
+
+		addBlockType((short)1, (byte)0, (byte)0, 20);		// stone
+		addBlockType((short)2, (byte)0, (byte)0, 10);		// grass
+		addBlockType((short)3, (byte)0, (byte)0, 10);		// dirt
+		addBlockType((short)4, (byte)0, (byte)0, 10);		// cobblestone
+		addBlockType((short)5, (byte)0, (byte)3, 8);		// planks
+		addBlockType((short)17, (byte)0, (byte)15, 5);		// wood
+		addBlockType((short)20, (byte)0, (byte)0, 5);		// glass
+		addBlockType((short)35, (byte)0, (byte)15, 5);		// wool
+		addBlockType((short)45, (byte)0, (byte)0, 5);		// bricks
+		addBlockType((short)53, (byte)0, (byte)7, 4);		// stairs
+		addBlockType((short)44, (byte)0, (byte)15, 4);		// slabs
+		addBlockType((short)55, (byte)0, (byte)15, 4);		// redstone wire
+		addBlockType((short)75, (byte)1, (byte)5, 1);		// redstone torch off
+		addBlockType((short)76, (byte)1, (byte)5, 1);		// redstone torch on
+		addBlockType((short)93, (byte)0, (byte)15, 2);		// repeater
+		addBlockType((short)89, (byte)0, (byte)0, 2);		// glowstone
+	}
+
+	/**
+	 * Adds a block type to the mix
+	 * @param id the block id
+	 * @param minData the smallest data value to use
+	 * @param maxData the largest data value to use
+	 * @param weight how often the block appears compared to the other ones
+	 */
+	public void addBlockType(short id, byte minData, byte maxData, int weight) {
+		if (weight <= 0) throw new IllegalArgumentException("The weight has to be positive");
+		if (minData > maxData) throw new IllegalArgumentException("minData is bigger than maxData");
+		int total = this.cumulativeWeights.isEmpty() ? 0 : this.cumulativeWeights.get(this.cumulativeWeights.size() - 1);
+		this.ids.add(id);
+		this.minData.add(minData);
+		this.maxData.add(maxData);
+		this.cumulativeWeights.add(total + weight);
+	}
+
+	/**
+	 * Removes all block types from the mix, including the default ones
+	 */
+	public void clearBlockTypes() {
+		this.ids.clear();
+		this.minData.clear();
+		this.maxData.clear();
+		this.cumulativeWeights.clear();
+	}
+
+	/**
+	 * @param airRatio the part of the blocks that are air, 0 to 1
+	 */
+	public void setAirRatio(double airRatio) {
+		if (airRatio < 0 || airRatio > 1) throw new IllegalArgumentException("The air ratio has to be between 0 and 1");
+		this.airRatio = airRatio;
+	}
+
+	/**
+	 * @param tileEntityRatio the part of the non-air blocks that are chests, signs, note blocks, mob heads or brewing stands, 0 to 1
+	 */
+	public void setTileEntityRatio(double tileEntityRatio) {
+		if (tileEntityRatio < 0 || tileEntityRatio > 1) throw new IllegalArgumentException("The tile entity ratio has to be between 0 and 1");
+		this.tileEntityRatio = tileEntityRatio;
+	}
+
+	@Override
+	public int getHeight() {
+		return this.height;
+	}
+
+	@Override
+	public int getLength() {
+		return this.length;
+	}
+
+	@Override
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Generates the given layer. Calling this again for the same level gives the same blocks
+	 * @param index the level, 0 is the bottom layer
+	 * @return a new slice
+	 */
+	@Override
+	public Slice getSlice(int index) {
+		if (index < 0 || index >= this.height) throw new IndexOutOfBoundsException("No layer " + index);
+		if (this.ids.isEmpty() && this.airRatio < 1) throw new IllegalStateException("No block types to generate");
+
+		Random random = new Random(this.seed ^ (index * 0x9E3779B97F4A7C15L));
+		Slice slice = new Slice(this.length, this.width);
+		for (int y = 0; y < this.width; ++y) {
+			for (int x = 0; x < this.length; ++x) {
+				if (random.nextDouble() < this.airRatio) continue;
+
+				Block block;
+				if (this.tileEntityRatio > 0 && random.nextDouble() < this.tileEntityRatio) {
+					block = createTileEntityBlock(random);
+				} else {
+					block = createBlock(random);
+				}
+				slice.setBlock(block, x, y);
+			}
+		}
+		return slice;
+	}
+
+	private Block createBlock(Random random) {
+		int pick = random.nextInt(this.cumulativeWeights.get(this.cumulativeWeights.size() - 1));
+		int type = 0;
+		while (this.cumulativeWeights.get(type) <= pick) ++type;
+
+		byte min = this.minData.get(type);
+		byte data = (byte)(min + random.nextInt(this.maxData.get(type) - min + 1));
+		return BlockParser$.MODULE$.apply().toBlock(this.ids.get(type), data);
+	}
+
+	private static Block createTileEntityBlock(Random random) {
+		switch (random.nextInt(5)) {
+			case 0: {
+				Item[] items = new Item[27];
+				Arrays.fill(items, new Item());
+				int count = random.nextInt(items.length + 1);
+				for (int i = 0; i < count; ++i) {
+					items[random.nextInt(items.length)] = createItem(random);
+				}
+				return new Chest(random.nextBoolean() ? (short)54 : (short)146, items);
+			}
+			case 1: {
+				String[] text = new String[4];
+				for (int i = 0; i < text.length; ++i) {
+					text[i] = random.nextBoolean() ? "" : "Line " + random.nextInt(1000);
+				}
+				boolean isWallSign = random.nextBoolean();
+				byte data = (byte)(isWallSign ? 2 + random.nextInt(4) : random.nextInt(16));
+				return new Sign(text, isWallSign, data);
+			}
+			case 2:
+				return new Note((byte)random.nextInt(25));
+			case 3: {
+				byte data = (byte)(1 + random.nextInt(5));
+				String name = (random.nextInt(4) == 0) ? "Player" + random.nextInt(100) : "";
+				return new MobHead((byte)random.nextInt(5), (byte)random.nextInt(16), name, data);
+			}
+			case 4:
+			default: {
+				Item[] items = new Item[4];
+				Arrays.fill(items, new Item());
+				byte bottles = 0;
+				for (int i = 0; i < 3; ++i) {
+					if (random.nextBoolean()) {
+						items[i] = Item.getInstance((short)373, (short)random.nextInt(64), (byte)1);
+						bottles |= 1 << i;
+					}
+				}
+				return new BrewingStand(bottles, items, random.nextInt(400));
+			}
+		}
+	}
+
+	private static Item createItem(Random random) {
+		short id = CHEST_ITEMS[random.nextInt(CHEST_ITEMS.length)];
+		Item item = Item.getInstance(id, (short)0, (byte)(1 + random.nextInt(64)));
+		if (item.isColoredItem()) {
+			((ColoredItem)item).setColor(random.nextInt(0x1000000));
+		}
+		return item;
+	}
+
+	/**
+	 * Generates all layers at once
+	 * @return the schematic
+	 */
+	public SliceStack createSliceStack() {
+		SliceStack stack = new SliceStack();
+		for (int i = 0; i < this.height; ++i) {
+			stack.addSlice(getSlice(i));
+		}
+		return stack;
+	}
+
+	/**
+	 * Writes the schematic to a file, one layer at a time
+	 * @param f the file
+	 * @throws IOException
+	 * @throws ParseException
+	 */
+	public void write(File f) throws IOException, ParseException {
+		SchematicWriter.writeSchematicsFile(this, f);
+	}
+
+	/**
+	 * Writes a generated schematic from the command line
+	 * @param args [-seed n] [-air ratio] [-tileentities ratio] heightxlengthxwidth file
+	 */
+	public static void main(String[] args) {
+		try {
+			long seed = 42;
+			double air = -1;
+			double tileEntities = -1;
+			int i = 0;
+			for (; i < args.length - 2; i += 2) {
+				if (args[i].equals("-seed")) {
+					seed = Long.parseLong(args[i + 1]);
+				} else if (args[i].equals("-air")) {
+					air = Double.parseDouble(args[i + 1]);
+				} else if (args[i].equals("-tileentities")) {
+					tileEntities = Double.parseDouble(args[i + 1]);
+				} else {
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+			if (args.length - i != 2) throw new IllegalArgumentException("Size and file are needed");
+			String[] size = args[i].split("x");
+			if (size.length != 3) throw new IllegalArgumentException("The size has to be height x length x width, e.g. 16x32x32");
+
+			SchematicGenerator generator = new SchematicGenerator(Integer.parseInt(size[0]), Integer.parseInt(size[1]), Integer.parseInt(size[2]), seed);
+			if (air >= 0) generator.setAirRatio(air);
+			if (tileEntities >= 0) generator.setTileEntityRatio(tileEntities);
+			generator.write(new File(args[i + 1]));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: SchematicGenerator [-seed n] [-air ratio] [-tileentities ratio] <height>x<length>x<width> <file>");
+			System.exit(2);
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
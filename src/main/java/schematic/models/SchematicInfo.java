@@ -0,0 +1,123 @@
+package schematic.models;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What SchematicReader.probe() finds out about a schematic file without reading its blocks: the size, the materials,
+ * the number of tile entities and optionally how often every block id appears
+ * @author klaue
+ */
+public class SchematicInfo {
+	private final File file;
+	private final int height;
+	private final int length;
+	private final int width;
+	private final String materials;
+	private final int tileEntityCount;
+	private final long[] blockCounts;
+
+	SchematicInfo(File file, int height, int length, int width, String materials, int tileEntityCount, long[] blockCounts) {
+		this.file = file;
+		this.height = height;
+		this.length = length;
+		this.width = width;
+		this.materials = materials;
+		this.tileEntityCount = tileEntityCount;
+		this.blockCounts = blockCounts;
+	}
+
+	/**
+	 * @return the probed file
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * @return the number of layers
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * @return the width of the layers
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * @return the height of the layers
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * @return the number of blocks, including air
+	 */
+	public long getVolume() {
+		return (long)this.height * this.length * this.width;
+	}
+
+	/**
+	 * @return the Materials tag, "Alpha" for all schematics that can be read
+	 */
+	public String getMaterials() {
+		return this.materials;
+	}
+
+	/**
+	 * @return the number of tile entities (chest contents, sign texts, ...)
+	 */
+	public int getTileEntityCount() {
+		return this.tileEntityCount;
+	}
+
+	/**
+	 * @return true if the blocks were counted
+	 */
+	public boolean hasBlockCounts() {
+		return this.blockCounts != null;
+	}
+
+	/**
+	 * @param id a block id, 0 to 255
+	 * @return how often the block appears, 0 if the blocks were not counted
+	 */
+	public long getBlockCount(int id) {
+		return (this.blockCounts == null) ? 0 : this.blockCounts[id & 0xFF];
+	}
+
+	/**
+	 * @return the number of non-air blocks, 0 if the blocks were not counted
+	 */
+	public long getNonAirBlockCount() {
+		return (this.blockCounts == null) ? 0 : getVolume() - this.blockCounts[0];
+	}
+
+	/**
+	 * A material summary by block id. Different data values of a block (colors of wool, directions of stairs) are counted together
+	 * @return the number of blocks for every name, without air. Empty if the blocks were not counted
+	 */
+	public Map<String, Long> getMaterialSummary() {
+		Map<String, Long> summary = new TreeMap<String, Long>();
+		if (this.blockCounts == null) return summary;
+		for (short id = 1; id < this.blockCounts.length; ++id) {
+			if (this.blockCounts[id] == 0) continue;
+			String name = NameProvider.getNameOfBlockOrItem(id);
+			Long count = summary.get(name);
+			summary.put(name, (count == null) ? this.blockCounts[id] : count + this.blockCounts[id]);
+		}
+		return summary;
+	}
+
+	@Override
+	public String toString() {
+		return this.file.getName() + ": " + this.height + "x" + this.length + "x" + this.width + ", " + this.materials + ", "
+				+ this.tileEntityCount + " tile entities";
+	}
+}
@@ -1,15 +1,19 @@
 package schematic.models;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import schematic.common.Metrics;
 import schematic.models.blocktypes.Beacon;
 import schematic.models.blocktypes.Block;
 import schematic.models.blocktypes.BrewingStand;
@@ -23,15 +27,15 @@ import schematic.models.blocktypes.Note;
 import schematic.models.blocktypes.Sign;
 import schematic.models.exceptions.ClassicNotSupportedException;
 import schematic.models.exceptions.ParseException;
-import schematic.models.itemtypes.ColoredItem;
 import schematic.models.itemtypes.Item;
+import schematic.models.itemtypes.ItemList;
+import schematic.models.nbt.NBTScanner;
+import schematic.models.nbt.RawTag;
 
-import org.jnbt.ByteArrayTag;
 import org.jnbt.ByteTag;
 import org.jnbt.CompoundTag;
 import org.jnbt.IntTag;
-import org.jnbt.ListTag;
-import org.jnbt.NBTInputStream;
+import org.jnbt.NBTConstants;
 import org.jnbt.ShortTag;
 import org.jnbt.StringTag;
 import org.jnbt.Tag;
@@ -62,267 +66,161 @@ public class SchematicReader {
 	 * @throws ParseException 
 	 */
 	public static SliceStack readSchematicsFile(File f) throws IOException, ClassicNotSupportedException, ParseException {
-		FileInputStream fis = new FileInputStream(f);
+		return readSchematicsFile(f, null);
+	}
+	
+	/**
+	 * Reads a part of the given schematics file. The file is read as a stream: only the requested part of the block and data arrays
+	 * is kept, the rest is skipped without looking at the single blocks, and only the tile entities inside the region are parsed
+	 * @param f the File
+	 * @param region the part to read, parts outside of the schematic are ignored. Null for the whole schematic
+	 * @return a SliceStack-object of the requested part of the Schematics
+	 * @throws IOException
+	 * @throws ClassicNotSupportedException
+	 * @throws ParseException 
+	 */
+	public static SliceStack readSchematicsFile(File f, Region region) throws IOException, ClassicNotSupportedException, ParseException {
+		Metrics.Timer totalTimer = Metrics.timer("reader.total");
+		long totalStart = totalTimer.start();
+		
+		// Blocks in MC are saved as a byte array which is ordered first by the height (lowest first),
+		// then by the length (nord-south) and finally by the width (west-east)
+		// substituting letters for blocks, that means the array [a, b, c, d, e, f, g, h] would result in two slices like the following ones (assuming
+		// a height, width and length of 2):
+		// (top)
+		// ef
+		// gh
+		//
+		// ab
+		// cd
+		// (bottom)
 		
-		// special case if f is not a gzip file (maybe unzipped schematic)
+		// phase 1: scan the file, keeping only the region
+		Metrics.Timer nbtTimer = Metrics.timer("reader.nbt");
+		long nbtStart = nbtTimer.start();
+		int length = -1, width = -1, height = -1;
+		String materials = null;
+		byte[] blocks = null;
+		byte[] data = null;
+		boolean isClipped = false; // false if the arrays were read before the size was known
+		List<Tag> entities = new ArrayList<Tag>();
+		NBTScanner scanner = new NBTScanner(new FileInputStream(f));
 		try {
-			GZIPInputStream gis = new GZIPInputStream(fis);
-			gis.close();
-		} catch (IOException e) {
-			if (!e.getMessage().toLowerCase().contains("not in gzip format")) {
-				// rethrow
-				throw e;
+			if (scanner.nextTag() != NBTConstants.TYPE_COMPOUND) {
+				throw new ParseException("The file does not start with a compound tag");
 			}
-			// not gzip - zip it to temp
-			String name = f.getName();
-			name = name.substring(0, name.lastIndexOf('.'));
-			File outFile = File.createTempFile(name, ".schematic");
-			GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(outFile));
-	        FileInputStream in = new FileInputStream(f);
-	        byte[] buf = new byte[1024];
-	        int len;
-	        while ((len = in.read(buf)) > 0) {
-	            out.write(buf, 0, len);
-	        }
-	        in.close();
-	        // Complete the GZIP file
-	        out.finish();
-	        out.close();
-	        f = outFile;
-	        f.deleteOnExit();
-	        System.err.println("Input schematic was not in gzip format! Tried to fix it to " + f.getAbsolutePath());
+			while (scanner.nextTag() != NBTConstants.TYPE_END) {
+				String name = scanner.getName();
+				if (name.equals("Height")) {
+					height = ((ShortTag) scanner.readTag()).getValue();
+				} else if (name.equals("Length")) {
+					// length in MC means the depth (height of stack) but in MCSchematicTool, it means the width of the slice
+					width = ((ShortTag) scanner.readTag()).getValue(); // height of slice!
+				} else if (name.equals("Width")) {
+					length = ((ShortTag) scanner.readTag()).getValue(); // width of slice!
+				} else if (name.equals("Materials")) {
+					materials = ((StringTag) scanner.readTag()).getValue();
+				} else if ((name.equals("Blocks") || name.equals("Data")) && scanner.getType() == NBTConstants.TYPE_BYTE_ARRAY) {
+					int size = scanner.readLength();
+					byte[] bytes;
+					if (height < 0 || length < 0 || width < 0) {
+						// the size comes later in this file, keep everything
+						bytes = new byte[size];
+						scanner.readBytes(bytes, 0, size);
+					} else {
+						if (region == null) region = new Region(0, 0, 0, height, length, width);
+						region = region.clip(height, length, width);
+						bytes = readRegion(scanner, size, height, length, width, region);
+						isClipped = true;
+					}
+					if (name.equals("Blocks")) {
+						blocks = bytes;
+					} else {
+						data = bytes;
+					}
+				} else if (name.equals("TileEntities") && scanner.getType() == NBTConstants.TYPE_LIST) {
+					int count = scanner.readLength();
+					if (count > 0 && scanner.getListType() != NBTConstants.TYPE_COMPOUND) {
+						throw new ParseException("TileEntities is not a list of compounds");
+					}
+					for (int i = 0; i < count; ++i) {
+						// the items of containers are only decoded when they're used, see ItemList
+						Map<String, Tag> cmpMap = scanner.readCompoundElement("Items");
+						int y = ((IntTag) cmpMap.get("z")).getValue(); // mc's y and z are not the same
+						int z = ((IntTag) cmpMap.get("y")).getValue();
+						int x = ((IntTag) cmpMap.get("x")).getValue();
+						if (region == null || region.contains(z, x, y)) {
+							entities.add(new CompoundTag("", cmpMap));
+						}
+					}
+				} else {
+					scanner.skipTag(); // entities, offsets and whatever else
+				}
+			}
+		} catch (ClassCastException e) {
+			throw new ParseException(e);
+		} finally {
+			scanner.close();
 		}
+		nbtTimer.stop(nbtStart, f.length());
 		
-		NBTInputStream nis = new NBTInputStream(new FileInputStream(f));
-		CompoundTag master = (CompoundTag) nis.readTag();
-		//System.out.println(master);
-		nis.close();
-		Map<String, Tag> masterMap = master.getValue();
-
-		if (masterMap.get("Materials") == null || !((StringTag)masterMap.get("Materials")).getValue().equalsIgnoreCase("alpha")) {
+		if (materials == null || !materials.equalsIgnoreCase("alpha")) {
 			throw new ClassicNotSupportedException();
 		}
-			
+		
 		try {
-			// Blocks in MC are saved as a byte array which is ordered first by the height (lowest first),
-			// then by the length (nord-south) and finally by the width (west-east)
-			// substituting letters for blocks, that means the array [a, b, c, d, e, f, g, h] would result in two slices like the following ones (assuming
-			// a height, width and length of 2):
-			// (top)
-			// ef
-			// gh
-			//
-			// ab
-			// cd
-			// (bottom)
-			
-			// length in MC means the depth (height of stack) but in MCSchematicTool, it means the width of the slice
-			int length = ((ShortTag) masterMap.get("Width")).getValue(); // width of slice!
-			int width = ((ShortTag) masterMap.get("Length")).getValue(); // height of slice!
-			int height = ((ShortTag) masterMap.get("Height")).getValue();
+			if (height < 0 || length < 0 || width < 0 || blocks == null || data == null) {
+				throw new ParseException("Size, Blocks or Data is missing");
+			}
+			if (region == null) region = new Region(0, 0, 0, height, length, width);
+			region = region.clip(height, length, width);
+			if (!isClipped) {
+				blocks = getRegion(blocks, height, length, width, region);
+				data = getRegion(data, height, length, width, region);
+			}
+			int regionLength = region.getLength();
+			int regionWidth = region.getWidth();
 			hasErrorHappened = false;
 			
-			SliceStack schematic = new SliceStack(height, length, width);
-			byte[] blocks = ((ByteArrayTag) masterMap.get("Blocks")).getValue();
-			byte[] data = ((ByteArrayTag) masterMap.get("Data")).getValue();
+			SliceStack schematic = new SliceStack(region.getHeight(), regionLength, regionWidth);
 			
-			// get tile entities
-			List<Tag> entities = ((ListTag) masterMap.get("TileEntities")).getValue();
+			// phase 2: index the tile entities
+			Metrics.Timer tileEntityTimer = Metrics.timer("reader.tileEntities");
+			long tileEntityStart = tileEntityTimer.start();
 			Map<Integer, Map<String, Tag> > idxEntitiesMap = new TreeMap<Integer, Map<String, Tag> >();
 			for (Tag tag : entities) {
 				Map<String, Tag> cmpMap = ((CompoundTag)tag).getValue();
-				int y = ((IntTag) cmpMap.get("z")).getValue(); // mc's y and z are not the same
-				int z = ((IntTag) cmpMap.get("y")).getValue();
-				int x = ((IntTag) cmpMap.get("x")).getValue();
+				int y = ((IntTag) cmpMap.get("z")).getValue() - region.getY(); // mc's y and z are not the same
+				int z = ((IntTag) cmpMap.get("y")).getValue() - region.getLayer();
+				int x = ((IntTag) cmpMap.get("x")).getValue() - region.getX();
 				//Index = (z * width * length) + (y * length) + x
 				//Index = x+(y+z*width) * length
-				int blockIndex = x + (y + z * width) * length;
+				int blockIndex = x + (y + z * regionWidth) * regionLength;
 				idxEntitiesMap.put(blockIndex, cmpMap);
 			}
+			tileEntityTimer.stop(tileEntityStart, entities.size());
+			
+			// phase 3: decode the blocks
+			Metrics.Timer blockTimer = Metrics.timer("reader.blocks");
+			long blockStart = blockTimer.start();
 			
 			int blocknumber = 0;
-			for (int slz = 0; slz < height; ++slz) {
+			for (int slz = 0; slz < region.getHeight(); ++slz) {
 				Slice s = schematic.getSlice(slz);
-				for (int y = 0; y < width; ++y) { // height of slice
-					for (int x = 0; x < length; ++x) { // width of slice
+				for (int y = 0; y < regionWidth; ++y) { // height of slice
+					for (int x = 0; x < regionLength; ++x) { // width of slice
 						Block block = null;
 						
 						// &0xFF is because the array uses unsigned bytes while java uses signed ones. it converts values like -127 back to values like 129
 						short blockid = (short)(blocks[blocknumber] & 0xFF);
 						try {
-							// check for special type of block
-							// special blocks are those that have tile entities
-							if (blockid == 54 || blockid == 146 || blockid == 23 || blockid == 154 || blockid == 158) {
-								//chest, trapped chest, dispenser, hopper, dropper
-								Map<String, Tag> tileEntity = idxEntitiesMap.get(blocknumber);
-								if (tileEntity == null) {
-									// assume empty chest/dispenser/hopper/dropper
-									switch(blockid) {
-										case 146: // trapped chest
-										case 54:	block = new Chest(blockid);							break;
-										case 23:	block = new Dispenser(null, data[blocknumber]);		break;
-										case 154:	block = new Hopper(null, data[blocknumber]);		break;
-										case 158:
-										default:	block = new Dropper(null, data[blocknumber]);		break;
-									}
-								} else {
-									String tagId = ((StringTag)tileEntity.get("id")).getValue();
-									if (((blockid == 54 || blockid == 146) && !tagId.equals("Chest"))
-											|| (blockid == 23 && !tagId.equals("Trap"))
-											|| (blockid == 154 && !tagId.equals("Hopper"))
-											|| (blockid == 158 && !tagId.equals("Dropper"))) {
-										throw new ParseException("Contains a container, id " + blockid + " that has a wrong tile entity of type " + tagId);
-									}
-									
-									// get chest items
-									Item[] items = null;
-									if (blockid == 54 || blockid == 146) { // chest
-										items = new Item[27];
-									} else if (blockid == 23 || blockid == 158) { // dispenser/dropper
-										items = new Item[9];
-									} else { // hopper
-										items = new Item[5];
-									}
-									Arrays.fill(items, new Item());
-									
-									List<Tag> itemList = ((ListTag) tileEntity.get("Items")).getValue();
-									for (Tag tag : itemList) {
-										addItemToListFromCompound(items, (CompoundTag) tag);
-									}
-									
-									switch(blockid) {
-										case 146: // trapped chest
-										case 54:	block = new Chest(blockid, items);					break;
-										case 23:	block = new Dispenser(items, data[blocknumber]);	break;
-										case 154:	block = new Hopper(items, data[blocknumber]);		break;
-										case 158:
-										default:	block = new Dropper(items, data[blocknumber]);		break;
-									}
-								}
-							} else if (blockid == 25) {
-								// note
-								Map<String, Tag> tileEntity = idxEntitiesMap.get(blocknumber);
-								if (tileEntity == null) {
-									// assume default noteblock
-									block = new Note((byte)0);
-								} else {
-									if (!((StringTag)tileEntity.get("id")).getValue().equals("Music")) {
-										throw new ParseException("Contains a note block that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
-									}
-									byte pitch = ((ByteTag)tileEntity.get("note")).getValue();
-									block = new Note(pitch);
-								}
-							} else if (blockid == 63 || blockid == 68) {
-								// sign
-								boolean isWallSign = (blockid == 68);
-								Map<String, Tag> tileEntity = idxEntitiesMap.get(blocknumber);
-								if (tileEntity == null) {
-									// assume empty sign
-									block = new Sign(null, isWallSign, data[blocknumber]);
-								} else {
-									if (!((StringTag)tileEntity.get("id")).getValue().equals("Sign")) {
-										throw new ParseException("Contains a sign that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
-									}
-									String text[] = new String[4];
-									text[0] = ((StringTag)tileEntity.get("Text1")).getValue();
-									text[1] = ((StringTag)tileEntity.get("Text2")).getValue();
-									text[2] = ((StringTag)tileEntity.get("Text3")).getValue();
-									text[3] = ((StringTag)tileEntity.get("Text4")).getValue();
-									block = new Sign(text, isWallSign, data[blocknumber]);
-								}
-							} else if (blockid == 117) {
-								// brewing stand
-								Map<String, Tag> tileEntity = idxEntitiesMap.get(blocknumber);
-								if (tileEntity == null) {
-									// assume empty brewing stand
-									block = new BrewingStand();
-								} else {
-									if (!((StringTag)tileEntity.get("id")).getValue().equals("Cauldron")) {
-										throw new ParseException("Contains a brewing stand that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
-									}
-									
-									// get chest items
-									Item[] items = new Item[4];
-									Arrays.fill(items, new Item());
-									
-									List<Tag> itemList = ((ListTag) tileEntity.get("Items")).getValue();
-									for (Tag tag : itemList) {
-										addItemToListFromCompound(items, (CompoundTag) tag);
-									}
-									
-									// brewing time is defined as being IntTag, but some schematic files fly around in which it is ShortTag
-									Tag brewingTimeTag = tileEntity.get("BrewTime");
-									int brewingTime = 0;
-									if (brewingTimeTag instanceof ShortTag) {
-										brewingTime = ((ShortTag)brewingTimeTag).getValue();
-									} else {
-										brewingTime = ((IntTag)brewingTimeTag).getValue();
-									}
-									
-									block = new BrewingStand(data[blocknumber], items, brewingTime);
-								}
-							} else if (blockid == 137) {
-								// command block
-								Map<String, Tag> tileEntity = idxEntitiesMap.get(blocknumber);
-								if (tileEntity == null) {
-									// assume empty command block
-									block = new CommandBlock();
-								} else {
-									if (!((StringTag)tileEntity.get("id")).getValue().equals("Control")) {
-										throw new ParseException("Contains a command block that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
-									}
-									String command = ((StringTag) tileEntity.get("Command")).getValue();
-									Integer strength = ((IntTag) tileEntity.get("SuccessCount")).getValue();
-									int signalStrength = (strength == null) ? 0 : strength;
-									block = new CommandBlock(command, signalStrength);
-								}
-							} else if (blockid == 138) {
-								// beacon
-								Map<String, Tag> tileEntity = idxEntitiesMap.get(blocknumber);
-								if (tileEntity == null) {
-									// assume empty beacon
-									block = new Beacon();
-								} else {
-									if (!((StringTag)tileEntity.get("id")).getValue().equals("Beacon")) {
-										throw new ParseException("Contains a beacon that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
-									}
-									Integer levels = ((IntTag) tileEntity.get("Levels")).getValue();
-									Integer primary = ((IntTag) tileEntity.get("Primary")).getValue();
-									Integer secondary = ((IntTag) tileEntity.get("Secondary")).getValue();
-									if (levels == null) levels = 0;
-									if (primary == null) primary = 0;
-									if (secondary == null) secondary = 0;
-									block = new Beacon(primary, secondary, levels);
-								}
-							} else if (blockid == 144) {
-								// mob head
-								Map<String, Tag> tileEntity = idxEntitiesMap.get(blocknumber);
-								if (tileEntity == null) {
-									// assume default mob head
-									block = Block.getInstance(blockid, data[blocknumber]);
-								} else {
-									if (!((StringTag)tileEntity.get("id")).getValue().equals("Skull")) {
-										throw new ParseException("Contains a mob head that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
-									}
-									Byte skullType = ((ByteTag) tileEntity.get("SkullType")).getValue();
-									String name = ((StringTag) tileEntity.get("ExtraType")).getValue();
-									Byte rotation = ((ByteTag) tileEntity.get("Rot")).getValue();
-									
-									// should never be null, but just in case, set default values
-									if (skullType == null) skullType = 3; // human
-									if (rotation == null) rotation = 8; // north
-									
-									block = new MobHead(skullType, rotation, name, data[blocknumber]);
-								}
-							} else {
-								// boring everyday block or block with data value
-								block = BlockParser$.MODULE$.apply().toBlock(blockid, data[blocknumber]);
-							}
+							block = parseBlock(blockid, data[blocknumber], idxEntitiesMap.get(blocknumber));
 						} catch (Exception e) {
 							// current block is faulty, replace with air
-							System.err.print("Faulty block at slice " + slz + ", column " + x + ", row " + y);
+							System.err.print("Faulty block at slice " + (slz + region.getLayer()) + ", column " + (x + region.getX()) + ", row " + (y + region.getY()));
 							e.printStackTrace();
 							hasErrorHappened = true;
+							Metrics.counter("reader.faultyBlocks").increment();
 							block = new Block(); // air
 						}
 						
@@ -331,6 +229,8 @@ public class SchematicReader {
 					}
 				}
 			}
+			blockTimer.stop(blockStart, blocks.length);
+			totalTimer.stop(totalStart, blocks.length);
 			
 			return schematic;
 		} catch (Exception e) {
@@ -340,46 +240,350 @@ public class SchematicReader {
 	}
 	
 	/**
-	 * Adds the given item to the given item array
-	 * @param items the array of items
-	 * @param itemTag the item-Compoundtag
+	 * Reads only the size, the materials and the number of tile entities of a schematic, without creating any blocks.
+	 * The file is read until all of these are found, the block and data arrays are skipped
+	 * @param f the file
+	 * @param countBlocks true to also count how often every block id appears, which needs the whole block array
+	 * @return the information about the file
+	 * @throws IOException
+	 * @throws ParseException if the file is not a schematic
+	 */
+	public static SchematicInfo probe(File f, boolean countBlocks) throws IOException, ParseException {
+		Metrics.Timer probeTimer = Metrics.timer("reader.probe");
+		long probeStart = probeTimer.start();
+		int length = -1, width = -1, height = -1, tileEntityCount = -1;
+		String materials = null;
+		long[] blockCounts = null;
+		NBTScanner scanner = new NBTScanner(new FileInputStream(f));
+		try {
+			if (scanner.nextTag() != NBTConstants.TYPE_COMPOUND) {
+				throw new ParseException("The file does not start with a compound tag");
+			}
+			while (height < 0 || length < 0 || width < 0 || materials == null || tileEntityCount < 0 || (countBlocks && blockCounts == null)) {
+				if (scanner.nextTag() == NBTConstants.TYPE_END) break;
+				String name = scanner.getName();
+				if (name.equals("Height")) {
+					height = ((ShortTag) scanner.readTag()).getValue();
+				} else if (name.equals("Length")) {
+					width = ((ShortTag) scanner.readTag()).getValue(); // height of slice, see readSchematicsFile
+				} else if (name.equals("Width")) {
+					length = ((ShortTag) scanner.readTag()).getValue(); // width of slice
+				} else if (name.equals("Materials")) {
+					materials = ((StringTag) scanner.readTag()).getValue();
+				} else if (name.equals("TileEntities") && scanner.getType() == NBTConstants.TYPE_LIST) {
+					tileEntityCount = scanner.readLength();
+					for (int i = 0; i < tileEntityCount; ++i) {
+						scanner.skipListElement();
+					}
+				} else if (countBlocks && name.equals("Blocks") && scanner.getType() == NBTConstants.TYPE_BYTE_ARRAY) {
+					blockCounts = new long[256];
+					int size = scanner.readLength();
+					byte[] buffer = new byte[Math.min(size, 65536)];
+					while (size > 0) {
+						int n = Math.min(size, buffer.length);
+						scanner.readBytes(buffer, 0, n);
+						for (int i = 0; i < n; ++i) {
+							++blockCounts[buffer[i] & 0xFF];
+						}
+						size -= n;
+					}
+				} else {
+					scanner.skipTag();
+				}
+			}
+		} catch (ClassCastException e) {
+			throw new ParseException(e);
+		} finally {
+			scanner.close();
+		}
+		if (height < 0 || length < 0 || width < 0) {
+			throw new ParseException("The size is missing");
+		}
+		if (countBlocks && blockCounts == null) {
+			throw new ParseException("Blocks is missing");
+		}
+		probeTimer.stop(probeStart, f.length());
+		return new SchematicInfo(f, height, length, width, materials, Math.max(tileEntityCount, 0), blockCounts);
+	}
+	
+	/**
+	 * Probes all schematic files of a directory at once
+	 * @param dir the directory, subdirectories are not searched
+	 * @param countBlocks true to also count the block ids, see probe()
+	 * @param threads the number of files probed at once
+	 * @return the information about every file that could be read, sorted by file name. Files that could not be read are reported
+	 * on System.err
+	 * @throws IOException if the directory can't be listed
+	 * @throws InterruptedException
 	 */
-	private static void addItemToListFromCompound(Item[] items, CompoundTag itemTag) {
-		Map<String, Tag> itemMap = itemTag.getValue();
-		short itemId = ((ShortTag)itemMap.get("id")).getValue();
-		byte itemCount = ((ByteTag)itemMap.get("Count")).getValue();
-		byte itemSlot = ((ByteTag)itemMap.get("Slot")).getValue();
-		short itemDamage = ((ShortTag)itemMap.get("Damage")).getValue();
-		items[itemSlot] = Item.getInstance(itemId, itemDamage, itemCount);
+	public static List<SchematicInfo> probeDirectory(File dir, final boolean countBlocks, int threads) throws IOException, InterruptedException {
+		File[] content = dir.listFiles();
+		if (content == null) {
+			throw new IOException("Could not list " + dir.getPath());
+		}
+		Arrays.sort(content);
+		List<SchematicInfo> infos = new ArrayList<SchematicInfo>();
+		List<File> files = new ArrayList<File>();
+		for (File f : content) {
+			if (f.isFile() && f.getName().toLowerCase().endsWith(".schematic")) {
+				files.add(f);
+			}
+		}
+		if (files.isEmpty()) return infos;
 		
-		// add special tag info - null check everywhere because older MC versions (and therefore older schematics) may not have had a tag-tag
-		Tag tag = itemMap.get("tag");
-		if (tag == null || tag instanceof CompoundTag == false) return;
-		Map<String, Tag> tagMap = ((CompoundTag)tag).getValue();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())));
+		List<Future<SchematicInfo>> results = new ArrayList<Future<SchematicInfo>>();
+		for (final File f : files) {
+			results.add(pool.submit(new Callable<SchematicInfo>() {
+				@Override
+				public SchematicInfo call() throws Exception {
+					return probe(f, countBlocks);
+				}
+			}));
+		}
+		pool.shutdown();
 		
-		// display properties - every item "should" have at least the display property "name"
-		Tag display = tagMap.get("display");
-		if (display != null && display instanceof CompoundTag) {
-			Map<String, Tag> displayMap = ((CompoundTag)display).getValue();
-			if (displayMap != null) {
-				// name - special name to be used instead of default one - can be empty
-				Tag name = displayMap.get("Name");
-				if (name != null && name instanceof StringTag) {
-					String nameStr = ((StringTag)name).getValue();
-					items[itemSlot].setName(nameStr);
+		try {
+			for (int i = 0; i < results.size(); ++i) {
+				try {
+					infos.add(results.get(i).get());
+				} catch (ExecutionException e) {
+					System.err.println("Could not probe " + files.get(i).getPath() + ": " + e.getCause());
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return infos;
+	}
+	
+	/**
+	 * Reads the part of a byte array tag that is inside the region, the rest is skipped
+	 * @param scanner the scanner, positioned after the length of the array
+	 * @param size the length of the array
+	 * @param height the number of layers of the schematic
+	 * @param length the width of the slices
+	 * @param width the height of the slices
+	 * @param region the region, inside the schematic
+	 * @return the bytes of the region, in the same order as in the file
+	 * @throws IOException
+	 * @throws ParseException if the array doesn't fit the size of the schematic
+	 */
+	private static byte[] readRegion(NBTScanner scanner, int size, int height, int length, int width, Region region) throws IOException, ParseException {
+		long layerSize = (long)length * width;
+		if (size != layerSize * height) {
+			throw new ParseException("Array of " + size + " bytes for a schematic of " + height + "x" + length + "x" + width);
+		}
+		byte[] bytes = new byte[region.getHeight() * region.getLength() * region.getWidth()];
+		if (bytes.length == 0) {
+			scanner.skipBytes(size);
+			return bytes;
+		}
+		
+		long skipped = layerSize * region.getLayer();
+		int pos = 0;
+		for (int z = 0; z < region.getHeight(); ++z) {
+			skipped += (long)length * region.getY();
+			for (int y = 0; y < region.getWidth(); ++y) {
+				scanner.skipBytes(skipped + region.getX());
+				scanner.readBytes(bytes, pos, region.getLength());
+				pos += region.getLength();
+				skipped = length - region.getX() - region.getLength();
+			}
+			skipped += (long)length * (width - region.getY() - region.getWidth());
+		}
+		scanner.skipBytes(skipped + layerSize * (height - region.getLayer() - region.getHeight()));
+		return bytes;
+	}
+	
+	/**
+	 * Copies the part of a complete byte array that is inside the region
+	 * @param all the complete array
+	 * @param height the number of layers of the schematic
+	 * @param length the width of the slices
+	 * @param width the height of the slices
+	 * @param region the region, inside the schematic
+	 * @return the bytes of the region, in the same order as in the array
+	 * @throws ParseException if the array doesn't fit the size of the schematic
+	 */
+	private static byte[] getRegion(byte[] all, int height, int length, int width, Region region) throws ParseException {
+		if (all.length != (long)length * width * height) {
+			throw new ParseException("Array of " + all.length + " bytes for a schematic of " + height + "x" + length + "x" + width);
+		}
+		if (region.getHeight() == height && region.getLength() == length && region.getWidth() == width) return all;
+		
+		byte[] bytes = new byte[region.getHeight() * region.getLength() * region.getWidth()];
+		int pos = 0;
+		for (int z = region.getLayer(); z < region.getLayer() + region.getHeight(); ++z) {
+			for (int y = region.getY(); y < region.getY() + region.getWidth(); ++y) {
+				System.arraycopy(all, region.getX() + (y + z * width) * length, bytes, pos, region.getLength());
+				pos += region.getLength();
+			}
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Creates the block for the given id and data value
+	 * @param blockid the block id
+	 * @param data the data value
+	 * @param tileEntity the tile entity at the position of the block or null
+	 * @return the block
+	 * @throws ParseException if the tile entity doesn't belong to the block
+	 */
+	private static Block parseBlock(short blockid, byte data, Map<String, Tag> tileEntity) throws ParseException {
+		Block block = null;
+		// check for special type of block
+		// special blocks are those that have tile entities
+		if (blockid == 54 || blockid == 146 || blockid == 23 || blockid == 154 || blockid == 158) {
+			//chest, trapped chest, dispenser, hopper, dropper
+			if (tileEntity == null) {
+				// assume empty chest/dispenser/hopper/dropper
+				switch(blockid) {
+					case 146: // trapped chest
+					case 54:	block = new Chest(blockid);							break;
+					case 23:	block = new Dispenser(null, data);		break;
+					case 154:	block = new Hopper(null, data);		break;
+					case 158:
+					default:	block = new Dropper(null, data);		break;
+				}
+			} else {
+				String tagId = ((StringTag)tileEntity.get("id")).getValue();
+				if (((blockid == 54 || blockid == 146) && !tagId.equals("Chest"))
+						|| (blockid == 23 && !tagId.equals("Trap"))
+						|| (blockid == 154 && !tagId.equals("Hopper"))
+						|| (blockid == 158 && !tagId.equals("Dropper"))) {
+					throw new ParseException("Contains a container, id " + blockid + " that has a wrong tile entity of type " + tagId);
 				}
 				
-				// color - only supported by leather armor
-				if (items[itemSlot].isColoredItem()) {
-					Tag color = displayMap.get("color");
-					if (color != null && color instanceof IntTag) {
-						Integer iColor = ((IntTag)color).getValue();
-						if (iColor != null) {
-							((ColoredItem)items[itemSlot]).setColor(iColor);
-						}
-					}
-				} // items[itemSlot] instanceof LeatherArmor
-			} // displayMap != null
-		} // display != null
-	} // fnc
+				switch(blockid) {
+					case 146: // trapped chest
+					case 54:	block = new Chest(blockid);							break;
+					case 23:	block = new Dispenser(null, data);		break;
+					case 154:	block = new Hopper(null, data);		break;
+					case 158:
+					default:	block = new Dropper(null, data);		break;
+				}
+				setItems(block, tileEntity);
+			}
+		} else if (blockid == 25) {
+			// note
+			if (tileEntity == null) {
+				// assume default noteblock
+				block = new Note((byte)0);
+			} else {
+				if (!((StringTag)tileEntity.get("id")).getValue().equals("Music")) {
+					throw new ParseException("Contains a note block that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
+				}
+				byte pitch = ((ByteTag)tileEntity.get("note")).getValue();
+				block = new Note(pitch);
+			}
+		} else if (blockid == 63 || blockid == 68) {
+			// sign
+			boolean isWallSign = (blockid == 68);
+			if (tileEntity == null) {
+				// assume empty sign
+				block = new Sign(null, isWallSign, data);
+			} else {
+				if (!((StringTag)tileEntity.get("id")).getValue().equals("Sign")) {
+					throw new ParseException("Contains a sign that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
+				}
+				String text[] = new String[4];
+				text[0] = ((StringTag)tileEntity.get("Text1")).getValue();
+				text[1] = ((StringTag)tileEntity.get("Text2")).getValue();
+				text[2] = ((StringTag)tileEntity.get("Text3")).getValue();
+				text[3] = ((StringTag)tileEntity.get("Text4")).getValue();
+				block = new Sign(text, isWallSign, data);
+			}
+		} else if (blockid == 117) {
+			// brewing stand
+			if (tileEntity == null) {
+				// assume empty brewing stand
+				block = new BrewingStand();
+			} else {
+				if (!((StringTag)tileEntity.get("id")).getValue().equals("Cauldron")) {
+					throw new ParseException("Contains a brewing stand that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
+				}
+				
+				// brewing time is defined as being IntTag, but some schematic files fly around in which it is ShortTag
+				Tag brewingTimeTag = tileEntity.get("BrewTime");
+				int brewingTime = 0;
+				if (brewingTimeTag instanceof ShortTag) {
+					brewingTime = ((ShortTag)brewingTimeTag).getValue();
+				} else {
+					brewingTime = ((IntTag)brewingTimeTag).getValue();
+				}
+				
+				Item[] items = new Item[4];
+				Arrays.fill(items, new Item());
+				block = new BrewingStand(data, items, brewingTime);
+				setItems(block, tileEntity);
+			}
+		} else if (blockid == 137) {
+			// command block
+			if (tileEntity == null) {
+				// assume empty command block
+				block = new CommandBlock();
+			} else {
+				if (!((StringTag)tileEntity.get("id")).getValue().equals("Control")) {
+					throw new ParseException("Contains a command block that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
+				}
+				String command = ((StringTag) tileEntity.get("Command")).getValue();
+				Integer strength = ((IntTag) tileEntity.get("SuccessCount")).getValue();
+				int signalStrength = (strength == null) ? 0 : strength;
+				block = new CommandBlock(command, signalStrength);
+			}
+		} else if (blockid == 138) {
+			// beacon
+			if (tileEntity == null) {
+				// assume empty beacon
+				block = new Beacon();
+			} else {
+				if (!((StringTag)tileEntity.get("id")).getValue().equals("Beacon")) {
+					throw new ParseException("Contains a beacon that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
+				}
+				Integer levels = ((IntTag) tileEntity.get("Levels")).getValue();
+				Integer primary = ((IntTag) tileEntity.get("Primary")).getValue();
+				Integer secondary = ((IntTag) tileEntity.get("Secondary")).getValue();
+				if (levels == null) levels = 0;
+				if (primary == null) primary = 0;
+				if (secondary == null) secondary = 0;
+				block = new Beacon(primary, secondary, levels);
+			}
+		} else if (blockid == 144) {
+			// mob head
+			if (tileEntity == null) {
+				// assume default mob head
+				block = Block.getInstance(blockid, data);
+			} else {
+				if (!((StringTag)tileEntity.get("id")).getValue().equals("Skull")) {
+					throw new ParseException("Contains a mob head that has a tile entity of type " + ((StringTag)tileEntity.get("id")).getValue() + ":\n" + tileEntity.toString());
+				}
+				Byte skullType = ((ByteTag) tileEntity.get("SkullType")).getValue();
+				String name = ((StringTag) tileEntity.get("ExtraType")).getValue();
+				Byte rotation = ((ByteTag) tileEntity.get("Rot")).getValue();
+				
+				// should never be null, but just in case, set default values
+				if (skullType == null) skullType = 3; // human
+				if (rotation == null) rotation = 8; // north
+				
+				block = new MobHead(skullType, rotation, name, data);
+			}
+		} else {
+			// boring everyday block or block with data value
+			block = BlockParser$.MODULE$.apply().toBlock(blockid, data);
+		}
+		return block;
+	}
+	
+	/**
+	 * Gives a container the items of its tile entity. They are not decoded before they're used, see ItemList
+	 * @param block the container
+	 * @param tileEntity its tile entity, read with the items as a RawTag
+	 */
+	private static void setItems(Block block, Map<String, Tag> tileEntity) {
+		Tag items = tileEntity.get("Items");
+		if (items == null) return; // empty
+		block.setItemList(new ItemList((RawTag)items, block.getItemList().getSize()));
+	}
 }
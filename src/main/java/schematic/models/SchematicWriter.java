@@ -6,14 +6,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
+import schematic.common.Metrics;
 import schematic.models.blocktypes.Beacon;
 import schematic.models.blocktypes.Block;
 import schematic.models.blocktypes.BrewingStand;
-import schematic.models.blocktypes.Chest;
 import schematic.models.blocktypes.CommandBlock;
-import schematic.models.blocktypes.Dispenser;
-import schematic.models.blocktypes.Dropper;
-import schematic.models.blocktypes.Hopper;
 import schematic.models.blocktypes.MobHead;
 import schematic.models.blocktypes.Note;
 import schematic.models.blocktypes.Sign;
@@ -21,13 +18,14 @@ import schematic.models.exceptions.ClassicNotSupportedException;
 import schematic.models.exceptions.ParseException;
 import schematic.models.itemtypes.ColoredItem;
 import schematic.models.itemtypes.Item;
+import schematic.models.itemtypes.ItemList;
+import schematic.models.nbt.NBTWriter;
+import schematic.models.nbt.RawTag;
 
-import org.jnbt.ByteArrayTag;
 import org.jnbt.ByteTag;
 import org.jnbt.CompoundTag;
 import org.jnbt.IntTag;
 import org.jnbt.ListTag;
-import org.jnbt.NBTOutputStream;
 import org.jnbt.ShortTag;
 import org.jnbt.StringTag;
 import org.jnbt.Tag;
@@ -48,147 +46,241 @@ public class SchematicWriter {
 	 * @throws ParseException 
 	 */
 	public static void writeSchematicsFile(SliceStack stack, File f) throws IOException, ClassicNotSupportedException, ParseException {
+		writeSchematicsFile((LayerSource)stack, f);
+	}
+	
+	/**
+	 * Writes the layers of the given source to a new file. The file is written as a stream with only one layer in memory at a time,
+	 * so this works for schematics of any size the format allows. Every layer is read twice, once each for the block ids and
+	 * the data values. The tile entities of a SliceStack are taken from its BlockIndex, other sources are read a third time for them
+	 * @param f the File
+	 * @param source the layers to build the shematics out of
+	 * @throws IOException
+	 * @throws ParseException 
+	 * @throws IllegalArgumentException if the schematic is bigger than the format allows
+	 */
+	public static void writeSchematicsFile(LayerSource source, File f) throws IOException, ParseException {
+		int height = source.getHeight();
+		int length = source.getLength();
+		int width = source.getWidth();
+		checkSize(height, length, width);
+		Metrics.Timer timer = Metrics.timer("writer.total");
+		long start = timer.start();
+		int layerSize = length * width;
+		int numOfBlocks = height * layerSize;
+		
+		// Blocks in MC are saved as a byte array which is ordered first by the height (lowest first),
+		// then by the length (nord-south) and finally by the width (west-east)
+		// substituting letters for blocks, that means the array [a, b, c, d, e, f, g, h] would result in two slices like the following ones (assuming
+		// a height, width and length of 2):
+		// (top)
+		// ef
+		// gh
+		//
+		// ab
+		// cd
+		// (bottom)
+		
+		// written to a temporary file that replaces f when it is complete, so a failed write doesn't destroy an existing file
+		File tmp = File.createTempFile("schematic", ".tmp", f.getAbsoluteFile().getParentFile());
+		NBTWriter nbt = null;
 		try {
-			int numOfBlocks = stack.getHeight() * stack.getWidth() * stack.getLength();
-			
-			Map<String, Tag> masterMap = new HashMap<String, Tag>();
-			masterMap.put("Entities", new ListTag("Entities", CompoundTag.class, new ArrayList<Tag>())); // entities are not supported
-			masterMap.put("Materials", new StringTag("Materials", "Alpha"));
-			masterMap.put("Height", new ShortTag("Height", (short)stack.getHeight()));
+			nbt = new NBTWriter(new FileOutputStream(tmp));
+			nbt.beginCompound("Schematic");
+			nbt.writeShort("Height", (short)height);
 			// length in MC means the depth (height of stack) but in MCSchematicTool, it means the width of the slice
-			masterMap.put("Length", new ShortTag("Length", (short)stack.getWidth()));
-			masterMap.put("Width", new ShortTag("Width", (short)stack.getLength()));
-			
-			byte[] blocks = new byte[numOfBlocks];
-			byte[] data = new byte[numOfBlocks];
-			ArrayList<Tag> tileEntities = new ArrayList<Tag>();
-			
+			nbt.writeShort("Length", (short)width);
+			nbt.writeShort("Width", (short)length);
+			nbt.writeString("Materials", "Alpha");
+			nbt.beginList("Entities", CompoundTag.class, 0); // entities are not supported
 			
-			// Blocks in MC are saved as a byte array which is ordered first by the height (lowest first),
-			// then by the length (nord-south) and finally by the width (west-east)
-			// substituting letters for blocks, that means the array [a, b, c, d, e, f, g, h] would result in two slices like the following ones (assuming
-			// a height, width and length of 2):
-			// (top)
-			// ef
-			// gh
-			//
-			// ab
-			// cd
-			// (bottom)
-
-			int blocknumber = 0;
+			BlockIndex index = (source instanceof SliceStack) ? ((SliceStack)source).getBlockIndex() : null;
+			byte[] layer = new byte[layerSize];
+			int tileEntityCount = (index == null) ? 0 : index.getTileEntityCount();
+			nbt.beginByteArray("Blocks", numOfBlocks);
+			for (int slz = 0; slz < height; ++slz) {
+				Slice slice = source.getSlice(slz);
+				int i = 0;
+				for (int y = 0; y < width; ++y) {
+					for (int x = 0; x < length; ++x) {
+						Block block = slice.getBlockAt(x, y);
+						layer[i++] = (byte)block.getId();
+						if (index == null && block.hasTileEntity()) ++tileEntityCount;
+					}
+				}
+				nbt.writeBytes(layer, 0, layerSize);
+			}
 			
+			nbt.beginByteArray("Data", numOfBlocks);
+			for (int slz = 0; slz < height; ++slz) {
+				Slice slice = source.getSlice(slz);
+				int i = 0;
+				for (int y = 0; y < width; ++y) {
+					for (int x = 0; x < length; ++x) {
+						layer[i++] = slice.getBlockAt(x, y).getData();
+					}
+				}
+				nbt.writeBytes(layer, 0, layerSize);
+			}
 			
-			for (int slz = 0; slz < stack.getHeight(); ++slz) {
-				Slice slice = stack.getSlice(slz);
-				for (int y = 0; y < slice.getHeight(); ++y) {
-					for (int x = 0; x < slice.getWidth(); ++x) {
+			nbt.beginList("TileEntities", CompoundTag.class, tileEntityCount);
+			for (int slz = 0; slz < height; ++slz) {
+				Slice slice = source.getSlice(slz);
+				if (index != null) {
+					for (int position : index.getTileEntities(slz)) {
+						int x = BlockIndex.getX(position);
+						int y = BlockIndex.getY(position);
 						Block block = slice.getBlockAt(x, y);
-						blocks[blocknumber] = (byte)block.getId();
-						data[blocknumber] = block.getData();
-						
-						// tile entity
-						if (block.isChest() || block.isDispenser() || block.isNote() || block.isSign() || block.isBrewingStand() || block.isCommandBlock() || block.isBeacon()) {
-							int mcZ = y;
-							int mcX = x;
-							int mcY = slz;
-							// from mc wiki:
-							// To access a specific block from either the block or data array from XYZ coordinates, use the following formula:
-							// Index = x + (y * Height + z) * Width 
-							assert((mcX + (mcY * stack.getHeight() + mcZ) * stack.getWidth()) == blocknumber);
-							
-							Map<String, Tag> tileEntityDataMap = new HashMap<String, Tag>();
-							tileEntityDataMap.put("x", new IntTag("x", mcX));
-							tileEntityDataMap.put("y", new IntTag("y", mcY));
-							tileEntityDataMap.put("z", new IntTag("z", mcZ));
-							
-							if (block.isChest() || block.isDispenser() || block.isHopper() || block.isDropper()) {
-								Item[] items = null;
-								String idStr = null;
-								switch(block.getType()) {
-									case DISPENSER:	idStr = "Trap";		items = ((Dispenser)block).content;	break;
-									case DROPPER:	idStr = "Dropper";	items = ((Dropper)block).content;	break;
-									case HOPPER:	idStr = "Hopper";	items = ((Hopper)block).content;	break;
-									case CHEST:
-									default:		idStr = "Chest";	items = ((Chest)block).content;		break;
-								}
-								tileEntityDataMap.put("id", new StringTag("id",	idStr));
-								
-								ArrayList<Tag> itemList = new ArrayList<Tag>();
-								
-								for (int i = 0; i < items.length; ++i) {
-									if (items[i].getId() == 0) continue; // empty
-									
-									Map<String, Tag> itemComp = getItemMapForCompound(items[i], i);
-									itemList.add(new CompoundTag("Item", itemComp));
-								} 
-
-								tileEntityDataMap.put("Items", new ListTag("Items", CompoundTag.class, itemList));
-								
-							} else if(block.isNote()) {
-								tileEntityDataMap.put("id", new StringTag("id", "Music"));
-								tileEntityDataMap.put("note", new ByteTag("note", ((Note)block).getPitch()));
-							} else if(block.isSign()) {
-								tileEntityDataMap.put("id", new StringTag("id", "Sign"));
-								String[] text = ((Sign)block).getText();
-								
-								tileEntityDataMap.put("Text1", new StringTag("Text1", text[0]));
-								tileEntityDataMap.put("Text2", new StringTag("Text2", text[1]));
-								tileEntityDataMap.put("Text3", new StringTag("Text3", text[2]));
-								tileEntityDataMap.put("Text4", new StringTag("Text4", text[3]));
-							} else if (block.isBrewingStand()) {
-								tileEntityDataMap.put("id", new StringTag("id", "Cauldron"));
-								Item[] items = ((BrewingStand)block).getContent();
-								
-								ArrayList<Tag> itemList = new ArrayList<Tag>();
-								
-								for (int i = 0; i < items.length; ++i) {
-									if (items[i].getId() == 0) continue; // empty
-									
-									Map<String, Tag> itemComp = getItemMapForCompound(items[i], i);
-									itemList.add(new CompoundTag("Item", itemComp));
-								} 
-
-								tileEntityDataMap.put("Items", new ListTag("Items", CompoundTag.class, itemList));
-								tileEntityDataMap.put("BrewTime", new IntTag("BrewTime", ((BrewingStand)block).getBrewingTime()));
-								
-							} else if(block.isCommandBlock()) {
-								CommandBlock commandBlock = (CommandBlock)block;
-								tileEntityDataMap.put("id", new StringTag("id", "Control"));
-								tileEntityDataMap.put("Command", new StringTag("Command", commandBlock.getCommand()));
-								tileEntityDataMap.put("SuccessCount", new IntTag("SuccessCount", commandBlock.getSignalStrength()));
-							} else if (block.isBeacon()) {
-								Beacon beacon = (Beacon)block;
-								tileEntityDataMap.put("id", new StringTag("id", "Beacon"));
-								tileEntityDataMap.put("Levels", new IntTag("Levels", beacon.getLevel()));
-								tileEntityDataMap.put("Primary", new IntTag("Primary", beacon.getPrimaryEffect()));
-								tileEntityDataMap.put("Secondary", new IntTag("Secondary", beacon.getSecondaryEffect()));
-							} else if (block.isMobHead()) {
-								MobHead mobHead = (MobHead)block;
-								tileEntityDataMap.put("id", new StringTag("id", "Skull"));
-								tileEntityDataMap.put("SkullType", new ByteTag("SkullType", mobHead.getHeadTypeForTileEntities()));
-								tileEntityDataMap.put("ExtraType", new StringTag("ExtraType", mobHead.getName()));
-								tileEntityDataMap.put("Rot", new ByteTag("Rot", mobHead.getDirectionForTileEntities()));
-							}
-							tileEntities.add(new CompoundTag("", tileEntityDataMap));
+						if (!block.hasTileEntity() || tileEntityCount-- == 0) {
+							throw new ParseException("Layer " + slz + " changed while writing");
 						}
-						
-						++blocknumber;
+						nbt.writeListElement(getTileEntity(block, x, slz, y));
+					}
+					continue;
+				}
+				for (int y = 0; y < width; ++y) {
+					for (int x = 0; x < length; ++x) {
+						Block block = slice.getBlockAt(x, y);
+						if (!block.hasTileEntity()) continue;
+						if (tileEntityCount-- == 0) {
+							throw new ParseException("Layer " + slz + " changed while writing");
+						}
+						nbt.writeListElement(getTileEntity(block, x, slz, y));
 					}
 				}
 			}
-
-			masterMap.put("TileEntities", new ListTag("TileEntities", CompoundTag.class, tileEntities));
-			masterMap.put("Blocks", new ByteArrayTag("Blocks", blocks));
-			masterMap.put("Data", new ByteArrayTag("Data", data));
-			
-			CompoundTag master = new CompoundTag("Schematic", masterMap);
-			NBTOutputStream nos = new NBTOutputStream(new FileOutputStream(f));
-			nos.writeTag(master);
-			nos.close();
+			if (tileEntityCount != 0) {
+				throw new ParseException("Layers changed while writing");
+			}
+			nbt.endCompound();
+			nbt.close();
+			nbt = null;
+			replaceFile(tmp, f);
+			timer.stop(start, numOfBlocks);
 		} catch (ClassCastException e) {
 			throw new ParseException(e);
+		} finally {
+			if (nbt != null) nbt.close();
+			tmp.delete(); // nothing left to delete if it replaced f
+		}
+	}
+	
+	/**
+	 * Renames a file to the given target, replacing the target if it exists
+	 * @param from the file to rename
+	 * @param to the target
+	 * @throws IOException if the file could not be renamed
+	 */
+	private static void replaceFile(File from, File to) throws IOException {
+		if (!from.renameTo(to)) {
+			// windows can't rename over an existing file
+			to.delete();
+			if (!from.renameTo(to)) {
+				throw new IOException("Could not write " + to.getPath());
+			}
+		}
+	}
+	
+	/**
+	 * Checks if a schematic of the given size can be saved. Every side is saved as a short and the blocks as one byte array
+	 * @param height the number of layers
+	 * @param length the width of a layer
+	 * @param width the height of a layer
+	 * @throws IllegalArgumentException if the schematic is too big
+	 */
+	public static void checkSize(int height, int length, int width) {
+		if (height < 0 || length < 0 || width < 0) {
+			throw new IllegalArgumentException("Negative size: " + height + "x" + length + "x" + width);
+		}
+		if (height > Short.MAX_VALUE || length > Short.MAX_VALUE || width > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("A schematic can be at most " + Short.MAX_VALUE + " blocks in every direction");
+		}
+		if ((long)height * length * width > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("A schematic can have at most " + Integer.MAX_VALUE + " blocks");
+		}
+	}
+	
+	/**
+	 * Creates the tile entity of the given block
+	 * @param block a block with a tile entity
+	 * @param x the mc x coordinate (west-east)
+	 * @param y the mc y coordinate (the layer)
+	 * @param z the mc z coordinate (north-south)
+	 * @return the tile entity
+	 */
+	private static CompoundTag getTileEntity(Block block, int x, int y, int z) {
+		Map<String, Tag> tileEntityDataMap = new HashMap<String, Tag>();
+		tileEntityDataMap.put("x", new IntTag("x", x));
+		tileEntityDataMap.put("y", new IntTag("y", y));
+		tileEntityDataMap.put("z", new IntTag("z", z));
+		
+		if (block.isChest() || block.isDispenser() || block.isHopper() || block.isDropper()) {
+			String idStr = null;
+			switch(block.getType()) {
+				case DISPENSER:	idStr = "Trap";		break;
+				case DROPPER:	idStr = "Dropper";	break;
+				case HOPPER:	idStr = "Hopper";	break;
+				case CHEST:
+				default:		idStr = "Chest";	break;
+			}
+			tileEntityDataMap.put("id", new StringTag("id",	idStr));
+			tileEntityDataMap.put("Items", getItems(block.getItemList()));
+			
+		} else if(block.isNote()) {
+			tileEntityDataMap.put("id", new StringTag("id", "Music"));
+			tileEntityDataMap.put("note", new ByteTag("note", ((Note)block).getPitch()));
+		} else if(block.isSign()) {
+			tileEntityDataMap.put("id", new StringTag("id", "Sign"));
+			String[] text = ((Sign)block).getText();
+			
+			tileEntityDataMap.put("Text1", new StringTag("Text1", text[0]));
+			tileEntityDataMap.put("Text2", new StringTag("Text2", text[1]));
+			tileEntityDataMap.put("Text3", new StringTag("Text3", text[2]));
+			tileEntityDataMap.put("Text4", new StringTag("Text4", text[3]));
+		} else if (block.isBrewingStand()) {
+			tileEntityDataMap.put("id", new StringTag("id", "Cauldron"));
+			tileEntityDataMap.put("Items", getItems(block.getItemList()));
+			tileEntityDataMap.put("BrewTime", new IntTag("BrewTime", ((BrewingStand)block).getBrewingTime()));
+			
+		} else if(block.isCommandBlock()) {
+			CommandBlock commandBlock = (CommandBlock)block;
+			tileEntityDataMap.put("id", new StringTag("id", "Control"));
+			tileEntityDataMap.put("Command", new StringTag("Command", commandBlock.getCommand()));
+			tileEntityDataMap.put("SuccessCount", new IntTag("SuccessCount", commandBlock.getSignalStrength()));
+		} else if (block.isBeacon()) {
+			Beacon beacon = (Beacon)block;
+			tileEntityDataMap.put("id", new StringTag("id", "Beacon"));
+			tileEntityDataMap.put("Levels", new IntTag("Levels", beacon.getLevel()));
+			tileEntityDataMap.put("Primary", new IntTag("Primary", beacon.getPrimaryEffect()));
+			tileEntityDataMap.put("Secondary", new IntTag("Secondary", beacon.getSecondaryEffect()));
+		} else if (block.isMobHead()) {
+			MobHead mobHead = (MobHead)block;
+			tileEntityDataMap.put("id", new StringTag("id", "Skull"));
+			tileEntityDataMap.put("SkullType", new ByteTag("SkullType", mobHead.getHeadTypeForTileEntities()));
+			tileEntityDataMap.put("ExtraType", new StringTag("ExtraType", mobHead.getName()));
+			tileEntityDataMap.put("Rot", new ByteTag("Rot", mobHead.getDirectionForTileEntities()));
+		}
+		return new CompoundTag("", tileEntityDataMap);
+	}
+	
+	/**
+	 * Creates the "Items" list of a container. Items that were never decoded are written as they were read
+	 * @param items the slots of the container
+	 * @return the list
+	 */
+	private static Tag getItems(ItemList items) {
+		RawTag raw = items.getRaw();
+		if (raw != null) return raw;
+		
+		Item[] content = items.getItems();
+		ArrayList<Tag> itemList = new ArrayList<Tag>();
+		for (int i = 0; i < content.length; ++i) {
+			if (content[i].getId() == 0) continue; // empty
+			
+			Map<String, Tag> itemComp = getItemMapForCompound(content[i], i);
+			itemList.add(new CompoundTag("Item", itemComp));
 		}
+		return new ListTag("Items", CompoundTag.class, itemList);
 	}
 	
 	private static Map<String, Tag> getItemMapForCompound(Item item, int slot) {
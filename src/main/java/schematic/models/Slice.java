@@ -18,6 +18,7 @@ import schematic.models.images.ImageProvider;
  */
 public class Slice {
 	private Block[][] blocks;
+	private int modCount = 0; // changed on every change of the blocks or their looks, see BlockIndex and ImageGrid
 	
 	/**
 	 * Returns a slice of the given size initialized to air
@@ -60,6 +61,7 @@ public class Slice {
 			throw new IndexOutOfBoundsException(x + " (x) or " + y + " (y) not in slice");
 		}
 		this.blocks[x][y] = block;
+		++this.modCount;
 	}
 	
 	/**
@@ -78,6 +80,21 @@ public class Slice {
 		return this.blocks[0].length;
 	}
 	
+	/**
+	 * Gets a number that changes whenever blocks are set, turned or cut off, or wires change their direction
+	 * @return the modification count
+	 */
+	public int getModCount() {
+		return this.modCount;
+	}
+	
+	/**
+	 * Counts a change of the blocks that was made on the blocks themselves, like the directions of the wires
+	 */
+	void blocksChanged() {
+		++this.modCount;
+	}
+	
 	/**
 	 * Rotates the whole slice clockwise.
 	 */
@@ -97,6 +114,7 @@ public class Slice {
 	 * @param CW True if rotating should be clockwise
 	 */
 	public void turn(boolean CW) {
+		++this.modCount;
 		Block[][] oldSlice = this.blocks;
 		int oldWidth = oldSlice.length;
 		int oldHeight = oldSlice[0].length;
@@ -141,6 +159,7 @@ public class Slice {
 			throw new InvalidParameterException(errMsg.toString());
 		}
 		
+		++this.modCount;
 		int newWidth = this.blocks.length - left - right;
 		int newHeight = this.blocks[0].length - top - bottom;
 
@@ -276,6 +295,74 @@ public class Slice {
 		return sb.toString();
 	}
 	
+	/**
+	 * Calculates the directions of the redstone- and tripwires in this slice. Only blocks inside
+	 * this slice are considered, see SliceStack.calculateWires() for wires connecting over levels
+	 */
+	public void calculateWires() {
+		boolean changed = false;
+		for (int i = 0; i < this.blocks.length; ++i) {
+			for (int j = 0; j < this.blocks[i].length; ++j) {
+				if (this.blocks[i][j].isRedstoneWire()) {
+					boolean wireInNorth = false;
+					boolean wireInEast = false;
+					boolean wireInSouth = false;
+					boolean wireInWest = false;
+					
+					if (j != 0) {
+						Block b = this.blocks[i][j-1];
+						wireInNorth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+								|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                b.isRedstoneConnectable(South$.MODULE$, Middle$.MODULE$));
+					}
+					if (this.blocks.length - 1 != i) {
+						Block b = this.blocks[i+1][j];
+						wireInEast = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+								|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                b.isRedstoneConnectable(West$.MODULE$, Middle$.MODULE$));
+					}
+					if (this.blocks[i].length - 1 != j) {
+						Block b = this.blocks[i][j+1];
+						wireInSouth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+								|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                b.isRedstoneConnectable(North$.MODULE$, Middle$.MODULE$));
+					}
+					if (i != 0) {
+						Block b = this.blocks[i-1][j];
+						wireInWest = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+								|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                b.isRedstoneConnectable(East$.MODULE$, Middle$.MODULE$));
+					}
+					changed |= ((RedstoneWire)this.blocks[i][j]).setWireType(wireInNorth, wireInEast, wireInSouth, wireInWest);
+				} else if(this.blocks[i][j].isTripwire()) {
+					boolean wireInNorth = false;
+					boolean wireInEast = false;
+					boolean wireInSouth = false;
+					boolean wireInWest = false;
+					
+					if (j != 0) {
+						Block b = this.blocks[i][j-1];
+						wireInNorth = (b.isTripwire() || b.isTripwireHook());
+					}
+					if (this.blocks.length - 1 != i) {
+						Block b = this.blocks[i+1][j];
+						wireInEast = (b.isTripwire() || b.isTripwireHook());
+					}
+					if (this.blocks[i].length - 1 != j) {
+						Block b = this.blocks[i][j+1];
+						wireInSouth = (b.isTripwire() || b.isTripwireHook());
+					}
+					if (i != 0) {
+						Block b = this.blocks[i-1][j];
+						wireInWest = (b.isTripwire() || b.isTripwireHook());
+					}
+					changed |= ((TripWire)this.blocks[i][j]).setWireType(wireInNorth, wireInEast, wireInSouth, wireInWest);
+				}
+			}
+		}
+		if (changed) blocksChanged();
+	}
+	
 	/**
 	 * Returns an ImageGrid with the content of this slice<br>
 	 * Note that the images in the grid will be updated if the blocks change
@@ -287,65 +374,7 @@ public class Slice {
 		if (!ImageProvider.isActivated()) return null;
 		
 		if (calculateWires) {
-			for (int i = 0; i < this.blocks.length; ++i) {
-				for (int j = 0; j < this.blocks[i].length; ++j) {
-					if (this.blocks[i][j].isRedstoneWire()) {
-						boolean wireInNorth = false;
-						boolean wireInEast = false;
-						boolean wireInSouth = false;
-						boolean wireInWest = false;
-						
-						if (j != 0) {
-							Block b = this.blocks[i][j-1];
-							wireInNorth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
-									|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                    b.isRedstoneConnectable(South$.MODULE$, Middle$.MODULE$));
-						}
-						if (this.blocks.length - 1 != i) {
-							Block b = this.blocks[i+1][j];
-							wireInEast = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
-									|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                    b.isRedstoneConnectable(West$.MODULE$, Middle$.MODULE$));
-						}
-						if (this.blocks[i].length - 1 != j) {
-							Block b = this.blocks[i][j+1];
-							wireInSouth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
-									|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                    b.isRedstoneConnectable(North$.MODULE$, Middle$.MODULE$));
-						}
-						if (i != 0) {
-							Block b = this.blocks[i-1][j];
-							wireInWest = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
-									|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                    b.isRedstoneConnectable(East$.MODULE$, Middle$.MODULE$));
-						}
-						((RedstoneWire)this.blocks[i][j]).setWireType(wireInNorth, wireInEast, wireInSouth, wireInWest);
-					} else if(this.blocks[i][j].isTripwire()) {
-						boolean wireInNorth = false;
-						boolean wireInEast = false;
-						boolean wireInSouth = false;
-						boolean wireInWest = false;
-						
-						if (j != 0) {
-							Block b = this.blocks[i][j-1];
-							wireInNorth = (b.isTripwire() || b.isTripwireHook());
-						}
-						if (this.blocks.length - 1 != i) {
-							Block b = this.blocks[i+1][j];
-							wireInEast = (b.isTripwire() || b.isTripwireHook());
-						}
-						if (this.blocks[i].length - 1 != j) {
-							Block b = this.blocks[i][j+1];
-							wireInSouth = (b.isTripwire() || b.isTripwireHook());
-						}
-						if (i != 0) {
-							Block b = this.blocks[i-1][j];
-							wireInWest = (b.isTripwire() || b.isTripwireHook());
-						}
-						((TripWire)this.blocks[i][j]).setWireType(wireInNorth, wireInEast, wireInSouth, wireInWest);
-					}
-				}
-			}
+			calculateWires();
 		}
 		
 		return new ImageGrid(this, zoom);
@@ -360,12 +389,14 @@ public class Slice {
 	 * @param background the background color to use. Null for transparent
 	 * @param gridLines the color to use for the grid lines
 	 * @return the BufferedImage or null if ImageProvider was not initialized
-	 * @see	ImageGrid#exportImage(Color, Color)
+	 * @see	LayerRasterizer#render(Slice, float, Color, Color)
 	 */
 	public BufferedImage exportImage(float zoom, boolean calculateRedstoneWires, Color background, Color gridLines) {
-		ImageGrid grid = getImages(zoom, calculateRedstoneWires);
-		if (grid == null) return null;
-		return grid.exportImage(background, gridLines);
+		if (!ImageProvider.isActivated()) return null;
+		if (calculateRedstoneWires) {
+			calculateWires();
+		}
+		return LayerRasterizer.render(this, zoom, background, gridLines);
 	}
 }
 
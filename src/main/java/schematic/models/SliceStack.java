@@ -19,8 +19,9 @@ import schematic.models.images.ImageProvider;
  * @author klaue
  *
  */
-public class SliceStack implements Iterable<Slice> {
+public class SliceStack implements Iterable<Slice>, LayerSource {
 	private ArrayList<Slice> stack;
+	private BlockIndex index = null;
 	
 	/**
 	 * Returns a new, empty SliceStack
@@ -133,6 +134,17 @@ public class SliceStack implements Iterable<Slice> {
 		return this.stack.get(0).getHeight();
 	}
 	
+	/**
+	 * Gets the index of the positions of all blocks. It is created on the first call and kept up to date by itself
+	 * @return the index
+	 */
+	public synchronized BlockIndex getBlockIndex() {
+		if (this.index == null) {
+			this.index = new BlockIndex(this);
+		}
+		return this.index;
+	}
+	
 	@Override
 	public Iterator<Slice> iterator() {
 		return this.stack.iterator();
@@ -216,7 +228,7 @@ public class SliceStack implements Iterable<Slice> {
 	}
 	
 	/**
-	 * Returns an ImageGridStack with the content of this stack.<br>
+	 * Returns an ImageGridStack with the content of this stack. The ImageGrids of the levels are only created when requested.<br>
 	 * Note that the images in the grids will be updated if the blocks change, so you have to call this or Slice.getImages() or Block.getImage()
 	 * for every change
 	 * @param zoom the current zoom value (min 1, since a 16x16 image/block is small enough)
@@ -225,139 +237,144 @@ public class SliceStack implements Iterable<Slice> {
 	 */
 	public ImageGridStack getImages(float zoom, boolean calculateRedstoneWires) {
 		if (!ImageProvider.isActivated()) return null;
-		ImageGrid[] imgGrid = new ImageGrid[this.stack.size()];
+		if (calculateRedstoneWires) {
+			calculateWires();
+		}
+		return new ImageGridStack(this, zoom); // grids are created when they are first shown
+	}
+	
+	/**
+	 * Calculates the directions of all redstone- and tripwires in the stack. Unlike Slice.calculateWires(),
+	 * redstone wires also connect to blocks on the levels above and below.
+	 */
+	public void calculateWires() {
 		for (int idx = 0; idx < this.stack.size(); ++idx) {
-			if (!calculateRedstoneWires) {
-				imgGrid[idx] = this.stack.get(idx).getImages(zoom, false);
-			} else {
-				// Note: this is basically a copy of slice.getImages(). I know that this is ugly, but what can I do..
-				Slice slice = this.stack.get(idx);
-				for (int i = 0; i < slice.getWidth(); ++i) {
-					for (int j = 0; j < slice.getHeight(); ++j) {
-						if (slice.getBlockAt(i, j).isRedstoneWire()) {
-							boolean wireInNorth = false;
-							boolean wireInEast = false;
-							boolean wireInSouth = false;
-							boolean wireInWest = false;
-							
-							// same level
-							if (j != 0) {
-								Block b = slice.getBlockAt(i, j - 1);
-								wireInNorth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+			// Note: this is basically a copy of slice.calculateWires(). I know that this is ugly, but what can I do..
+			Slice slice = this.stack.get(idx);
+			boolean changed = false;
+			for (int i = 0; i < slice.getWidth(); ++i) {
+				for (int j = 0; j < slice.getHeight(); ++j) {
+					if (slice.getBlockAt(i, j).isRedstoneWire()) {
+						boolean wireInNorth = false;
+						boolean wireInEast = false;
+						boolean wireInSouth = false;
+						boolean wireInWest = false;
+						
+						// same level
+						if (j != 0) {
+							Block b = slice.getBlockAt(i, j - 1);
+							wireInNorth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+									|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                    b.isRedstoneConnectable(South$.MODULE$, Middle$.MODULE$));
+						}
+						if (slice.getWidth() - 1 != i) {
+							Block b = slice.getBlockAt(i + 1, j);
+							wireInEast = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+									|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                    b.isRedstoneConnectable(West$.MODULE$, Middle$.MODULE$));
+						}
+						if (slice.getHeight() - 1 != j) {
+							Block b = slice.getBlockAt(i, j + 1);
+							wireInSouth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+									|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                    b.isRedstoneConnectable(North$.MODULE$, Middle$.MODULE$));
+						}
+						if (i != 0) {
+							Block b = slice.getBlockAt(i - 1, j);
+							wireInWest = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+									|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                    b.isRedstoneConnectable(East$.MODULE$, Middle$.MODULE$));
+						}
+						
+						// upper level (only if there is a upper level and the block above is air)
+						if ((idx != this.stack.size() - 1) && !blockBlocksWire(this.stack.get(idx + 1).getBlockAt(i, j))) {
+							Slice upperSlice = this.stack.get(idx + 1);
+							if (j != 0 && !wireInNorth) {
+								Block b = upperSlice.getBlockAt(i, j - 1);
+								wireInNorth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate()
 										|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                        b.isRedstoneConnectable(South$.MODULE$, Middle$.MODULE$));
+                                        b.isRedstoneConnectable(South$.MODULE$, Down$.MODULE$));
 							}
-							if (slice.getWidth() - 1 != i) {
-								Block b = slice.getBlockAt(i + 1, j);
-								wireInEast = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+							if (slice.getWidth() - 1 != i && !wireInEast) {
+								Block b = upperSlice.getBlockAt(i + 1, j);
+								wireInEast = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate()
 										|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                        b.isRedstoneConnectable(West$.MODULE$, Middle$.MODULE$));
+                                        b.isRedstoneConnectable(West$.MODULE$, Down$.MODULE$));
 							}
-							if (slice.getHeight() - 1 != j) {
-								Block b = slice.getBlockAt(i, j + 1);
-								wireInSouth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+							if (slice.getHeight() - 1 != j && !wireInSouth) {
+								Block b = upperSlice.getBlockAt(i, j + 1);
+								wireInSouth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate()
 										|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                        b.isRedstoneConnectable(North$.MODULE$, Middle$.MODULE$));
+                                        b.isRedstoneConnectable(North$.MODULE$, Down$.MODULE$));
 							}
-							if (i != 0) {
-								Block b = slice.getBlockAt(i - 1, j);
-								wireInWest = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+							if (i != 0 && !wireInWest) {
+								Block b = upperSlice.getBlockAt(i - 1, j);
+								wireInWest = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate()
 										|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                        b.isRedstoneConnectable(East$.MODULE$, Middle$.MODULE$));
-							}
-							
-							// upper level (only if there is a upper level and the block above is air)
-							if ((idx != this.stack.size() - 1) && !blockBlocksWire(this.stack.get(idx + 1).getBlockAt(i, j))) {
-								Slice upperSlice = this.stack.get(idx + 1);
-								if (j != 0 && !wireInNorth) {
-									Block b = upperSlice.getBlockAt(i, j - 1);
-									wireInNorth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate()
-											|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                            b.isRedstoneConnectable(South$.MODULE$, Down$.MODULE$));
-								}
-								if (slice.getWidth() - 1 != i && !wireInEast) {
-									Block b = upperSlice.getBlockAt(i + 1, j);
-									wireInEast = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate()
-											|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                            b.isRedstoneConnectable(West$.MODULE$, Down$.MODULE$));
-								}
-								if (slice.getHeight() - 1 != j && !wireInSouth) {
-									Block b = upperSlice.getBlockAt(i, j + 1);
-									wireInSouth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate()
-											|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                            b.isRedstoneConnectable(North$.MODULE$, Down$.MODULE$));
-								}
-								if (i != 0 && !wireInWest) {
-									Block b = upperSlice.getBlockAt(i - 1, j);
-									wireInWest = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate()
-											|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                            b.isRedstoneConnectable(East$.MODULE$, Down$.MODULE$));
-								}
+                                        b.isRedstoneConnectable(East$.MODULE$, Down$.MODULE$));
 							}
-							
-							// lower level (only if there is a lower level and there's no block in the way on the side)
-							if ((idx != 0)) {
-								Slice lowerSlice = this.stack.get(idx - 1);
-								if (j != 0 && !wireInNorth && !blockBlocksWire(slice.getBlockAt(i, j - 1))) {
-									Block b = lowerSlice.getBlockAt(i, j - 1);
-									wireInNorth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
-											|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                            b.isRedstoneConnectable(South$.MODULE$, Up$.MODULE$));
-								}
-								if (slice.getWidth() - 1 != i && !wireInEast && !blockBlocksWire(slice.getBlockAt(i + 1, j))) {
-									Block b = lowerSlice.getBlockAt(i + 1, j);
-									wireInEast = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
-											|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                            b.isRedstoneConnectable(West$.MODULE$, Up$.MODULE$));
-								}
-								if (slice.getHeight() - 1 != j && !wireInSouth && !blockBlocksWire(slice.getBlockAt(i, j + 1))) {
-									Block b = lowerSlice.getBlockAt(i, j + 1);
-									wireInSouth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
-											|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                            b.isRedstoneConnectable(North$.MODULE$, Up$.MODULE$));
-								}
-								if (i != 0 && !wireInWest && !blockBlocksWire(slice.getBlockAt(i - 1, j))) {
-									Block b = lowerSlice.getBlockAt(i - 1, j);
-									wireInWest = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
-											|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
-                                            b.isRedstoneConnectable(East$.MODULE$, Up$.MODULE$));
-								}
-							}
-							
-							
-							((RedstoneWire)slice.getBlockAt(i, j)).setWireType(wireInNorth, wireInEast, wireInSouth, wireInWest);
-						}  else if(slice.getBlockAt(i, j).isTripwire()) {
-							// tripwire is only two dimensional e.g. on slice level
-							boolean wireInNorth = false;
-							boolean wireInEast = false;
-							boolean wireInSouth = false;
-							boolean wireInWest = false;
-							
-							if (j != 0) {
-								Block b = slice.getBlockAt(i, j-1);
-								wireInNorth = (b.isTripwire() || b.isTripwireHook());
+						}
+						
+						// lower level (only if there is a lower level and there's no block in the way on the side)
+						if ((idx != 0)) {
+							Slice lowerSlice = this.stack.get(idx - 1);
+							if (j != 0 && !wireInNorth && !blockBlocksWire(slice.getBlockAt(i, j - 1))) {
+								Block b = lowerSlice.getBlockAt(i, j - 1);
+								wireInNorth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+										|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                        b.isRedstoneConnectable(South$.MODULE$, Up$.MODULE$));
 							}
-							if (slice.getWidth() - 1 != i) {
-								Block b = slice.getBlockAt(i+1, j);
-								wireInEast = (b.isTripwire() || b.isTripwireHook());
+							if (slice.getWidth() - 1 != i && !wireInEast && !blockBlocksWire(slice.getBlockAt(i + 1, j))) {
+								Block b = lowerSlice.getBlockAt(i + 1, j);
+								wireInEast = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+										|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                        b.isRedstoneConnectable(West$.MODULE$, Up$.MODULE$));
 							}
-							if (slice.getHeight() - 1 != j) {
-								Block b = slice.getBlockAt(i, j+1);
-								wireInSouth = (b.isTripwire() || b.isTripwireHook());
+							if (slice.getHeight() - 1 != j && !wireInSouth && !blockBlocksWire(slice.getBlockAt(i, j + 1))) {
+								Block b = lowerSlice.getBlockAt(i, j + 1);
+								wireInSouth = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+										|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                        b.isRedstoneConnectable(North$.MODULE$, Up$.MODULE$));
 							}
-							if (i != 0) {
-								Block b = slice.getBlockAt(i-1, j);
-								wireInWest = (b.isTripwire() || b.isTripwireHook());
+							if (i != 0 && !wireInWest && !blockBlocksWire(slice.getBlockAt(i - 1, j))) {
+								Block b = lowerSlice.getBlockAt(i - 1, j);
+								wireInWest = (b.isRedstoneWire() || b.isRedstoneTorch() || b.isLever() || b.isPressurePlate() || b.isButton()
+										|| b.isDetectorRail() || b.isRepeater() || b.isFenceGate() ||
+                                        b.isRedstoneConnectable(East$.MODULE$, Up$.MODULE$));
 							}
-							((TripWire)slice.getBlockAt(i, j)).setWireType(wireInNorth, wireInEast, wireInSouth, wireInWest);
 						}
+						
+						
+						changed |= ((RedstoneWire)slice.getBlockAt(i, j)).setWireType(wireInNorth, wireInEast, wireInSouth, wireInWest);
+					}  else if(slice.getBlockAt(i, j).isTripwire()) {
+						// tripwire is only two dimensional e.g. on slice level
+						boolean wireInNorth = false;
+						boolean wireInEast = false;
+						boolean wireInSouth = false;
+						boolean wireInWest = false;
+						
+						if (j != 0) {
+							Block b = slice.getBlockAt(i, j-1);
+							wireInNorth = (b.isTripwire() || b.isTripwireHook());
+						}
+						if (slice.getWidth() - 1 != i) {
+							Block b = slice.getBlockAt(i+1, j);
+							wireInEast = (b.isTripwire() || b.isTripwireHook());
+						}
+						if (slice.getHeight() - 1 != j) {
+							Block b = slice.getBlockAt(i, j+1);
+							wireInSouth = (b.isTripwire() || b.isTripwireHook());
+						}
+						if (i != 0) {
+							Block b = slice.getBlockAt(i-1, j);
+							wireInWest = (b.isTripwire() || b.isTripwireHook());
+						}
+						changed |= ((TripWire)slice.getBlockAt(i, j)).setWireType(wireInNorth, wireInEast, wireInSouth, wireInWest);
 					}
 				}
-				imgGrid[idx] = this.stack.get(idx).getImages(zoom, false); // false for redstone calc because that was allready done
-				
 			}
+			if (changed) slice.blocksChanged();
 		}
-		return new ImageGridStack(imgGrid);
 	}
 	
 	/**
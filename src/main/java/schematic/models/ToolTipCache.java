@@ -0,0 +1,81 @@
+package schematic.models;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import schematic.common.Metrics;
+import schematic.models.itemtypes.ColoredItem;
+import schematic.models.itemtypes.Item;
+
+/**
+ * The images of the custom tooltips of chests, signs etc. by what they show, so hovering over the same block again or over
+ * blocks with the same content doesn't draw a new image. The least recently used images are dropped when there are too many
+ * @author klaue
+ */
+public class ToolTipCache {
+	private static final int MAX_IMAGES = 256;
+
+	private static final Map<String, BufferedImage> images = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+			return size() > MAX_IMAGES;
+		}
+	};
+
+	/**
+	 * @param key the key of the tooltip, see getKey()
+	 * @return the image or null if it isn't cached. The image is shared, don't change it
+	 */
+	public static synchronized BufferedImage get(String key) {
+		BufferedImage img = images.get(key);
+		if (img == null) {
+			Metrics.cache("tooltips").miss();
+		} else {
+			Metrics.cache("tooltips").hit();
+		}
+		return img;
+	}
+
+	/**
+	 * @param key the key of the tooltip, see getKey()
+	 * @param img the image
+	 */
+	public static synchronized void put(String key, BufferedImage img) {
+		if (img != null) images.put(key, img);
+	}
+
+	/**
+	 * Drops all images, e.g. when the textures changed
+	 */
+	public static synchronized void clear() {
+		images.clear();
+	}
+
+	/**
+	 * @param type what kind of tooltip it is, e.g. "chest"
+	 * @param items the items shown in the tooltip
+	 * @return a key for everything that changes how the items look: id, data, stack size and color
+	 */
+	public static String getKey(String type, Item[] items) {
+		StringBuilder sb = new StringBuilder(type);
+		for (Item item : items) {
+			sb.append('|').append(item.getId()).append(':').append(item.getData()).append('x').append(item.getStacksize());
+			if (item instanceof ColoredItem) sb.append('#').append(((ColoredItem)item).getColorAsInt());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param type what kind of tooltip it is, e.g. "sign"
+	 * @param lines the lines of text shown in the tooltip
+	 * @return a key for the text
+	 */
+	public static String getKey(String type, String[] lines) {
+		StringBuilder sb = new StringBuilder(type);
+		for (String line : lines) {
+			sb.append('\n').append(line);
+		}
+		return sb.toString();
+	}
+}
@@ -66,11 +66,13 @@ public class ActivatorRail extends PoweredRail {
 			}
 			
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
@@ -149,11 +149,13 @@ public class Anvil extends DirectionalBlock {
 		} else {
 			img = anvilImageCache.get(this.direction);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
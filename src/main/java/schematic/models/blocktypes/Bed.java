@@ -153,11 +153,13 @@ public class Bed extends DirectionalBlock {
 			}
 			
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
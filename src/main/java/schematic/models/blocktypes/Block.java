@@ -1,14 +1,21 @@
 package schematic.models.blocktypes;
 
 import java.awt.image.BufferedImage;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.JToolTip;
 
+import schematic.common.Metrics;
 import schematic.models.BlockComponent;
 import schematic.models.blocktypes.redstone.CardinalDirection;
 import schematic.models.blocktypes.redstone.VerticalDirection;
 import schematic.models.images.ImageProvider;
+import schematic.models.itemtypes.Item;
+import schematic.models.itemtypes.ItemList;
 import schematic.models.NameProvider;
 
 // TODO: make blocks for entities Painting, Minecart, Boat?
@@ -65,6 +72,18 @@ public class Block {
 	// caching of block images
 	protected static HashMap<Short, BufferedImage> imageCache = new HashMap<Short, BufferedImage>();
 	protected static float zoomCache = -1;
+	
+	/**
+	 * Lock for the static image caches of all block and item types. The caches are shared between all instances and not
+	 * thread safe, so getImage() may only be called while holding this lock. Use getTexture() to get zoomed images
+	 */
+	public static final Object IMAGE_LOCK = new Object();
+	
+	/** zoom levels kept in zoomedTextures, the grids of the shown level and the prefetched ones mostly share one */
+	private static final int MAX_ZOOM_LEVELS = 3;
+	/** the textures at zoom 1 zoomed by zoom, the keys are the images of the block caches and compared by identity */
+	private static final ConcurrentHashMap<Float, Map<BufferedImage, BufferedImage>> zoomedTextures =
+			new ConcurrentHashMap<Float, Map<BufferedImage, BufferedImage>>();
 
 	/**
 	 * Generates a new air block
@@ -276,6 +295,42 @@ public class Block {
 		return this.toString();
 	}
 	
+	/**
+	 * Checks if this block is saved with a tile entity (chest contents, sign texts, ...)
+	 * @return true if this block has a tile entity
+	 */
+	public boolean hasTileEntity() {
+		return isChest() || isDispenser() || isDropper() || isHopper() || isNote() || isSign() || isBrewingStand()
+				|| isCommandBlock() || isBeacon() || isMobHead();
+	}
+	
+	/**
+	 * Returns the items in this block, for chests, dispensers and other containers
+	 * @return the items, some of which may be empty (id 0), or null if this block can't contain items
+	 */
+	public Item[] getContent() {
+		ItemList items = getItemList();
+		return (items == null) ? null : items.getItems();
+	}
+	
+	/**
+	 * Returns the slots of this block, for chests, dispensers and other containers. Unlike getContent(), this does not decode
+	 * items that were not used yet
+	 * @return the slots or null if this block can't contain items
+	 */
+	public ItemList getItemList() {
+		return null;
+	}
+	
+	/**
+	 * Replaces the slots of a container, e.g. with ones that are not decoded yet
+	 * @param content the slots, exactly as many as before
+	 * @throws UnsupportedOperationException if this block can't contain items
+	 */
+	public void setItemList(ItemList content) {
+		throw new UnsupportedOperationException(this + " can't contain items");
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#hashCode()
 	 */
@@ -311,9 +366,24 @@ public class Block {
 		return null;
 	}
 	
+	/**
+	 * Counts a hit of the image cache of this block type, see Metrics#imageCache(Class)
+	 */
+	protected void imageCacheHit() {
+		Metrics.imageCache(getClass()).hit();
+	}
+	
+	/**
+	 * Counts a miss of the image cache of this block type, see Metrics#imageCache(Class)
+	 */
+	protected void imageCacheMiss() {
+		Metrics.imageCache(getClass()).miss();
+	}
+	
 	/**
 	 * Returns a new BufferedImage representing the block
-	 * Warning: Block caches images by ID and ID only. If the block changes looks by data value, make a subclass
+	 * Warning: Block caches images by ID and ID only. If the block changes looks by data value, make a subclass.
+	 * The caches are static, so this has to be called while holding IMAGE_LOCK outside of the event dispatch thread
 	 * @param zoom the current zoom value (>0)
 	 * @return the imagecomponent or null if images are deactivated
 	 */
@@ -330,11 +400,13 @@ public class Block {
 		} else {
 			img = Block.imageCache.get(this.id);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider (directional blocks are handled in subclasses)
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
@@ -349,6 +421,55 @@ public class Block {
 		return img;
 	}
 	
+	/**
+	 * Returns the image the zoomed images of the block are made from, getImage(1) unless the block type has larger images.
+	 * Has to be called while holding IMAGE_LOCK, like getImage()
+	 * @return the image or null if images are deactivated
+	 */
+	public BufferedImage getBaseImage() {
+		return getImage(1);
+	}
+	
+	/**
+	 * Returns the image of the block with the given zoom. Unlike getImage(), this can be called on any thread: the base
+	 * image is taken from the cache of the block type while holding IMAGE_LOCK, so the caches stay at zoom 1 and are never
+	 * cleared by a change of the zoom, and zoomed without holding the lock
+	 * @param zoom the current zoom value (>0)
+	 * @return the image or null if images are deactivated
+	 */
+	public BufferedImage getTexture(float zoom) {
+		BufferedImage texture;
+		synchronized (IMAGE_LOCK) {
+			texture = getBaseImage();
+		}
+		return zoomTexture(texture, zoom);
+	}
+	
+	/**
+	 * Zooms a base image as returned by getBaseImage(), the zoomed images are cached for the last few zoom levels.
+	 * Can be called on any thread
+	 * @param texture the base image, may be null
+	 * @param zoom the zoom value (>0)
+	 * @return the zoomed texture or null if texture is null
+	 */
+	public static BufferedImage zoomTexture(BufferedImage texture, float zoom) {
+		if (texture == null) return null;
+		Map<BufferedImage, BufferedImage> zoomed = zoomedTextures.get(zoom);
+		if (zoomed == null) {
+			if (zoomedTextures.size() >= MAX_ZOOM_LEVELS) zoomedTextures.clear();
+			// weak keys, the block caches make new images when the textures change
+			zoomedTextures.putIfAbsent(zoom, Collections.synchronizedMap(new WeakHashMap<BufferedImage, BufferedImage>()));
+			zoomed = zoomedTextures.get(zoom);
+			if (zoomed == null) return ImageProvider.zoom(zoom, texture); // cleared by another thread meanwhile
+		}
+		BufferedImage img = zoomed.get(texture);
+		if (img == null) {
+			img = ImageProvider.zoom(zoom, texture);
+			zoomed.put(texture, img);
+		}
+		return img;
+	}
+	
 	/**
 	 * Returns a new BlockComponent object representing the block<br>
 	 * Note that the image will be updated when the block changes
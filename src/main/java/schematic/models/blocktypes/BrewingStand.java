@@ -11,8 +11,10 @@ import javax.swing.JToolTip;
 
 import schematic.models.images.ImageProvider;
 import schematic.models.ImageToolTip;
+import schematic.models.ToolTipCache;
 import schematic.models.blocktypes.DirectionalBlock.Direction;
 import schematic.models.itemtypes.Item;
+import schematic.models.itemtypes.ItemList;
 
 
 /**
@@ -28,7 +30,7 @@ public class BrewingStand extends MultiDirectionalBlock {
 	 * An array of exactly 3 items corresponding to the 3 slots of a brewing stand.
 	 * Empty slots are Items with data = 0
 	 */
-	private Item[] content = null;
+	private ItemList content = null;
 	
 	private int brewingTime = 0;
 	
@@ -51,28 +53,20 @@ public class BrewingStand extends MultiDirectionalBlock {
 
 		if (content == null || content.length == 0) {
 			// empty brewing stand
-			this.content = new Item[4];
-			Arrays.fill(this.content, new Item());
+			this.content = new ItemList((Item[])null, 4);
 			this.setData((byte)0);
 			this.brewingTime = 0;
 			return;
 		} else if (content.length > 4) {
 			throw new IllegalArgumentException("Brewing stands can only have up to 3 items and 1 result (4 items in total)");
-		} else if (content.length == 4) {
-			this.content = content;
-			setData(direction);
-			this.brewingTime = brewingTime;
 		} else {
-			this.content = new Item[4];
-			Arrays.fill(this.content, new Item());
-			for (int i = 0; i < content.length; ++i) {
-				this.content[i] = content[i];
-			}
+			this.content = new ItemList(content, 4);
 			// do not test direction because fuck you
 			setData(direction);
 			this.brewingTime = brewingTime;
 		}
 	}
+
 	
 	/**
 	 * initializes the vine
@@ -88,16 +82,17 @@ public class BrewingStand extends MultiDirectionalBlock {
 	@Override
 	public String toString() {
 		return super.toString() + ", direction(s): " + this.directions.toString().replaceAll("[\\[\\]]", "") +
-			", contents: " + Arrays.deepToString(this.content) + ", brewing time: " + this.brewingTime;
+			", contents: " + Arrays.deepToString(getContent()) + ", brewing time: " + this.brewingTime;
 	}
 	
 	@Override
 	public String getToolTipText() {
 		StringBuffer sb = new StringBuffer("<html><body>Brewing stand, brewing time: ").append(this.brewingTime).append(", contents:<br>");
-		for (int i = 0; i < this.content.length; ++i) {
-			Item item = this.content[i];
+		Item[] content = getContent();
+		for (int i = 0; i < content.length; ++i) {
+			Item item = content[i];
 			sb.append(item);
-			if (i == this.content.length - 1) {
+			if (i == content.length - 1) {
 				sb.append(item).append("<br>");
 			} else {
 				sb.append(item).append(", ");
@@ -189,11 +184,13 @@ public class BrewingStand extends MultiDirectionalBlock {
 		} else {
 			img = brewingStandImageCache.get(this.data);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -210,12 +207,18 @@ public class BrewingStand extends MultiDirectionalBlock {
 		return img;
 	}
 
-	/**
-	 * @return the content
-	 */
-	public Item[] getContent() {
+	@Override
+	public ItemList getItemList() {
 		return this.content;
 	}
+	
+	@Override
+	public void setItemList(ItemList content) {
+		if (content.getSize() != this.content.getSize()) {
+			throw new IllegalArgumentException("Brewing stands have " + this.content.getSize() + " slots");
+		}
+		this.content = content;
+	}
 
 	/**
 	 * sets the content. make sure to set the new directions too
@@ -225,7 +228,7 @@ public class BrewingStand extends MultiDirectionalBlock {
 		if (content.length != 4) {
 			throw new IllegalArgumentException("Brewing stands need exactly 3 items");
 		}
-		this.content = content;
+		this.content = new ItemList(content, 4);
 	}
 
 	/**
@@ -239,7 +242,7 @@ public class BrewingStand extends MultiDirectionalBlock {
 	 * @param brewingTime the brewing time (in ticks) to set (ignored if no items)
 	 */
 	public void setBrewingTime(int brewingTime) {
-		for (Item i : this.content) {
+		for (Item i : getContent()) {
 			if (i.getId() != 0) {
 				this.brewingTime = brewingTime;
 				break;
@@ -249,6 +252,10 @@ public class BrewingStand extends MultiDirectionalBlock {
 	
 	@Override
 	public JToolTip getCustomToolTip() {
+		String key = ToolTipCache.getKey("brewingstand", getContent());
+		BufferedImage cached = ToolTipCache.get(key);
+		if (cached != null) return new ImageToolTip(cached);
+
 		BufferedImage background = ImageProvider.getBrewingStandPlaneCopy();
 		Graphics2D g = background.createGraphics();
 		
@@ -259,8 +266,9 @@ public class BrewingStand extends MultiDirectionalBlock {
 		imagePoints[2] = new Point(52, 38);	// right
 		imagePoints[3] = new Point(29, 9);	// top
 		
-		for (int i = 0; i < this.content.length; ++i) {
-			Item item = this.content[i];
+		Item[] content = getContent();
+		for (int i = 0; i < content.length; ++i) {
+			Item item = content[i];
 			Point p = imagePoints[i];
 
 			g.drawImage(item.getImage(1), p.x, p.y, 16, 16, null, null);
@@ -283,6 +291,7 @@ public class BrewingStand extends MultiDirectionalBlock {
 		}
 		
 		BufferedImage result = ImageProvider.zoom(2, background);
+		ToolTipCache.put(key, result);
 		
 		ImageToolTip tooltip = new ImageToolTip(result);
 		
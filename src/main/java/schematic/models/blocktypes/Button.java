@@ -157,11 +157,13 @@ public class Button extends DirectionalBlock {
 		} else {
 			if (buttonImageCache.containsKey(this.id)
 				&& buttonImageCache.get(this.id).containsKey(this.direction)) {
+					imageCacheHit();
 					return buttonImageCache.get(this.id).get(this.direction);
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -8,7 +8,9 @@ import javax.swing.JToolTip;
 
 import schematic.models.images.ImageProvider;
 import schematic.models.ImageToolTip;
+import schematic.models.ToolTipCache;
 import schematic.models.itemtypes.Item;
+import schematic.models.itemtypes.ItemList;
 
 /**
  * A chest is a block that contains items
@@ -17,10 +19,10 @@ import schematic.models.itemtypes.Item;
  */
 public class Chest extends Block {
 	/**
-	 * An array of exactly 27 items corresponding to the 27 slots of a chest.
+	 * Exactly 27 items corresponding to the 27 slots of a chest.
 	 * Empty slots are Items with data = 0
 	 */
-	public Item[] content = null;
+	private ItemList content = null;
 	
 	private boolean isTrapped = false;
 
@@ -78,31 +80,15 @@ public class Chest extends Block {
 		}
 		
 		this.type = Type.CHEST;
-		if (content == null || content.length == 0) {
-			// empty chest
-			this.content = new Item[27];
-			Arrays.fill(this.content, new Item());
-			return;
-		}
-		
-		if (content.length > 27) {
+		if (content != null && content.length > 27) {
 			throw new IllegalArgumentException("Chests can only have up to 27 items");
 		}
-		
-		if (content.length == 27) {
-			this.content = content;
-		} else {
-			this.content = new Item[27];
-			Arrays.fill(this.content, new Item());
-			for (int i = 0; i < content.length; ++i) {
-				this.content[i] = content[i];
-			}
-		}
+		this.content = new ItemList(content, 27);
 	}
 	
 	@Override
 	public String toString() {
-		return super.toString() + ", contents: " + Arrays.deepToString(this.content);
+		return super.toString() + ", contents: " + Arrays.deepToString(getContent());
 	}
 
 	/* (non-Javadoc)
@@ -112,7 +98,7 @@ public class Chest extends Block {
 	public int hashCode() {
 		final int prime = this.id;
 		int result = super.hashCode();
-		result = prime * result + Arrays.hashCode(this.content);
+		result = prime * result + Arrays.hashCode(getContent());
 		return result;
 	}
 
@@ -125,17 +111,30 @@ public class Chest extends Block {
 		if (!super.equals(obj)) return false;
 		if (getClass() != obj.getClass()) return false;
 		Chest other = (Chest) obj;
-		if (!Arrays.equals(this.content, other.content)) return false;
+		if (!Arrays.equals(getContent(), other.getContent())) return false;
 		if (other.isTrapped != this.isTrapped) return false;
 		return true;
 	}
 	
+	@Override
+	public ItemList getItemList() {
+		return this.content;
+	}
+	
+	@Override
+	public void setItemList(ItemList content) {
+		if (content.getSize() != this.content.getSize()) {
+			throw new IllegalArgumentException("Chests have " + this.content.getSize() + " slots");
+		}
+		this.content = content;
+	}
+	
 	@Override
 	public String getToolTipText() {
 		StringBuffer sb = new StringBuffer("<html><body>" + super.toString() + ", contents:<br>");
 		int i = 0;
 		int j = 0;
-		for (Item item : this.content) {
+		for (Item item : getContent()) {
 			if (i == 8 && j < 2) {
 				sb.append(item).append("<br>");
 				i = 0;
@@ -155,13 +154,17 @@ public class Chest extends Block {
 	
 	@Override
 	public JToolTip getCustomToolTip() {
+		String key = ToolTipCache.getKey("chest", getContent());
+		BufferedImage cached = ToolTipCache.get(key);
+		if (cached != null) return new ImageToolTip(cached);
+
 		BufferedImage background = ImageProvider.getChestPlaneCopy();
 		Graphics2D g = background.createGraphics();
 		
 		// add item images
 		int x = 0;
 		int y = 0;
-		for (Item item : this.content) {
+		for (Item item : getContent()) {
 			int xPixels = 7 + (x * 18);
 			int yPixels = 7 + (y * 18);
 
@@ -192,6 +195,7 @@ public class Chest extends Block {
 		}
 		
 		BufferedImage result = ImageProvider.zoom(2, background);
+		ToolTipCache.put(key, result);
 		
 		ImageToolTip tooltip = new ImageToolTip(result);
 		
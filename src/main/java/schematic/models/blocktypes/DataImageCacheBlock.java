@@ -57,12 +57,14 @@ public abstract class DataImageCacheBlock extends Block {
 		} else {
 			if (dataImageCache.containsKey(this.id)) {
 				if (dataImageCache.get(this.id).containsKey(this.data)) {
+					imageCacheHit();
 					return dataImageCache.get(this.id).get(this.data);
 				}
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider (directional blocks are handled in subclasses)
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
@@ -9,7 +9,9 @@ import javax.swing.JToolTip;
 
 import schematic.models.images.ImageProvider;
 import schematic.models.ImageToolTip;
+import schematic.models.ToolTipCache;
 import schematic.models.itemtypes.Item;
+import schematic.models.itemtypes.ItemList;
 
 /**
  * A dispenser is a block that contains items
@@ -21,10 +23,10 @@ public class Dispenser extends DirectionalBlock {
 	private static double dispenserZoomCache = -1;
 	
 	/**
-	 * An array of exactly 9 items corresponding to the 9 slots of a dispenser.
+	 * Exactly 9 items corresponding to the 9 slots of a dispenser (5 for hoppers).
 	 * Empty slots are Items with data = 0
 	 */
-	public Item[] content = null;
+	protected ItemList content = null;
 	
 	/**
 	 * Initializes the dispenser. The new dispenser will contain exactly 9 items, some or all of which may be zero (empty)
@@ -34,33 +36,16 @@ public class Dispenser extends DirectionalBlock {
 	public Dispenser(Item[] content, byte direction) {
 		super((short)23, direction);
 		this.type = Type.DISPENSER;
-		Item[] chestcontent = content;
-		if (chestcontent == null || chestcontent.length == 0) {
-			// empty chest
-			chestcontent = new Item[9];
-			Arrays.fill(chestcontent, new Item());
-		}
-		
-		if (chestcontent.length > 9) {
+		if (content != null && content.length > 9) {
 			throw new IllegalArgumentException(super.toString() + " can only have up to 9 items");
 		}
-		
-		if (chestcontent.length == 9) {
-			this.content = chestcontent;
-		} else {
-			this.content = new Item[9];
-			Arrays.fill(this.content, new Item());
-			for (int i = 0; i < chestcontent.length; ++i) {
-				this.content[i] = chestcontent[i];
-			}
-		}
-		
+		this.content = new ItemList(content, 9);
 		this.setData(direction);
 	}
 	
 	@Override
 	public String toString() {
-		return super.toString() + ", contents: " + Arrays.deepToString(this.content) + ", direction " + this.direction;
+		return super.toString() + ", contents: " + Arrays.deepToString(getContent()) + ", direction " + this.direction;
 	}
 	
 	@Override
@@ -121,7 +106,7 @@ public class Dispenser extends DirectionalBlock {
 	public int hashCode() {
 		final int prime = 31;
 		int result = super.hashCode();
-		result = prime * result + Arrays.hashCode(this.content);
+		result = prime * result + Arrays.hashCode(getContent());
 		return result;
 	}
 
@@ -134,16 +119,29 @@ public class Dispenser extends DirectionalBlock {
 		if (!super.equals(obj)) return false;
 		if (getClass() != obj.getClass()) return false;
 		Dispenser other = (Dispenser) obj;
-		if (!Arrays.equals(this.content, other.content)) return false;
+		if (!Arrays.equals(getContent(), other.getContent())) return false;
 		return true;
 	}
 	
+	@Override
+	public ItemList getItemList() {
+		return this.content;
+	}
+	
+	@Override
+	public void setItemList(ItemList content) {
+		if (content.getSize() != this.content.getSize()) {
+			throw new IllegalArgumentException(super.toString() + "s have " + this.content.getSize() + " slots");
+		}
+		this.content = content;
+	}
+	
 	@Override
 	public String getToolTipText() {
 		StringBuffer sb = new StringBuffer("<html><body>" + super.toString() + ", direction " + this.direction + ", contents:<br>");
 		int i = 0;
 		int j = 0;
-		for (Item item : this.content) {
+		for (Item item : getContent()) {
 			if (i == 2 && j < 2) {
 				sb.append(item).append("<br>");
 				i = 0;
@@ -176,11 +174,13 @@ public class Dispenser extends DirectionalBlock {
 			img = dispenserImageCache.get(this.direction);
 			
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -199,13 +199,17 @@ public class Dispenser extends DirectionalBlock {
 	
 	@Override
 	public JToolTip getCustomToolTip() {
+		String key = ToolTipCache.getKey("dispenser", getContent());
+		BufferedImage cached = ToolTipCache.get(key);
+		if (cached != null) return new ImageToolTip(cached);
+
 		BufferedImage background = ImageProvider.getDispenserPlaneCopy();
 		Graphics2D g = background.createGraphics();
 		
 		// add item images
 		int x = 0;
 		int y = 0;
-		for (Item item : this.content) {
+		for (Item item : getContent()) {
 			int xPixels = 7 + (x * 18);
 			int yPixels = 7 + (y * 18);
 
@@ -236,6 +240,7 @@ public class Dispenser extends DirectionalBlock {
 		}
 		
 		BufferedImage result = ImageProvider.zoom(2, background);
+		ToolTipCache.put(key, result);
 		
 		ImageToolTip tooltip = new ImageToolTip(result);
 		
@@ -41,11 +41,13 @@ public class Dropper extends Dispenser {
 			img = dropperImageCache.get(this.direction);
 			
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
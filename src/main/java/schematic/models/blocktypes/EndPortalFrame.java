@@ -78,11 +78,13 @@ public class EndPortalFrame extends Block {
 		} else {
 			img = endPortalFrameImageCache.get(this.isFixed);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
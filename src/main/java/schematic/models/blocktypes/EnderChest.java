@@ -105,11 +105,13 @@ public class EnderChest extends DirectionalBlock {
 			img = enderChestImageCache.get(this.direction);
 			
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
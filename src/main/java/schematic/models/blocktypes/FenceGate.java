@@ -116,11 +116,13 @@ public class FenceGate extends DirectionalBlock {
 		} else {
 			img = fenceGateImageCache.get(this.direction);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -135,11 +135,13 @@ public class FlowerPot extends Block {
 		} else {
 			img = flowerPotImageCache.get(this.pottedPlant);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		if (this.pottedPlant == PottedPlantType.NONE) {
 			img = ImageProvider.getItemImage("flowerPot");
@@ -2,14 +2,15 @@ package schematic.models.blocktypes;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.util.Arrays;
 import java.util.HashMap;
 
 import javax.swing.JToolTip;
 
 import schematic.models.images.ImageProvider;
 import schematic.models.ImageToolTip;
+import schematic.models.ToolTipCache;
 import schematic.models.itemtypes.Item;
+import schematic.models.itemtypes.ItemList;
 
 /**
  * A hopper is a block that contains items
@@ -31,26 +32,10 @@ public class Hopper extends Dispenser {
 		this.type = Type.HOPPER;
 		
 		// dispenser has a bigger item size, check if still ok for hopper
-		Item[] chestcontent = content;
-		if (chestcontent == null || chestcontent.length == 0) {
-			// empty chest
-			chestcontent = new Item[5];
-			Arrays.fill(chestcontent, new Item());
-		}
-		
-		if (chestcontent.length > 5) {
+		if (content != null && content.length > 5) {
 			throw new IllegalArgumentException("Hoppers can only have up to 5 items");
 		}
-		
-		if (chestcontent.length == 5) {
-			this.content = chestcontent;
-		} else {
-			this.content = new Item[5];
-			Arrays.fill(this.content, new Item());
-			for (int i = 0; i < chestcontent.length; ++i) {
-				this.content[i] = chestcontent[i];
-			}
-		}
+		this.content = new ItemList(content, 5);
 	}
 	
 	@Override
@@ -68,11 +53,13 @@ public class Hopper extends Dispenser {
 			img = hopperImageCache.get(this.direction);
 			
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -91,12 +78,16 @@ public class Hopper extends Dispenser {
 	
 	@Override
 	public JToolTip getCustomToolTip() {
+		String key = ToolTipCache.getKey("hopper", getContent());
+		BufferedImage cached = ToolTipCache.get(key);
+		if (cached != null) return new ImageToolTip(cached);
+
 		BufferedImage background = ImageProvider.getHopperPlaneCopy();
 		Graphics2D g = background.createGraphics();
 		
 		// add item images
 		int x = 0;
-		for (Item item : this.content) {
+		for (Item item : getContent()) {
 			int xPixels = 7 + (x * 18);
 			int yPixels = 7;
 
@@ -122,6 +113,7 @@ public class Hopper extends Dispenser {
 		}
 		
 		BufferedImage result = ImageProvider.zoom(2, background);
+		ToolTipCache.put(key, result);
 		
 		ImageToolTip tooltip = new ImageToolTip(result);
 		
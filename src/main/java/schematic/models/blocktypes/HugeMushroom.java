@@ -287,6 +287,7 @@ public class HugeMushroom extends MultiDirectionalBlock {
 			try {
 				img = hugeMushroomImageCache.get(this.mushroomType).get(this.blockType).get(directionBitmap);
 				if (img != null) {
+					imageCacheHit();
 					return img;
 				}
 			} catch (NullPointerException e) {
@@ -295,6 +296,7 @@ public class HugeMushroom extends MultiDirectionalBlock {
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
@@ -104,11 +104,13 @@ public class Ladder extends DirectionalBlock {
 		} else {
 			img = ladderImageCache.get(this.direction);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
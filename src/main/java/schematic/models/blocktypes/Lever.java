@@ -257,11 +257,13 @@ public class Lever extends DirectionalBlock {
 				img = onWallImageCache.get(this.direction);
 			}
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -41,6 +41,7 @@ public class MobHead extends DirectionalBlock {
 	 */
 	public MobHead(byte skullType, byte rotation, String name, byte data) {
 		super((short)144, data);
+		this.type = Type.MOBHEAD;
 		setHeadTypeByTileEntityValue(skullType);
 		
 		// prematurely set !wall mounted so setDirection does not fail for directions like NNW. setData, which sets
@@ -61,6 +62,7 @@ public class MobHead extends DirectionalBlock {
 	 */
 	public MobHead(HeadType headType, Direction direction, String name, boolean isWallMounted) {
 		super((short)144);
+		this.type = Type.MOBHEAD;
 		this.isWallMounted = isWallMounted;
 		this.setName(name);
 		this.setHeadType(headType);
@@ -360,11 +362,13 @@ public class MobHead extends DirectionalBlock {
 				img = mobHeadImageCache.get(this.headType).get(dirForCache);
 			}
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		switch (this.headType) {
 			case SKELETON:			img = ImageProvider.getItemImage("skull_skeleton");	break;
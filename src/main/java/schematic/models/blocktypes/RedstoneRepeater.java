@@ -5,7 +5,6 @@ import schematic.models.images.ImageProvider;
 import schematic.models.images.RedstoneImageProvider$;
 
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
 
 
 /**
@@ -14,10 +13,6 @@ import java.util.HashMap;
  *
  */
 public class RedstoneRepeater extends DirectionalBlock {
-	private static HashMap<Direction, BufferedImage> onImageCache = new HashMap<Direction, BufferedImage>();
-	private static HashMap<Direction, BufferedImage> offImageCache = new HashMap<Direction, BufferedImage>();
-	private static double repeaterZoomCache = -1;
-	
 	private byte delay;
 	private boolean isOn;
 	
@@ -152,59 +147,16 @@ public class RedstoneRepeater extends DirectionalBlock {
 		if (!ImageProvider.isActivated()) return null;
 		if (zoom <= 0) return null;
 		
-		BufferedImage img = null;
-		
-		if (repeaterZoomCache != zoom) {
-			// reset cache
-			onImageCache.clear();
-			offImageCache.clear();
-			repeaterZoomCache = zoom;
-		} else {
-			if (this.isOn) {
-				img = onImageCache.get(this.direction);
-			} else {
-				img = offImageCache.get(this.direction);
-			}
-			
-			if (img != null) {
-				return img;
-			}
-		}
-		
-		// image not in cache, make new
-		// get image from imageprovider
-//		img = ImageProvider.getImageByBlockOrItemID(this.id);
-
-        img = RedstoneImageProvider$.MODULE$.apply()
-                .getImage(Redstone$.MODULE$.javaRepeater(direction, isOn, delay));
-		
-		if (img == null) return null;
-		
-		// rotaterationalismael
-//		double angle = 0;
-//		switch(this.direction) {
-//			case N: angle = 0;   break;
-//			case E: angle = 90;  break;
-//			case S: angle = 180; break;
-//			case W: angle = 270; break;
-//			default:
-//				// should never happen
-//				throw new AssertionError(this.direction);
-//		}
-//
-//		img = ImageProvider.rotateImage(angle, img);
-		
-		
-		// zoom
-		img = ImageProvider.zoom(zoom, img);
-
-		// save image to cache
-		if (this.isOn) {
-			onImageCache.put(this.direction, img);
-		} else {
-			offImageCache.put(this.direction, img);
-		}
+		// the provider caches the images of all states
+		return RedstoneImageProvider$.MODULE$.apply()
+				.getImage(Redstone$.MODULE$.javaRepeater(this.direction, this.isOn, this.delay), zoom);
+	}
+	
+	@Override
+	public BufferedImage getBaseImage() {
+		if (!ImageProvider.isActivated()) return null;
 		
-		return img;
+		// the full size sprite, so zooming in stays sharp
+		return RedstoneImageProvider$.MODULE$.apply().getImage(Redstone$.MODULE$.javaRepeater(this.direction, this.isOn, this.delay));
 	}
 }
@@ -1,7 +1,6 @@
 package schematic.models.blocktypes;
 
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
 
 import schematic.models.blocktypes.redstone.Redstone$;
 import schematic.models.images.ImageProvider;
@@ -15,9 +14,6 @@ import schematic.models.images.RedstoneImageProvider$;
  *
  */
 public class RedstoneTorch extends Torch {
-	private static HashMap<Boolean, HashMap<Direction, BufferedImage> > rtorchImageCache = new HashMap<Boolean, HashMap<Direction, BufferedImage> >();
-	private static double rtorchZoomCache = -1;
-	
 	private boolean isOn = true;
 
 	/**
@@ -92,40 +88,16 @@ public class RedstoneTorch extends Torch {
 		if (!ImageProvider.isActivated()) return null;
 		if (zoom <= 0) return null;
 		
-		BufferedImage img = null;
-		
-		if (rtorchZoomCache != zoom) {
-			// reset cache
-			rtorchImageCache.clear();
-			rtorchZoomCache = zoom;
-		} else {
-			HashMap<Direction, BufferedImage> tempMap = rtorchImageCache.get(this.isOn);
-			if (tempMap != null) {
-				img = tempMap.get(this.direction);
-			}
-			if (img != null) {
-				return img;
-			}
-		}
-		
-		// image not in cache, make new
-		// get image from imageprovider
-		img = ImageProvider.getImageByBlockOrItemID(this.id);
-
-        img = RedstoneImageProvider$.MODULE$.apply()
-                .getImage(Redstone$.MODULE$.javaTorch(direction, isOn));
-		
-		if (img == null) return null;
-		
-		// zoom
-		img = ImageProvider.zoom(zoom, img);
-
-		// save image to cache
-		if (!rtorchImageCache.containsKey(this.isOn)) {
-			rtorchImageCache.put(this.isOn, new HashMap<Direction, BufferedImage>());
-		}
-		rtorchImageCache.get(this.isOn).put(this.direction, img);
+		// the provider caches the images of all states
+		return RedstoneImageProvider$.MODULE$.apply()
+				.getImage(Redstone$.MODULE$.javaTorch(this.direction, this.isOn), zoom);
+	}
+	
+	@Override
+	public BufferedImage getBaseImage() {
+		if (!ImageProvider.isActivated()) return null;
 		
-		return img;
+		// the full size sprite, so zooming in stays sharp
+		return RedstoneImageProvider$.MODULE$.apply().getImage(Redstone$.MODULE$.javaTorch(this.direction, this.isOn));
 	}
 }
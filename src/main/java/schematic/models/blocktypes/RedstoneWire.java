@@ -6,19 +6,12 @@ import schematic.models.images.ImageProvider;
 import schematic.models.images.RedstoneImageProvider$;
 
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
 
 /**
  * A redstone wire
  * @author klaue
  */
 public class RedstoneWire extends Block {
-	// special hashmap because the orientation of rs-wires can only be calculated in Slice
-	// first booelan is on (true), second is line (true) or "cross" (false). when not called by Slice, line defaults to false and direction to NONE
-	private static HashMap<Boolean, HashMap<Boolean, HashMap<Direction, BufferedImage> > > directionalWireImageCache = 
-		new HashMap<Boolean, HashMap<Boolean, HashMap<Direction, BufferedImage> > >();
-	private static double wireZoomCache = -1;
-	
 	private boolean isLine = false;
 	private Direction typeDir = Direction.NONE; // the type of the wire, see javadoc of setWireType 
 	
@@ -68,45 +61,9 @@ public class RedstoneWire extends Block {
 		if (!ImageProvider.isActivated()) return null;
 		if (zoom <= 0) return null;
 		
-		BufferedImage img = null;
-		
-		if (wireZoomCache != zoom) {
-			// reset cache
-			directionalWireImageCache.clear();
-			wireZoomCache = zoom;
-		} else {
-			HashMap<Boolean, HashMap<Direction,BufferedImage> > tempOnMap = directionalWireImageCache.get(this.data != 0);
-			if (tempOnMap != null) {
-				HashMap<Direction, BufferedImage> tempLineMap = tempOnMap.get(this.isLine);
-				if (tempLineMap != null) {
-					img = tempLineMap.get(this.typeDir);
-				}
-			}
-			if (img != null) {
-				return img;
-			}
-		}
-		
-		// image not in cache, make new
-		// get image from imageprovider
-        img = RedstoneImageProvider$.MODULE$.apply()
-                .getImage(Redstone$.MODULE$.javaWire(typeDir, isLine, data));
-		
-		if (img == null) return null;
-		
-		// zoom
-		img = ImageProvider.zoom(zoom, img);
-
-		// save image to cache
-		if (!directionalWireImageCache.containsKey(this.data != 0)) {
-			directionalWireImageCache.put((this.data != 0), new HashMap<Boolean, HashMap<Direction,BufferedImage> >());
-		}
-		if (!directionalWireImageCache.get(this.data != 0).containsKey(this.isLine)) {
-			directionalWireImageCache.get(this.data != 0).put(this.isLine, new HashMap<Direction,BufferedImage>());
-		}
-		directionalWireImageCache.get(this.data != 0).get(this.isLine).put(this.typeDir, img);
-		
-		return img;
+		// the provider caches the images of all states
+		return RedstoneImageProvider$.MODULE$.apply()
+				.getImage(Redstone$.MODULE$.javaWire(this.typeDir, this.isLine, this.data), zoom);
 	}
 
 	/**
@@ -141,13 +98,17 @@ public class RedstoneWire extends Block {
 	 * @param isWireInEast true if there's another wire (or a power source) in the east of this wire
 	 * @param isWireInSouth true if there's another wire (or a power source) in the south of this wire
 	 * @param isWireInWest true if there's another wire (or a power source) in the west of this wire
+	 * @return true if the type changed, so the wire looks different
 	 */
-	public void setWireType(boolean isWireInNorth, boolean isWireInEast, boolean isWireInSouth, boolean isWireInWest) {
+	public boolean setWireType(boolean isWireInNorth, boolean isWireInEast, boolean isWireInSouth, boolean isWireInWest) {
+		boolean wasLine = this.isLine;
+		Direction oldDir = this.typeDir;
+		
 		// if wires in all or in no directions
 		if ((isWireInNorth && isWireInEast && isWireInSouth && isWireInWest)
 				|| (!isWireInNorth && !isWireInEast && !isWireInSouth && !isWireInWest)) {
 			this.setWireType(false, Direction.NONE);
-			return;
+			return this.isLine != wasLine || this.typeDir != oldDir;
 		}
 		
 		if ((isWireInWest || isWireInEast) && (!isWireInNorth && !isWireInSouth))	this.setWireType(true, Direction.E);
@@ -160,5 +121,14 @@ public class RedstoneWire extends Block {
 		if (isWireInWest && isWireInSouth && isWireInNorth && !isWireInEast)		this.setWireType(false, Direction.E);
 		if (isWireInWest && isWireInNorth && isWireInEast && !isWireInSouth)		this.setWireType(false, Direction.S);
 		if (isWireInNorth && isWireInSouth && isWireInEast && !isWireInWest)		this.setWireType(false, Direction.W);
+		return this.isLine != wasLine || this.typeDir != oldDir;
+	}
+	
+	@Override
+	public BufferedImage getBaseImage() {
+		if (!ImageProvider.isActivated()) return null;
+		
+		// the full size sprite, so zooming in stays sharp
+		return RedstoneImageProvider$.MODULE$.apply().getImage(Redstone$.MODULE$.javaWire(this.typeDir, this.isLine, this.data));
 	}
 }
@@ -89,11 +89,13 @@ public class Sandstone extends Block {
 		} else {
 			img = sandstoneImageCache.get(this.sandstoneType);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
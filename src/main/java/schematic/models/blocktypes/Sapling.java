@@ -117,11 +117,13 @@ public class Sapling extends Block {
 		} else {
 			img = saplingImageCache.get(this.treeType);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
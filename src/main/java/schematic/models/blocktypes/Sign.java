@@ -9,6 +9,7 @@ import javax.swing.JToolTip;
 
 import schematic.models.images.ImageProvider;
 import schematic.models.ImageToolTip;
+import schematic.models.ToolTipCache;
 
 /**
  * A sign is a "block" with text
@@ -295,11 +296,13 @@ public class Sign extends DirectionalBlock {
 				img = signImageCache.get(this.direction);
 			}
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -337,6 +340,10 @@ public class Sign extends DirectionalBlock {
 	
 	@Override
 	public JToolTip getCustomToolTip() {
+		String key = ToolTipCache.getKey("sign", this.text);
+		BufferedImage cached = ToolTipCache.get(key);
+		if (cached != null) return new ImageToolTip(cached);
+
 		BufferedImage background = ImageProvider.getSignPlaneCopy();
 		BufferedImage[] line1 = ImageProvider.stringToImage(this.text[0], 0xFF0000);
 		BufferedImage[] line2 = ImageProvider.stringToImage(this.text[1], 0xFF0000);
@@ -362,6 +369,7 @@ public class Sign extends DirectionalBlock {
 		}
 		
 		BufferedImage result = ImageProvider.zoom(2, background);
+		ToolTipCache.put(key, result);
 		
 		ImageToolTip tooltip = new ImageToolTip(result);
 		
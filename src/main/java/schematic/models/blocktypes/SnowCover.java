@@ -89,10 +89,12 @@ public class SnowCover extends DataImageCacheBlock {
 			snowCoverImageCache.clear();
 			snowCoverZoomCache = zoom;
 		} if (snowCoverImageCache.containsKey(this.data)) {
+			imageCacheHit();
 			return snowCoverImageCache.get(this.data);
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider (directional blocks are handled in subclasses)
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		if (img == null) return null;
@@ -259,11 +259,13 @@ public class Stair extends DirectionalBlock {
 			}
 			
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		switch(this.stairType) {
 			case COBBLESTONE:	img = ImageProvider.getImageByBlockOrItemID((short)4);				break;
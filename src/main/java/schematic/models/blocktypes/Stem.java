@@ -113,11 +113,13 @@ public class Stem extends Block {
 		} else {
 			img = stemImageCache.get(this.stemType);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
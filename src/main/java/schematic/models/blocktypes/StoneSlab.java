@@ -227,11 +227,13 @@ public class StoneSlab extends Block {
 				}
 			}
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		switch(this.slabType) {
 			case COBBLESTONE:		img = ImageProvider.getImageByBlockOrItemID((short)4);				break;
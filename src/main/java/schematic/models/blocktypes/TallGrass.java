@@ -96,11 +96,13 @@ public class TallGrass extends Block {
 		} else {
 			img = tgrassImageCache.get(this.grassType);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
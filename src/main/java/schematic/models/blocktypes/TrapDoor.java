@@ -147,11 +147,13 @@ public class TrapDoor extends DirectionalBlock {
 		} else {
 			img = tdoorImageCache.get(this.direction);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -108,11 +108,13 @@ public class TripWire extends Block {
 				img = tempLineMap.get(this.typeDir);
 			}
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		if (!this.isLine) {
 			img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
@@ -199,13 +201,17 @@ public class TripWire extends Block {
 	 * @param isWireInEast true if there's another wire (or a power source) in the east of this wire
 	 * @param isWireInSouth true if there's another wire (or a power source) in the south of this wire
 	 * @param isWireInWest true if there's another wire (or a power source) in the west of this wire
+	 * @return true if the type changed, so the wire looks different
 	 */
-	public void setWireType(boolean isWireInNorth, boolean isWireInEast, boolean isWireInSouth, boolean isWireInWest) {
+	public boolean setWireType(boolean isWireInNorth, boolean isWireInEast, boolean isWireInSouth, boolean isWireInWest) {
+		boolean wasLine = this.isLine;
+		Direction oldDir = this.typeDir;
+		
 		// if wires in all or in no directions
 		if ((isWireInNorth && isWireInEast && isWireInSouth && isWireInWest)
 				|| (!isWireInNorth && !isWireInEast && !isWireInSouth && !isWireInWest)) {
 			this.setWireType(false, Direction.NONE);
-			return;
+			return this.isLine != wasLine || this.typeDir != oldDir;
 		}
 		
 		if ((isWireInWest || isWireInEast) && (!isWireInNorth && !isWireInSouth))	this.setWireType(true, Direction.E);
@@ -218,5 +224,6 @@ public class TripWire extends Block {
 		if (isWireInWest && isWireInSouth && isWireInNorth && !isWireInEast)		this.setWireType(false, Direction.E);
 		if (isWireInWest && isWireInNorth && isWireInEast && !isWireInSouth)		this.setWireType(false, Direction.S);
 		if (isWireInNorth && isWireInSouth && isWireInEast && !isWireInWest)		this.setWireType(false, Direction.W);
+		return this.isLine != wasLine || this.typeDir != oldDir;
 	}
 }
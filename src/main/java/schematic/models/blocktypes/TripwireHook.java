@@ -174,11 +174,13 @@ public class TripwireHook extends DirectionalBlock {
 		} else {
 			img = wireHookImageCache.get(this.direction);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -127,11 +127,13 @@ public class Vines extends MultiDirectionalBlock {
 		} else {
 			img = vineImageCache.get(this.data);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id);
 		
@@ -103,14 +103,16 @@ public class Wood extends DirectionalBlock {
 		} else {
 			HashMap<Direction, BufferedImage> dirMap = woodImageCache.get(this.treeType);
 			if (dirMap != null) {
-				img = dirMap.get(this.treeType);
+				img = dirMap.get(this.direction);
 			}
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
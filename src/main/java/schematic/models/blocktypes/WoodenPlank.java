@@ -83,11 +83,13 @@ public class WoodenPlank extends Block {
 		} else {
 			img = plankImageCache.get(this.treeType);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
@@ -174,11 +174,13 @@ public class WoodenSlab extends Block {
 				}
 			}
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		byte typedata = (byte) (this.data & 0x7);
 		img = ImageProvider.getImageByBlockOrItemID((short)5, typedata); // get image of wooden planks, the type data is compatible
@@ -131,11 +131,13 @@ public class Wool extends Block {
 		} else {
 			img = woolImageCache.get(this.color);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		img = ImageProvider.getImageByBlockOrItemID(this.id, this.data);
 		
@@ -128,7 +128,9 @@ class JavaRedstoneBlockAdapter(id: Short, model: Redstone) extends Block(id) {
     override def getToolTipText: String = model.tooltip
     override def toString: String = model.toString
     override def getImage(zoom: Float): BufferedImage =
-        ImageProvider.zoom(zoom, RedstoneImageProvider().getImage(model))
+        RedstoneImageProvider().getImage(model, zoom)
+    override def getBaseImage: BufferedImage =
+        if (ImageProvider.isActivated) RedstoneImageProvider().getImage(model) else null
 
     override def isRedstoneConnectable(
         horizontal: CardinalDirection,
@@ -1,68 +1,129 @@
 package schematic.models.images
 
-import java.awt.image.BufferedImage
+import java.awt.image.{DataBufferInt, BufferedImage}
 import java.awt.Color
 
-case class ARGBColor(a: Int, r: Int, g: Int, b: Int) {
-    def toColor = new Color(r, g, b, a)
-    def toHex = a << 24 | r << 16 | g << 8 | b
-    def max = Math.max(Math.max(Math.max(a, r), g), b)
-    def *(multiple: Float) =
-        copy(
-            r = Math.round(r * multiple),
-            g = Math.round(g * multiple),
-            b = Math.round(b * multiple))
-}
-
-object ARGBColor {
-    def apply(hex: Int): ARGBColor = {
-        val a = (hex & 0xff000000) >>> 24
-        val r = (hex & 0x00ff0000) >>> 16
-        val g = (hex & 0x0000ff00) >>> 8
-        val b = hex & 0x000000ff
-
-        ARGBColor(a, r, g, b)
-    }
-
-    def apply(color: Color): ARGBColor =
-        ARGBColor(color.getAlpha, color.getRed, color.getGreen, color.getBlue)
-}
-
 /**
- * Converts all mask colors in the image to the specified color.
+ * Converts all mask colors in the image to the specified color. Works directly on the ARGB values of the
+ * image, without any allocation per pixel.
  * @author tlei (Terence Lei)
  */
 object BufferedImageColorFilter {
     final val REPLACE_COLOR = new Color(255, 0, 255)
 
-    private final val COMPARATORS = Seq(
-        (c: ARGBColor) => c.r == 0xff && c.b == 0xff && c.g < c.r,
-        (c: ARGBColor) => c.g == 0xff && c.b == 0xff && c.r < c.g)
+    // the mask colors: any shade of pink (first replacement color) and cyan (second replacement color)
+    private final val MASK_COUNT = 2
+
+    private def isPink(r: Int, g: Int, b: Int) = r == 0xff && b == 0xff && g < r
+    private def isCyan(r: Int, g: Int, b: Int) = g == 0xff && b == 0xff && r < g
+
+    /**
+     * Gets the ARGB values of the image. For TYPE_INT_ARGB images this is the data array of the image itself
+     */
+    private def getPixels(image: BufferedImage): Array[Int] = {
+        val width = image.getWidth
+        val height = image.getHeight
+        image.getRaster.getDataBuffer match {
+            case buffer: DataBufferInt if image.getType == BufferedImage.TYPE_INT_ARGB &&
+                    image.getRaster.getWidth == width && image.getRaster.getHeight == height &&
+                    buffer.getData.length == width * height =>
+                buffer.getData
+            case _ =>
+                image.getRGB(0, 0, width, height, null, 0, width)
+        }
+    }
+
+    /**
+     * Writes the ARGB values back to the image, unless they are the data array of the image anyway
+     */
+    private def setPixels(image: BufferedImage, pixels: Array[Int]) {
+        image.getRaster.getDataBuffer match {
+            case buffer: DataBufferInt if buffer.getData eq pixels =>
+            case _ => image.setRGB(0, 0, image.getWidth, image.getHeight, pixels, 0, image.getWidth)
+        }
+    }
+
+    /**
+     * Replaces the mask colors of the image, in place. Pink is replaced with the first color, cyan with the second.
+     * The mask colors always have one channel at full intensity, so they are replaced with the exact new color
+     * @param image the image
+     * @param newColors up to two replacement colors
+     * @return the given image
+     */
+    def processImage(image: BufferedImage, newColors: Seq[Color]) = {
+        val replacements = newColors.take(MASK_COUNT).map(_.getRGB).toArray
+        val hasPink = replacements.length > 0
+        val hasCyan = replacements.length > 1
+        val pixels = getPixels(image)
 
-    private def map(image: BufferedImage)
-            (func: ARGBColor => Option[ARGBColor]) = {
-        for {
-            y <- 0 to image.getHeight - 1
-            x <- 0 to image.getWidth - 1
-        } {
-            func(ARGBColor(image.getRGB(x, y))) match {
-                case Some(c) => image.setRGB(x, y, c.toHex)
-                case None =>
+        var i = 0
+        while (i < pixels.length) {
+            val c = pixels(i)
+            val r = (c >>> 16) & 0xff
+            val g = (c >>> 8) & 0xff
+            val b = c & 0xff
+            if (hasPink && isPink(r, g, b)) {
+                pixels(i) = replacements(0)
+            } else if (hasCyan && isCyan(r, g, b)) {
+                pixels(i) = replacements(1)
             }
+            i += 1
         }
+
+        setPixels(image, pixels)
         image
     }
 
-    def processImage(image: BufferedImage, newColors: Seq[Color]) = {
-        val replaceConditions = newColors.map(ARGBColor.apply).zip(COMPARATORS)
-        map(image) { (c: ARGBColor) =>
-            // if the color is any shade of pink, cyan, or yellow, replace it providing a
-            // replacement exists
-            replaceConditions.find(_._2(c)).map {
-                case (replacement, _) =>
-                    val shade = c.max.toFloat / 0xff
-                    replacement * shade
+    /**
+     * Multiplies the color channels of the ARGB values with the given color, in place (the tinting used for colored
+     * grass, leaves, wool or leather). Uses a lookup table per channel.
+     * Same as the multiply mode of BlendComposite: (channel * color) >> 8, and the alpha of the color is added to the
+     * alpha of the pixel, min(255, alpha + color alpha). Fully transparent black pixels are kept as they are, the color
+     * channels of other invisible pixels are dropped
+     * @param pixels the ARGB values
+     * @param color the color to multiply with
+     */
+    def multiply(pixels: Array[Int], color: Color) {
+        val lutR = new Array[Int](256)
+        val lutG = new Array[Int](256)
+        val lutB = new Array[Int](256)
+        var v = 0
+        while (v < 256) {
+            lutR(v) = ((v * color.getRed) >> 8) << 16
+            lutG(v) = ((v * color.getGreen) >> 8) << 8
+            lutB(v) = (v * color.getBlue) >> 8
+            v += 1
+        }
+        val alpha = color.getAlpha
+
+        var i = 0
+        while (i < pixels.length) {
+            val c = pixels(i)
+            val a = c >>> 24
+            if (a != 0) {
+                pixels(i) = (math.min(255, a + alpha) << 24) | lutR((c >>> 16) & 0xff) | lutG((c >>> 8) & 0xff) | lutB(c & 0xff)
+            } else if (c != 0) {
+                // invisible pixels are not drawn, so only the color is multiplied with transparent black
+                pixels(i) = alpha << 24
             }
+            i += 1
         }
     }
+
+    /**
+     * Returns a multiplied copy of the image
+     * @param image the image, it is not changed
+     * @param color the color to multiply with
+     * @return a new TYPE_INT_ARGB image
+     * @see #multiply
+     */
+    def tint(image: BufferedImage, color: Color): BufferedImage = {
+        val width = image.getWidth
+        val height = image.getHeight
+        val tinted = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)
+        val pixels = tinted.getRaster.getDataBuffer.asInstanceOf[DataBufferInt].getData
+        image.getRGB(0, 0, width, height, pixels, 0, width)
+        multiply(pixels, color)
+        tinted
+    }
 }
@@ -3,26 +3,39 @@ package schematic.models.images;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.awt.image.PixelGrabber;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 import javax.imageio.ImageIO;
 
-import schematic.models.blocktypes.Stair;
-import schematic.models.blocktypes.StoneSlab;
-import schematic.models.blocktypes.WoodenSlab;
-import thirdparty.BlendComposite;
+import schematic.common.Metrics;
+import schematic.models.ToolTipCache;
 
 /**
  * This class reads the minecraft images and provides them through getters and setters
@@ -31,6 +44,8 @@ import thirdparty.BlendComposite;
  */
 public class ImageProvider {
     public static final Dimension DEFAULT_IMAGE_SIZE = new Dimension(16, 16);
+    /** the highest block id + 1, items have higher ids */
+    public static final int BLOCK_ID_COUNT = 256;
 
     public static final String IMAGE_DIRECTORY = "images/textures";
     public static final String BLOCK_IMAGES_DIRECTORY = IMAGE_DIRECTORY + "/blocks/";
@@ -38,43 +53,182 @@ public class ImageProvider {
     public static final String ITEM_IMAGES_DIRECTORY = IMAGE_DIRECTORY + "/items/";
     public static final String TOOLTIP_IMAGES_DIRECTORY = IMAGE_DIRECTORY + "/tooltip/";
     public static final String MISC_IMAGES_DIRECTORY = IMAGE_DIRECTORY + "/misc/";
+    public static final String REDSTONE_IMAGES_DIRECTORY = IMAGE_DIRECTORY + "/redstone/";
+    public static final String ID_MAPPING_FILE = IMAGE_DIRECTORY + "/ids.txt";
 
-    private static TreeMap<String, BufferedImage> blockImages = new TreeMap<String, BufferedImage>();
-    private static TreeMap<String, BufferedImage> additionalImages = new TreeMap<String, BufferedImage>();
-    private static TreeMap<String, BufferedImage> itemImages = new TreeMap<String, BufferedImage>();
-    private static TreeMap<String, BufferedImage> tooltipImages = new TreeMap<String, BufferedImage>();
-    private static BufferedImage[][] letterimages = null;
+    // everything read by initialize(), published at once. The snapshot never changes, so reading it needs no lock
+    private static volatile Textures textures = new Textures();
+    // results of multiplyImage by source image (weak, the sources are replaced when the zoom changes) and color
+    private static WeakHashMap<BufferedImage, HashMap<Integer, BufferedImage>> multipliedImages = new WeakHashMap<BufferedImage, HashMap<Integer, BufferedImage>>();
 
     private ImageProvider() {
         // prevent instances
     }
 
     /**
-     * Initializes the ImageProvider by reading the block and item images
+     * The images of an initialized provider. All maps are unmodifiable and the letter images are never changed after construction.
+     * Only the colored letters are added on their first use
+     */
+    private static final class Textures {
+        final Map<String, BufferedImage> blockImages;
+        final Map<String, BufferedImage> additionalImages;
+        // item and tooltip images are rarely used, they are only decoded when they are requested the first time
+        final Map<String, FutureTask<BufferedImage>> itemImages;
+        final Map<String, FutureTask<BufferedImage>> tooltipImages;
+        final Map<String, FutureTask<BufferedImage>> redstoneImages;
+        final BufferedImage[][] letterimages;
+        // by color << 8 | character
+        final ConcurrentHashMap<Long, BufferedImage> coloredLetters = new ConcurrentHashMap<Long, BufferedImage>();
+        final TextureMapping idMapping;
+
+        /**
+         * The empty snapshot of an uninitialized provider
+         */
+        Textures() {
+            this(new TreeMap<String, BufferedImage>(), new TreeMap<String, BufferedImage>(), new TreeMap<String, FutureTask<BufferedImage>>(),
+                    new TreeMap<String, FutureTask<BufferedImage>>(), new TreeMap<String, FutureTask<BufferedImage>>(), null, null);
+        }
+
+        Textures(Map<String, BufferedImage> blockImages, Map<String, BufferedImage> additionalImages, Map<String, FutureTask<BufferedImage>> itemImages,
+                Map<String, FutureTask<BufferedImage>> tooltipImages, Map<String, FutureTask<BufferedImage>> redstoneImages, BufferedImage[][] letterimages,
+                TextureMapping idMapping) {
+            // hash maps, the lookups by name are in the paint loop
+            this.blockImages = Collections.unmodifiableMap(new HashMap<String, BufferedImage>(blockImages));
+            this.additionalImages = Collections.unmodifiableMap(new HashMap<String, BufferedImage>(additionalImages));
+            this.itemImages = Collections.unmodifiableMap(new HashMap<String, FutureTask<BufferedImage>>(itemImages));
+            this.tooltipImages = Collections.unmodifiableMap(new HashMap<String, FutureTask<BufferedImage>>(tooltipImages));
+            this.redstoneImages = Collections.unmodifiableMap(new TreeMap<String, FutureTask<BufferedImage>>(redstoneImages));
+            this.letterimages = letterimages;
+            this.idMapping = idMapping;
+        }
+    }
+
+    /**
+     * Initializes the ImageProvider by reading the block and item images.
+     * The images are read from the texture bundle in the home directory of the user if it was made from the current pngs.
+     * Else the block images and the font are decoded in parallel, item and tooltip images on their first use, and the
+     * bundle is written in the background.
+     * The images are published all at once when everything needed for painting is decoded, the getters never block on this
      * @throws IOException
      * @throws URISyntaxException
      */
     public static synchronized void initialize() throws IOException, URISyntaxException {
-        if (!blockImages.isEmpty()) return; // already initialized
+        if (isActivated()) return; // already initialized
+        Metrics.Timer timer = Metrics.timer("textures.initialize");
+        long start = timer.start();
 
         ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
 
-        // load images
-        blockImages =		getImagesFromJarDir(classLoader, BLOCK_IMAGES_DIRECTORY);
-        additionalImages =	getImagesFromJarDir(classLoader, ADDITIONAL_IMAGES_DIRECTORY);
-        itemImages =		getImagesFromJarDir(classLoader, ITEM_IMAGES_DIRECTORY);
-        tooltipImages =		getImagesFromJarDir(classLoader, TOOLTIP_IMAGES_DIRECTORY);
-
-        // load letters from font.png
-        BufferedImage font = ImageIO.read(ClassLoader.getSystemResource(MISC_IMAGES_DIRECTORY + "font.png"));
-        int width = font.getWidth() / 16;
-        int height = font.getHeight() / 16;
-        letterimages = new BufferedImage[width][];
-        for (int x = 0; x < width; ++x) {
-            letterimages[x] = new BufferedImage[height];
-            for (int y = 0; y < height; ++y) {
-                letterimages[x][y] = font.getSubimage(x * 8, y * 8, 8, 8);
+        // find images
+        TreeMap<String, String> blockFiles =		getImagesFromJarDir(classLoader, BLOCK_IMAGES_DIRECTORY);
+        TreeMap<String, String> additionalFiles =	getImagesFromJarDir(classLoader, ADDITIONAL_IMAGES_DIRECTORY);
+        TreeMap<String, String> itemFiles =		getImagesFromJarDir(classLoader, ITEM_IMAGES_DIRECTORY);
+        TreeMap<String, String> tooltipFiles =		getImagesFromJarDir(classLoader, TOOLTIP_IMAGES_DIRECTORY);
+        TreeMap<String, String> redstoneFiles =	getImagesFromJarDir(classLoader, REDSTONE_IMAGES_DIRECTORY);
+        String fontFile = MISC_IMAGES_DIRECTORY + "font.png";
+
+        ArrayList<String> allFiles = new ArrayList<String>();
+        allFiles.addAll(blockFiles.values());
+        allFiles.addAll(additionalFiles.values());
+        allFiles.addAll(itemFiles.values());
+        allFiles.addAll(tooltipFiles.values());
+        allFiles.addAll(redstoneFiles.values());
+        allFiles.add(fontFile);
+
+        final File bundleFile = TextureBundle.getDefaultFile();
+        final byte[] hash = TextureBundle.hash(classLoader, allFiles);
+        TreeMap<String, BufferedImage> bundle = null;
+        try {
+            bundle = TextureBundle.read(bundleFile, hash);
+        } catch (IOException e) {
+            System.err.println("Ignoring texture bundle: " + e.getLocalizedMessage());
+        } catch (RuntimeException e) {
+            // the pngs are still there, so a bundle that can't be read is only a slower start
+            System.err.println("Ignoring texture bundle: " + e);
+        }
+        if (bundle != null) {
+            Metrics.cache("textureBundle").hit();
+        } else {
+            Metrics.cache("textureBundle").miss();
+        }
+
+        // one task per file, already done if the image is from the bundle
+        final TreeMap<String, FutureTask<BufferedImage>> tasks = new TreeMap<String, FutureTask<BufferedImage>>();
+        for (String file : allFiles) {
+            BufferedImage img = (bundle == null) ? null : bundle.get(file);
+            FutureTask<BufferedImage> task = new FutureTask<BufferedImage>(new ImageReader(file, img));
+            if (img != null) task.run();
+            tasks.put(file, task);
+        }
+
+        InputStream mappingStream = classLoader.getResourceAsStream(ID_MAPPING_FILE);
+        if (mappingStream == null) {
+            throw new IOException("Could not find " + ID_MAPPING_FILE);
+        }
+        TextureMapping idMapping = new TextureMapping(mappingStream);
+
+        ExecutorService decoder = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ImageProvider decoder");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        try {
+            // load images
+            TreeMap<String, FutureTask<BufferedImage>> blocks =		getTasks(blockFiles, tasks);
+            TreeMap<String, FutureTask<BufferedImage>> additional =	getTasks(additionalFiles, tasks);
+            FutureTask<BufferedImage> fontTask = tasks.get(fontFile);
+            for (FutureTask<BufferedImage> task : blocks.values()) decoder.execute(task);
+            for (FutureTask<BufferedImage> task : additional.values()) decoder.execute(task);
+            decoder.execute(fontTask);
+
+            TreeMap<String, BufferedImage> additionalImages =	getDecodedImages(additional);
+            BufferedImage font = getDecodedImage(fontTask);
+            TreeMap<String, BufferedImage> blockImages =		getDecodedImages(blocks);
+
+            // load letters from font.png, a 16x16 grid of letters
+            int width = font.getWidth() / 16;
+            int height = font.getHeight() / 16;
+            BufferedImage[][] letterimages = new BufferedImage[16][];
+            for (int x = 0; x < 16; ++x) {
+                letterimages[x] = new BufferedImage[16];
+                for (int y = 0; y < 16; ++y) {
+                    letterimages[x][y] = font.getSubimage(x * width, y * height, width, height);
+                }
             }
+
+            textures = new Textures(blockImages, additionalImages, getTasks(itemFiles, tasks), getTasks(tooltipFiles, tasks),
+                    getTasks(redstoneFiles, tasks), letterimages, idMapping);
+            ToolTipCache.clear(); // the cached tooltips were drawn with the old textures
+            idMapping.computeAverageColors(BLOCK_ID_COUNT);
+        } finally {
+            decoder.shutdownNow();
+        }
+        timer.stop(start, allFiles.size());
+
+        if (bundle == null || bundle.size() != tasks.size()) {
+            // decode the rest and write the bundle for the next start
+            Thread writer = new Thread("ImageProvider bundle writer") {
+                @Override
+                public void run() {
+                    try {
+                        TreeMap<String, BufferedImage> images = new TreeMap<String, BufferedImage>();
+                        for (Map.Entry<String, FutureTask<BufferedImage>> entry : tasks.entrySet()) {
+                            entry.getValue().run(); // does nothing if it already ran
+                            images.put(entry.getKey(), getDecodedImage(entry.getValue()));
+                        }
+                        TextureBundle.write(bundleFile, hash, images);
+                    } catch (IOException e) {
+                        System.err.println("Could not write texture bundle: " + e.getLocalizedMessage());
+                    }
+                }
+            };
+            writer.setDaemon(true);
+            writer.setPriority(Thread.MIN_PRIORITY);
+            writer.start();
         }
     }
 
@@ -83,8 +237,8 @@ public class ImageProvider {
      * @param name the filename of the block image without extension
      * @return a 16x16 px image
      */
-    public static synchronized BufferedImage getImage(String name) {
-        return blockImages.get(name.toLowerCase());
+    public static BufferedImage getImage(String name) {
+        return textures.blockImages.get(name.toLowerCase());
     }
 
     /**
@@ -92,8 +246,8 @@ public class ImageProvider {
      * @param name the filename of the additional image without extension
      * @return a 16x16 px image
      */
-    public static synchronized BufferedImage getAdditionalImage(String name) {
-        return additionalImages.get(name.toLowerCase());
+    public static BufferedImage getAdditionalImage(String name) {
+        return textures.additionalImages.get(name.toLowerCase());
     }
 
     /**
@@ -101,17 +255,34 @@ public class ImageProvider {
      * @param name the filename of the item image without extension
      * @return a 16x16 px image
      */
-    public static synchronized BufferedImage getItemImage(String name) {
-        return itemImages.get(name.toLowerCase());
+    public static BufferedImage getItemImage(String name) {
+        return getLazyImage(textures.itemImages, name.toLowerCase());
+    }
+
+    /**
+     * Gets the sprites of the redstone directory.  Make sure not to change the returned references (only copies of them) or the provider will get compromised
+     * @return the images by lower case filename without extension, empty if the provider was not initialized
+     */
+    public static Map<String, BufferedImage> getRedstoneImages() {
+        Map<String, FutureTask<BufferedImage>> redstoneImages = textures.redstoneImages;
+        TreeMap<String, BufferedImage> images = new TreeMap<String, BufferedImage>();
+        for (String name : redstoneImages.keySet()) {
+            BufferedImage img = getLazyImage(redstoneImages, name);
+            if (img != null) images.put(name, img);
+        }
+        return images;
     }
 
     /**
      * returns an array of BufferedImages that consists of 8x8 px representations of the given (extended ASCII) text
      * @param text the text, has to be ext. ascii (code page 437)
      * @param color which color the text should be
-     * @return 8x8px letter-images for the input string. note that minecraft cuts off the last two pixels (which are empty for normal characters)
+     * @return 8x8px letter-images for the input string. note that minecraft cuts off the last two pixels (which are empty for normal characters).
+     *         The images are shared, don't change them
      */
-    public static synchronized BufferedImage[] stringToImage(String text, int color) {
+    public static BufferedImage[] stringToImage(String text, int color) {
+        Textures t = textures;
+        BufferedImage[][] letterimages = t.letterimages;
         if (letterimages == null) return null;
 
         byte[] ascii;
@@ -129,19 +300,26 @@ public class ImageProvider {
             byte character = ascii[i];
             // because the 256 characters are in a 16x16 grid and in the ASCII ordering, we can take the upper 4 bits as the vertical and the lower
             // 4 bits as the horizontal index
-            BufferedImage charImg = letterimages[character & 0x0F][character >> 4];
+            BufferedImage charImg = letterimages[character & 0x0F][(character >> 4) & 0x0F];
 
             // java seems to have no quick'n'easy way to replace a color, sooo.. instead of wasting time with a filter, color model stuff etc,
-            // let's do a boring old search'n'replace (shouldn't be too costly for an 8x8 image)
+            // let's do a boring old search'n'replace (shouldn't be too costly for an 8x8 image), once per letter and color
             if (color != 0xFFFFFFFF) {
-                charImg = copyImage(charImg);
-                for (int x = 0; x < charImg.getWidth(); ++x) {
-                    for (int y = 0; y < charImg.getWidth(); ++y) {
-                        if (charImg.getRGB(x, y) == 0xFFFFFFFF) {
-                            charImg.setRGB(x, y, color);
+                Long key = ((long)color << 8) | (character & 0xFF);
+                BufferedImage colored = t.coloredLetters.get(key);
+                if (colored == null) {
+                    colored = copyImage(charImg);
+                    for (int x = 0; x < colored.getWidth(); ++x) {
+                        for (int y = 0; y < colored.getHeight(); ++y) {
+                            if (colored.getRGB(x, y) == 0xFFFFFFFF) {
+                                colored.setRGB(x, y, color);
+                            }
                         }
                     }
+                    BufferedImage previous = t.coloredLetters.putIfAbsent(key, colored);
+                    if (previous != null) colored = previous;
                 }
+                charImg = colored;
             }
 
             imageText[i] = charImg;
@@ -154,8 +332,8 @@ public class ImageProvider {
      * Gets a copy of the tooltip image of the sign
      * @return the image
      */
-    public static synchronized BufferedImage getSignPlaneCopy() {
-        BufferedImage sign = tooltipImages.get("sign");
+    public static BufferedImage getSignPlaneCopy() {
+        BufferedImage sign = getLazyImage(textures.tooltipImages, "sign");
         if (sign == null) return null;
         return copyImage(sign);
     }
@@ -164,8 +342,8 @@ public class ImageProvider {
      * Gets a copy of the tooltip image of the chest
      * @return the image
      */
-    public static synchronized BufferedImage getChestPlaneCopy() {
-        BufferedImage chest = tooltipImages.get("chest");
+    public static BufferedImage getChestPlaneCopy() {
+        BufferedImage chest = getLazyImage(textures.tooltipImages, "chest");
         if (chest == null) return null;
         return copyImage(chest);
     }
@@ -174,8 +352,8 @@ public class ImageProvider {
      * Gets a copy of the tooltip image of the dispenser
      * @return the image
      */
-    public static synchronized BufferedImage getDispenserPlaneCopy() {
-        BufferedImage dispenser = tooltipImages.get("dispenser");
+    public static BufferedImage getDispenserPlaneCopy() {
+        BufferedImage dispenser = getLazyImage(textures.tooltipImages, "dispenser");
         if (dispenser == null) return null;
         return copyImage(dispenser);
     }
@@ -184,8 +362,8 @@ public class ImageProvider {
      * Gets a copy of the tooltip image of the hopper
      * @return the image
      */
-    public static synchronized BufferedImage getHopperPlaneCopy() {
-        BufferedImage dispenser = tooltipImages.get("hopper");
+    public static BufferedImage getHopperPlaneCopy() {
+        BufferedImage dispenser = getLazyImage(textures.tooltipImages, "hopper");
         if (dispenser == null) return null;
         return copyImage(dispenser);
     }
@@ -194,8 +372,8 @@ public class ImageProvider {
      * Gets a copy of the tooltip image of the brewing stand
      * @return the image
      */
-    public static synchronized BufferedImage getBrewingStandPlaneCopy() {
-        BufferedImage brewingStand = tooltipImages.get("brewingstand");
+    public static BufferedImage getBrewingStandPlaneCopy() {
+        BufferedImage brewingStand = getLazyImage(textures.tooltipImages, "brewingstand");
         if (brewingStand == null) return null;
         return copyImage(brewingStand);
     }
@@ -204,7 +382,7 @@ public class ImageProvider {
      * @return true if images are activated
      */
     public static boolean isActivated() {
-        return !itemImages.isEmpty();
+        return textures.letterimages != null;
     }
 
     /**
@@ -219,18 +397,93 @@ public class ImageProvider {
         return copy;
     }
 
+    /**
+     * Zooms the given image (returns new image instance). The pixels are not interpolated, so the textures stay sharp: zooming
+     * by whole multiples of the image size repeats every pixel, other zoom values take the nearest pixel
+     * @param zoom
+     * @param img
+     * @return a zoomed TYPE_INT_ARGB instance
+     * @see #zoom(float, BufferedImage, boolean)
+     */
+    public static BufferedImage zoom(float zoom, final BufferedImage img) {
+        return zoom(zoom, img, false);
+    }
+
+    /**
+     * Reads the pixels of an image, straight from the raster for the types the textures have
+     * @param img the image
+     * @return the non-premultiplied ARGB values, row by row
+     */
+    private static int[] getARGB(BufferedImage img) {
+        int w = img.getWidth();
+        int h = img.getHeight();
+        switch (img.getType()) {
+            case BufferedImage.TYPE_INT_ARGB:
+                return (int[])img.getRaster().getDataElements(0, 0, w, h, null);
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+                byte[] rgba = (byte[])img.getRaster().getDataElements(0, 0, w, h, null); // by band: red, green, blue, alpha
+                int[] argb = new int[w * h];
+                for (int i = 0, j = 0; i < argb.length; ++i, j += 4) {
+                    argb[i] = (rgba[j + 3] & 0xFF) << 24 | (rgba[j] & 0xFF) << 16 | (rgba[j + 1] & 0xFF) << 8 | (rgba[j + 2] & 0xFF);
+                }
+                return argb;
+            }
+            default:
+                return img.getRGB(0, 0, w, h, null, 0, w);
+        }
+    }
+
     /**
      * Zooms the given image (returns new image instance)
      * @param zoom
      * @param img
+     * @param smooth true to interpolate bicubically, e.g. for printing, false for the nearest pixel
      * @return a zoomed instance
      */
-    public static BufferedImage zoom(float zoom, final BufferedImage img) {
-        double fullZoomX = zoom * DEFAULT_IMAGE_SIZE.width / img.getWidth();
-        double fullZoomY = zoom * DEFAULT_IMAGE_SIZE.height / img.getHeight();
+    public static BufferedImage zoom(float zoom, final BufferedImage img, boolean smooth) {
         int width = Math.round(zoom * DEFAULT_IMAGE_SIZE.width);
         int height = Math.round(zoom * DEFAULT_IMAGE_SIZE.height);
 
+        if (!smooth) {
+            int srcWidth = img.getWidth();
+            int srcHeight = img.getHeight();
+            int[] src = getARGB(img);
+            BufferedImage newImg = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            int[] dst = ((DataBufferInt) newImg.getRaster().getDataBuffer()).getData();
+
+            if (width % srcWidth == 0 && height % srcHeight == 0) {
+                // whole multiples: every pixel becomes a factorX x factorY square, so build one row and copy it
+                int factorX = width / srcWidth;
+                int factorY = height / srcHeight;
+                for (int y = 0; y < srcHeight; ++y) {
+                    int row = y * factorY * width;
+                    for (int x = 0; x < srcWidth; ++x) {
+                        Arrays.fill(dst, row + x * factorX, row + (x + 1) * factorX, src[y * srcWidth + x]);
+                    }
+                    for (int i = 1; i < factorY; ++i) {
+                        System.arraycopy(dst, row, dst, row + i * width, width);
+                    }
+                }
+            } else {
+                // the pixel under the center of every new pixel
+                int[] columns = new int[width];
+                for (int x = 0; x < width; ++x) {
+                    columns[x] = (int)(((2L * x + 1) * srcWidth) / (2L * width));
+                }
+                for (int y = 0; y < height; ++y) {
+                    int srcRow = (int)(((2L * y + 1) * srcHeight) / (2L * height)) * srcWidth;
+                    int row = y * width;
+                    for (int x = 0; x < width; ++x) {
+                        dst[row + x] = src[srcRow + columns[x]];
+                    }
+                }
+            }
+            return newImg;
+        }
+
+        double fullZoomX = zoom * DEFAULT_IMAGE_SIZE.width / img.getWidth();
+        double fullZoomY = zoom * DEFAULT_IMAGE_SIZE.height / img.getHeight();
+
         BufferedImage newImg = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
         Graphics2D g2d = newImg.createGraphics();
 
@@ -268,42 +521,39 @@ public class ImageProvider {
     /**
      * Uses multiply to blend this image with the given color (same effect as a layer filled with a color set to multiply in GIMP)
      * A new image instance will be returned, the original image will not be changed.
+     * The results are cached per source image and color, so don't change the returned image either.
+     * The pixels are computed by BufferedImageColorFilter.multiply()
      * @param source the image to be used for the multiply
      * @param overlayColor the color to be used for the multiply
      * @return the resulting image
-     * @throws InterruptedException
      */
-    public static BufferedImage multiplyImage(final BufferedImage source, Color overlayColor) throws InterruptedException {
+    public static BufferedImage multiplyImage(final BufferedImage source, Color overlayColor) {
         if (source == null) return null;
 
-        int width = source.getWidth();
-        int height = source.getHeight();
-
-        // get original pixels
-        int[] pixels = new int[width * height];
-        PixelGrabber pixelGrabber = new PixelGrabber(source, 0, 0, width, height, pixels, 0, width);
-        pixelGrabber.grabPixels();
-
-        // generate color array (BlendComposite handles alpha in the overlay not correctly, treats it as black,
-        // therefore there has to be no color in the overlay in the transparent areas of the source) 
-        int[] colorPixels = new int[width * height];
-        for (int i = 0; i < pixels.length; ++i) {
-            boolean isAlpha = (pixels[i] >> 32) == 0;
-            colorPixels[i] = isAlpha ? pixels[i] : overlayColor.getRGB();
+        Integer colorKey = overlayColor.getRGB();
+        synchronized (multipliedImages) {
+            HashMap<Integer, BufferedImage> byColor = multipliedImages.get(source);
+            BufferedImage coloredImg = (byColor == null) ? null : byColor.get(colorKey);
+            if (coloredImg != null) {
+                Metrics.cache("multipliedImages").hit();
+                return coloredImg;
+            }
         }
 
-        // make new image with the same size and fill overlap with color
-        BufferedImage overlay = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB); // must be INT
-        overlay.setRGB(0, 0, width, height, colorPixels, 0, width);
-
-        // multiply
-        BufferedImage coloredImg = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB); // must be INT
-        Graphics2D coloredGraphics = coloredImg.createGraphics();
-
-        coloredGraphics.drawRenderedImage(source, null);
-        coloredGraphics.setComposite(BlendComposite.Multiply.derive(1f));
-        coloredGraphics.drawRenderedImage(overlay, null);
-        return coloredImg;
+        // tint without holding the lock, if another thread was faster its image is used
+        Metrics.cache("multipliedImages").miss();
+        BufferedImage coloredImg = BufferedImageColorFilter.tint(source, overlayColor);
+        synchronized (multipliedImages) {
+            HashMap<Integer, BufferedImage> byColor = multipliedImages.get(source);
+            if (byColor == null) {
+                byColor = new HashMap<Integer, BufferedImage>();
+                multipliedImages.put(source, byColor);
+            }
+            BufferedImage existing = byColor.get(colorKey);
+            if (existing != null) return existing;
+            byColor.put(colorKey, coloredImg);
+            return coloredImg;
+        }
     }
 
     /**
@@ -317,7 +567,7 @@ public class ImageProvider {
      * @param id
      * @return an image representing the block. DO NOT CHANGE THIS IMAGE as all block instances will use it
      */
-    public static synchronized BufferedImage getImageByBlockOrItemID(short id) {
+    public static BufferedImage getImageByBlockOrItemID(short id) {
         return getImageByBlockOrItemID(id, (byte)-1);
     }
 
@@ -325,554 +575,62 @@ public class ImageProvider {
      * Returns an image representing the given ID. Note that only images on zoom level 1 are returned, and that additional overlays, like the direction,
      * are not added. The image returned is exactly as the one in minecrafts texture directory with the exception of stairs and slabs/double slabs
      * (there is no stair image in the files, it's just a normal block with one edge cut out, and all slabs beside stone slabs also just use the normal
-     * block image cut in half).
+     * block image cut in half). Which image stands for which id and data value is defined in ID_MAPPING_FILE.
      * @param id
      * @param data the block data or -1 for default value of this block (like the image for white wool for a wool block)
      * @return an image representing the block. DO NOT CHANGE THIS IMAGE as all block instances will use it
      */
-    public static synchronized BufferedImage getImageByBlockOrItemID(short id, byte data) {
-        switch(id) {
-            case 0:		return ImageProvider.getAdditionalImage("air");
-            case 1:		return ImageProvider.getImage("stone");
-            case 2:		return ImageProvider.getAdditionalImage("grass");
-            case 3:		return ImageProvider.getImage("dirt");
-            case 4:		return ImageProvider.getImage("stonebrick"); // Cobblestone
-            case 5:	// Wooden Plank
-                switch(data) {
-                    case 1:	return ImageProvider.getImage("wood_spruce");
-                    case 2:	return ImageProvider.getImage("wood_birch");
-                    case 3:	return ImageProvider.getImage("wood_jungle");
-                    case 0:
-                    default:	return ImageProvider.getImage("wood"); // oak
-                }
-            case 6:	// Sapling
-                switch(data) {
-                    case 1:	return ImageProvider.getImage("sapling_spruce");
-                    case 2:	return ImageProvider.getImage("sapling_birch");
-                    case 3:	return ImageProvider.getImage("sapling_jungle");
-                    case 0:
-                    default:	return ImageProvider.getImage("sapling"); // oak
-                }
-            case 7:		return ImageProvider.getImage("bedrock");
-            case 8:
-            case 9:		return ImageProvider.getAdditionalImage("water");
-            case 10:
-            case 11:	return ImageProvider.getAdditionalImage("lava");
-            case 12:	return ImageProvider.getImage("sand");
-            case 13:	return ImageProvider.getImage("gravel");
-            case 14:	return ImageProvider.getImage("oreGold");
-            case 15:	return ImageProvider.getImage("oreIron");
-            case 16:	return ImageProvider.getImage("oreCoal");
-            case 17: // Wood (Log)
-                byte typedata = (byte)(data & 0x3);
-                switch(typedata) {
-                    case 1:	return ImageProvider.getImage("tree_spruce");
-                    case 2:	return ImageProvider.getImage("tree_birch");
-                    case 3:	return ImageProvider.getImage("tree_jungle");
-                    case 0:
-                    default:	return ImageProvider.getImage("tree_side"); // Oak
-                }
+    public static BufferedImage getImageByBlockOrItemID(short id, byte data) {
+        TextureMapping idMapping = textures.idMapping;
+        if (idMapping == null) return null;
+        return idMapping.getImage(id, data);
+    }
 
-            case 18:	return ImageProvider.getAdditionalImage("leaves");	// (use same image for all leaf-types)
-            case 19:	return ImageProvider.getImage("sponge");
-            case 20:	return ImageProvider.getImage("glass");
-            case 21:	return ImageProvider.getImage("oreLapis"); // Lapis Lazuli ore
-            case 22:	return ImageProvider.getImage("blockLapis"); // Lapis Lazuli Block
-            case 23:	return ImageProvider.getImage("dispenser_front");
-            case 24:
-                switch(data) {
-                    case 1:	return ImageProvider.getImage("sandstone_carved");
-                    case 2:	return ImageProvider.getImage("sandstone_smooth");
-                    case 0:
-                    default:	return ImageProvider.getImage("sandstone_side");
-                }
-            case 25:	return ImageProvider.getImage("musicBlock");
-            case 26: // Bed
-                if ((data & 8) == 0) { // foot
-                    return ImageProvider.getImage("bed_feet_top");
-                }
-                return ImageProvider.getImage("bed_head_top");
-            case 27: // Powered rails
-                if ((data & 8) == 0) { // off
-                    return ImageProvider.getImage("goldenRail");
-                }
-                return ImageProvider.getImage("goldenRail_powered");
-            case 28:	return ImageProvider.getImage("detectorRail");
-            case 29:													// Sticky piston (uses same image as normal piston)
-            case 33:													// Normal piston
-                switch(data&7) {
-                    case 0:	return ImageProvider.getImage("piston_bottom");
-                    case 1:	return ImageProvider.getImage("piston_inner_top");
-                    default: // side (is turned in piston class)
-                        if ((data & 8) != 0) {
-                            return ImageProvider.getAdditionalImage("piston_side_extended");
-                        }
-                        return ImageProvider.getImage("piston_side");
-                }
-            case 30:	return ImageProvider.getImage("web");
-            case 31:	// Tall Grass
-                switch(data) {
-                    case 0:	return ImageProvider.getImage("deadbush");
-                    case 2:	return ImageProvider.getAdditionalImage("fern");
-                    case 1:
-                    default: return ImageProvider.getAdditionalImage("grass_tall");
-                }
-            case 32:	return ImageProvider.getImage("deadbush");
-            case 34: // Piston Extension
-                switch(data&7) {
-                    case 0:	return ImageProvider.getAdditionalImage("piston_extension_down");
-                    case 1: // up
-                        if ((data & 8) != 0) {
-                            return ImageProvider.getImage("piston_top_sticky");
-                        }
-                        return ImageProvider.getImage("piston_top");
-                    default:											// side
-                        if ((data & 8) != 0) {
-                            return ImageProvider.getAdditionalImage("piston_extension_sticky");
-                        }
-                        return ImageProvider.getAdditionalImage("piston_extension");
-                }
-            case 35: // wool
-                switch (data) {
-                    case 1:		return ImageProvider.getImage("cloth_1");	// orange
-                    case 2:		return ImageProvider.getImage("cloth_2");	// magenta
-                    case 3:		return ImageProvider.getImage("cloth_3");	// light blue
-                    case 4:		return ImageProvider.getImage("cloth_4");	// yellow
-                    case 5:		return ImageProvider.getImage("cloth_5");	// light green
-                    case 6:		return ImageProvider.getImage("cloth_6");	// pink
-                    case 7:		return ImageProvider.getImage("cloth_7");	// gray
-                    case 8:		return ImageProvider.getImage("cloth_8");	// light gray
-                    case 9:		return ImageProvider.getImage("cloth_9");	// cyan
-                    case 10:	return ImageProvider.getImage("cloth_10");	// purple
-                    case 11:	return ImageProvider.getImage("cloth_11");	// blue
-                    case 12:	return ImageProvider.getImage("cloth_12");	// brown
-                    case 13:	return ImageProvider.getImage("cloth_13");	// dark green
-                    case 14:	return ImageProvider.getImage("cloth_14");	// red
-                    case 15:	return ImageProvider.getImage("cloth_15");	// black
-                    case 0:
-                    default:	return ImageProvider.getImage("cloth_0");	// white
-                }
-            case 37:	return ImageProvider.getImage("flower"); // Yellow flower
-            case 38:	return ImageProvider.getImage("rose");
-            case 39:	return ImageProvider.getImage("mushroom_brown");
-            case 40:	return ImageProvider.getImage("mushroom_red");
-            case 41:	return ImageProvider.getImage("blockGold");
-            case 42:	return ImageProvider.getImage("blockIron");
-            case 43:// stone doubleslab
-            case 44:// stone slab
-                // all double slabs beside stone look just like the regular blocks and the slabs like half of the regular blocks
-                // it makes no sense to do that here so for this one block, we use the blocks getImage functionality
-                byte slabdata = (data < 0 || data > 6) ? 0 : data;
-                return new StoneSlab(id, slabdata).getImage(1);
-            case 45:	return ImageProvider.getImage("brick");
-            case 46:	return ImageProvider.getImage("tnt_side");
-            case 47:	return ImageProvider.getImage("bookshelf");
-            case 48:	return ImageProvider.getImage("stoneMoss");
-            case 49:	return ImageProvider.getImage("obsidian");
-            case 50:	return ImageProvider.getImage("torch");
-            case 51:	return ImageProvider.getAdditionalImage("fire");
-            case 52:	return ImageProvider.getImage("mobSpawner");
-            case 53: // oak wood stair
-            case 67: // cobble stair
-            case 108: // brick stair
-            case 109: // stone brick stair
-            case 114: // nether brick stair
-            case 128: // sandstone stair
-            case 134: // spruce wood stair
-            case 135: // birch wood stair
-            case 136: // jungle wood stair
-            case 156: // quartz
-                // for the stairs, one edge has to be cut off. since the edge is cut off according to its direction,
-                // it makes no sense to do that here so for this block, we use the blocks getImage functionality (data 0 = direction E)
-                return new Stair(id, (byte)0).getImage(1);
-            case 54:	return ImageProvider.getAdditionalImage("chest");
-            case 55:													// redstone wire
-                if (data < 1) { // off
-                    return ImageProvider.getAdditionalImage("redstone_wire_off");
-                }
-                return ImageProvider.getAdditionalImage("redstone_wire_on");
-            case 56:	return ImageProvider.getImage("oreDiamond");
-            case 57:	return ImageProvider.getImage("blockDiamond");
-            case 58:	return ImageProvider.getImage("workbench_top");
-            case 59: // Crops
-                switch(data) {
-                    case 0: // crops below 3 are so tiny that you
-                    case 1: // wouldn't recognise them, so we
-                    case 2: // start at 3
-                    case 3:	return ImageProvider.getImage("crops_3");
-                    case 4:	return ImageProvider.getImage("crops_4");
-                    case 5:	return ImageProvider.getImage("crops_5");
-                    case 6:	return ImageProvider.getImage("crops_6");
-                    case 7:
-                    default:	return ImageProvider.getImage("crops_7");
-                }
-            case 60: // farmland
-                if (data >= 4) return ImageProvider.getImage("farmland_wet");
-                return ImageProvider.getImage("farmland_dry");
-            case 61:	return ImageProvider.getImage("furnace_front");
-            case 62:	return ImageProvider.getImage("furnace_front_lit");
-            case 63:	return ImageProvider.getItemImage("sign");
-            case 64: // wooden door
-                if ((data & 8) == 0) return ImageProvider.getImage("doorWood_lower");
-                return ImageProvider.getImage("doorWood_upper");
-            case 65:	return ImageProvider.getImage("ladder");
-            case 66: // rails
-                if (data <= 5) { // flat or ascending track
-                    return ImageProvider.getImage("rail");
-                }
-                return ImageProvider.getImage("rail_turn"); // corner
-            case 68:	return ImageProvider.getAdditionalImage("sign_wall");
-            case 69:	return ImageProvider.getImage("lever");
-            case 70:	return ImageProvider.getAdditionalImage("pressureplate_stone");
-            case 71: // iron door
-                if ((data & 8) == 0) return ImageProvider.getImage("doorIron_lower");
-                return ImageProvider.getImage("doorIron_upper");
-            case 72:	return ImageProvider.getAdditionalImage("pressureplate_wood");
-            case 73:	return ImageProvider.getImage("oreRedstone");
-            case 74:	return ImageProvider.getImage("oreRedstone"); // Glowing
-            case 75:	return ImageProvider.getImage("redtorch");
-            case 76:	return ImageProvider.getImage("redtorch_lit");
-            case 77:	return ImageProvider.getAdditionalImage("button");
-            case 78:	return ImageProvider.getImage("snow");
-            case 79:	return ImageProvider.getImage("ice");
-            case 80:	return ImageProvider.getImage("snow");
-            case 81:	return ImageProvider.getImage("cactus_side");
-            case 82:	return ImageProvider.getImage("clay");
-            case 83:	return ImageProvider.getImage("reeds");
-            case 84:	return ImageProvider.getImage("jukebox_top");
-            case 85:	return ImageProvider.getAdditionalImage("fence");
-            case 86:	return ImageProvider.getImage("pumpkin_top");
-            case 87:	return ImageProvider.getImage("hellrock"); // Netherrack
-            case 88:	return ImageProvider.getImage("hellsand"); // Soul Sand
-            case 89:	return ImageProvider.getImage("lightgem");			// Glowstone Block
-            case 90:	return ImageProvider.getAdditionalImage("portal");
-            case 91:	return ImageProvider.getImage("pumpkin_jack"); // Jack'o'lantern
-            case 92:	return ImageProvider.getImage("cake_side");
-            case 93:	return ImageProvider.getImage("repeater");
-            case 94:	return ImageProvider.getImage("repeater_lit");
-            case 95:	return ImageProvider.getAdditionalImage("chest"); // locked chest
-            case 96:	return ImageProvider.getImage("trapdoor");
-            case 98:
-                switch(data) {
-                    case 1:	return ImageProvider.getImage("stonebricksmooth_mossy");
-                    case 2:	return ImageProvider.getImage("stonebricksmooth_cracked");
-                    case 3:	return ImageProvider.getImage("stonebricksmooth_carved"); // chiseled
-                    case 0:
-                    default:	return ImageProvider.getImage("stonebricksmooth");
-                }
-            case 99: // huge brown mushroom
-            case 100:// huge red mushroom
-                switch(data) {
-                    case 0:		return ImageProvider.getImage("mushroom_inside");
-                    case 10:	return ImageProvider.getImage("mushroom_skin_stem");
-                    default: // hood piece
-                        if (id == 99) return ImageProvider.getImage("mushroom_skin_brown");
-                        return ImageProvider.getImage("mushroom_skin_red");
-                }
-            case 101:	return ImageProvider.getImage("fenceIron"); // Iron Bars
-            case 102:	return ImageProvider.getAdditionalImage("glass_pane");
-            case 103:	return ImageProvider.getImage("melon_top");
-            case 104: // Pumpkin Stem
-            case 105:	return ImageProvider.getAdditionalImage("melon_stem");
-            case 106:	return ImageProvider.getAdditionalImage("vine");
-            case 107:	return ImageProvider.getAdditionalImage("fence_gate");
-            case 110:	return ImageProvider.getImage("mycel_side");
-            case 111:	return ImageProvider.getAdditionalImage("waterlily");
-            case 112:	return ImageProvider.getImage("netherBrick");
-            case 113:	return ImageProvider.getAdditionalImage("fence_nether");
-            case 115: // Nether wart
-                switch(data) {
-                    case 0:	return ImageProvider.getImage("netherStalk_0");
-                    case 3:	return ImageProvider.getImage("netherStalk_2");
-                    default:	return ImageProvider.getImage("netherStalk_1");
-                }
-            case 116:	return ImageProvider.getImage("enchantment_top"); // Enchanting table
-            case 379:
-            case 117:	return ImageProvider.getItemImage("brewingStand");
-            case 118:	return ImageProvider.getItemImage("cauldron");
-            case 119:	return ImageProvider.getImage("dragonEgg"); // End Portal
-            case 120: // end portal frame
-                if ((data&4) != 0) return ImageProvider.getAdditionalImage("endframe_fixed");
-                return ImageProvider.getImage("endframe_top");
-            case 121:	return ImageProvider.getImage("whiteStone"); // End Stone
-            case 122:	return ImageProvider.getAdditionalImage("egg_dragon");
-            case 123:	return ImageProvider.getImage("redstoneLight"); // lamp
-            case 124:	return ImageProvider.getImage("redstoneLight_lit"); // lamp
-            case 125:// wooden doubleslab
-            case 126:// wooden slab
-                // all double slabs look just like the regular blocks and the slabs like half of the regular blocks
-                // it makes no sense to do that here so for this one block, we use the blocks getImage functionality
-                byte woodenslabdata = (data < 0 || data > 3) ? 0 : data;
-                return new WoodenSlab(id, woodenslabdata).getImage(1);
-            case 127:													// cocoa pod
-                switch(data >> 2) {
-                    case 1:		return ImageProvider.getAdditionalImage("cocoa_pod_medium");
-                    case 2:		return ImageProvider.getAdditionalImage("cocoa_pod_large");
-                    case 0:
-                    default:	return ImageProvider.getAdditionalImage("cocoa_pod_small");
-                }
-            case 129:	return ImageProvider.getImage("oreEmerald");
-            case 130:	return ImageProvider.getAdditionalImage("chest_ender");
-            case 131:	return ImageProvider.getImage("tripWireSource"); // hook
-            case 132:	return ImageProvider.getAdditionalImage("tripwire");
-            case 133:	return ImageProvider.getImage("blockEmerald");
-            case 137:	return ImageProvider.getImage("commandBlock");
-            case 138:	return ImageProvider.getImage("beacon");
-            case 139:
-                if (data == 1) return ImageProvider.getAdditionalImage("walls_mossycobble");
-                return ImageProvider.getAdditionalImage("walls_cobble");
-            case 140:	return ImageProvider.getItemImage("flowerPot");
-            case 141: // carrot
-                switch(data) {
-                    case 0:
-                    case 1:	return ImageProvider.getImage("carrots_0");
-                    case 2:
-                    case 3:	return ImageProvider.getImage("carrots_1");
-                    case 4:
-                    case 5:
-                    case 6:	return ImageProvider.getImage("carrots_2");
-                    case 7:
-                    default:	return ImageProvider.getImage("carrots_3");
-                }
-            case 142: // potatoes
-                switch(data) {
-                    case 0:
-                    case 1:	return ImageProvider.getImage("potatoes_0");
-                    case 2:
-                    case 3:	return ImageProvider.getImage("potatoes_1");
-                    case 4:
-                    case 5:
-                    case 6:	return ImageProvider.getImage("potatoes_2");
-                    case 7:
-                    default:	return ImageProvider.getImage("potatoes_3");
-                }
-            case 143:	return ImageProvider.getAdditionalImage("button_wood");
-            case 144:	return ImageProvider.getItemImage("skull_char"); // other heads determined trough tile entity
-            case 145:	return ImageProvider.getAdditionalImage("anvil");
-            case 146:	return ImageProvider.getAdditionalImage("chest_trapped");
-            case 147:	return ImageProvider.getAdditionalImage("weightedpressureplate_light");
-            case 148:	return ImageProvider.getAdditionalImage("weightedpressureplate_heavy");
-            case 149:	return ImageProvider.getImage("comparator");
-            case 150:	return ImageProvider.getImage("comparator_lit");
-            case 151:	return ImageProvider.getImage("daylightDetector_top");
-            case 152:	return ImageProvider.getImage("blockRedstone");
-            case 153:	return ImageProvider.getImage("netherquartz");
-            case 154:	return ImageProvider.getItemImage("hopper");
-            case 155:
-                switch (data) {
-                    case 1: return ImageProvider.getImage("quartzblock_chiseled");
-                    case 2: return ImageProvider.getImage("quartzblock_lines_top");
-                    case 3: return ImageProvider.rotateImage(90, ImageProvider.getImage("quartzblock_lines"));
-                    case 4: return ImageProvider.getImage("quartzblock_lines");
-                    case 0:
-                    default: return ImageProvider.getImage("quartzblock_side");
-                }
-            case 157: // Activator rails
-                if ((data & 8) == 0) { // off
-                    return ImageProvider.getImage("activatorRail");
-                }
-                return ImageProvider.getImage("activatorRail_powered");
-            case 158:	return ImageProvider.getImage("dropper_front");
-
-            // items
-            case 256:	return ImageProvider.getItemImage("shovelIron");
-            case 257:	return ImageProvider.getItemImage("pickaxeIron");
-            case 258:	return ImageProvider.getItemImage("hatchetIron");
-            case 259:	return ImageProvider.getItemImage("flintAndSteel");
-            case 260:	return ImageProvider.getItemImage("apple");
-            case 261:	return ImageProvider.getItemImage("bow");
-            case 262:	return ImageProvider.getItemImage("arrow");
-            case 263:	return ImageProvider.getItemImage("coal");
-            case 264:	return ImageProvider.getItemImage("diamond");
-            case 265:	return ImageProvider.getItemImage("ingotIron");
-            case 266:	return ImageProvider.getItemImage("ingotGold");
-            case 267:	return ImageProvider.getItemImage("swordIron");
-            case 268:	return ImageProvider.getItemImage("swordWood");
-            case 269:	return ImageProvider.getItemImage("shovelWood");
-            case 270:	return ImageProvider.getItemImage("pickaxeWood");
-            case 271:	return ImageProvider.getItemImage("hatchetWood");
-            case 272:	return ImageProvider.getItemImage("swordStone");
-            case 273:	return ImageProvider.getItemImage("shovelStone");
-            case 274:	return ImageProvider.getItemImage("pickaxeStone");
-            case 275:	return ImageProvider.getItemImage("hatchetStone");
-            case 276:	return ImageProvider.getItemImage("swordDiamond");
-            case 277:	return ImageProvider.getItemImage("shovelDiamond");
-            case 278:	return ImageProvider.getItemImage("pickaxeDiamond");
-            case 279:	return ImageProvider.getItemImage("hatchetDiamond");
-            case 280:	return ImageProvider.getItemImage("stick");
-            case 281:	return ImageProvider.getItemImage("bowl");
-            case 282:	return ImageProvider.getItemImage("mushroomStew");
-            case 283:	return ImageProvider.getItemImage("swordGold");
-            case 284:	return ImageProvider.getItemImage("shovelGold");
-            case 285:	return ImageProvider.getItemImage("pickaxeGold");
-            case 286:	return ImageProvider.getItemImage("hatchetGold");
-            case 287:	return ImageProvider.getItemImage("string");
-            case 288:	return ImageProvider.getItemImage("feather");
-            case 289:	return ImageProvider.getItemImage("sulphur");		// Gunpowder
-            case 290:	return ImageProvider.getItemImage("hoeWood");
-            case 291:	return ImageProvider.getItemImage("hoeStone");
-            case 292:	return ImageProvider.getItemImage("hoeIron");
-            case 293:	return ImageProvider.getItemImage("hoeDiamond");
-            case 294:	return ImageProvider.getItemImage("hoeGold");
-            case 295:	return ImageProvider.getItemImage("seeds");
-            case 296:	return ImageProvider.getItemImage("wheat");
-            case 297:	return ImageProvider.getItemImage("bread");
-            case 298:	return ImageProvider.getItemImage("helmetCloth");
-            case 299:	return ImageProvider.getItemImage("chestplateCloth");
-            case 300:	return ImageProvider.getItemImage("leggingsCloth");
-            case 301:	return ImageProvider.getItemImage("bootsCloth");
-            case 302:	return ImageProvider.getItemImage("helmetChain");
-            case 303:	return ImageProvider.getItemImage("chestplateChain");
-            case 304:	return ImageProvider.getItemImage("leggingsChain");
-            case 305:	return ImageProvider.getItemImage("bootsChain");
-            case 306:	return ImageProvider.getItemImage("helmetIron");
-            case 307:	return ImageProvider.getItemImage("chestplateIron");
-            case 308:	return ImageProvider.getItemImage("leggingsIron");
-            case 309:	return ImageProvider.getItemImage("bootsIron");
-            case 310:	return ImageProvider.getItemImage("helmetDiamond");
-            case 311:	return ImageProvider.getItemImage("chestplateDiamond");
-            case 312:	return ImageProvider.getItemImage("leggingsDiamond");
-            case 313:	return ImageProvider.getItemImage("bootsDiamond");
-            case 314:	return ImageProvider.getItemImage("helmetGold");
-            case 315:	return ImageProvider.getItemImage("chestplateGold");
-            case 316:	return ImageProvider.getItemImage("leggingsGold");
-            case 317:	return ImageProvider.getItemImage("bootsGold");
-            case 318:	return ImageProvider.getItemImage("flint");
-            case 319:	return ImageProvider.getItemImage("porkchopRaw");
-            case 320:	return ImageProvider.getItemImage("porkchopCooked");
-            case 321:	return ImageProvider.getItemImage("painting");
-            case 322:	return ImageProvider.getItemImage("appleGold");
-            case 323:	return ImageProvider.getItemImage("sign");
-            case 324:	return ImageProvider.getItemImage("doorWood");
-            case 325:	return ImageProvider.getItemImage("bucket");
-            case 326:	return ImageProvider.getItemImage("bucketWater");
-            case 327:	return ImageProvider.getItemImage("bucketLava");
-            case 328:	return ImageProvider.getItemImage("minecart");
-            case 329:	return ImageProvider.getItemImage("saddle");
-            case 330:	return ImageProvider.getItemImage("doorIron");
-            case 331:	return ImageProvider.getItemImage("redstone");
-            case 332:	return ImageProvider.getItemImage("snowball");
-            case 333:	return ImageProvider.getItemImage("boat");
-            case 334:	return ImageProvider.getItemImage("leather");
-            case 335:	return ImageProvider.getItemImage("milk");
-            case 336:	return ImageProvider.getItemImage("brick");
-            case 337:	return ImageProvider.getItemImage("clay");
-            case 338:	return ImageProvider.getItemImage("reeds"); // sugar cane
-            case 339:	return ImageProvider.getItemImage("paper");
-            case 340:	return ImageProvider.getItemImage("book");
-            case 341:	return ImageProvider.getItemImage("slimeball");
-            case 342:	return ImageProvider.getItemImage("minecartChest"); // Storage Minecart
-            case 343:	return ImageProvider.getItemImage("minecartFurnace"); // Powered Minecart
-            case 344:	return ImageProvider.getItemImage("egg");
-            case 345:	return ImageProvider.getAdditionalImage("compass");
-            case 346:	return ImageProvider.getItemImage("fishingRod");
-            case 347:	return ImageProvider.getAdditionalImage("clock");
-            case 348:	return ImageProvider.getItemImage("yellowDust"); // Glowstone dust
-            case 349:	return ImageProvider.getItemImage("fishRaw");
-            case 350:	return ImageProvider.getItemImage("fishCooked");
-            case 351: // dye
-                switch (data) {
-                    case 1:		return ImageProvider.getItemImage("dyePowder_red");			// Rose Red
-                    case 2:		return ImageProvider.getItemImage("dyePowder_green");		// Cactus Green
-                    case 3:		return ImageProvider.getItemImage("dyePowder_brown");		// Cocoa Beans
-                    case 4:		return ImageProvider.getItemImage("dyePowder_blue");		// Lapis Lazuli
-                    case 5:		return ImageProvider.getItemImage("dyePowder_purple");
-                    case 6:		return ImageProvider.getItemImage("dyePowder_cyan");
-                    case 7:		return ImageProvider.getItemImage("dyePowder_silver");		// Light Gray Dye
-                    case 8:		return ImageProvider.getItemImage("dyePowder_gray");
-                    case 9:		return ImageProvider.getItemImage("dyePowder_pink");
-                    case 10:	return ImageProvider.getItemImage("dyePowder_lime");
-                    case 11:	return ImageProvider.getItemImage("dyePowder_yellow");		// Dandelion Yellow
-                    case 12:	return ImageProvider.getItemImage("dyePowder_lightBlue");
-                    case 13:	return ImageProvider.getItemImage("dyePowder_magenta");
-                    case 14:	return ImageProvider.getItemImage("dyePowder_orange");
-                    case 15:	return ImageProvider.getItemImage("dyePowder_white");		// Bone Meal
-                    case 0:
-                    default:		return ImageProvider.getItemImage("dyePowder_black");	// Ink Sac
-                }
+    /**
+     * Returns the average color of the image of the given ID, see getImageByBlockOrItemID(). The colors of all blocks are computed
+     * when the provider is initialized
+     * @param id the block or item id
+     * @param data the block data or -1 for default value of this block
+     * @return the color as non-premultiplied ARGB, 0 (transparent) if images are deactivated
+     */
+    public static int getAverageColorByBlockOrItemID(short id, byte data) {
+        TextureMapping idMapping = textures.idMapping;
+        if (idMapping == null) return 0;
+        return idMapping.getAverageColor(id, data);
+    }
 
-            case 352:	return ImageProvider.getItemImage("bone");
-            case 353:	return ImageProvider.getItemImage("sugar");
-            case 354:	return ImageProvider.getItemImage("cake");
-            case 355:	return ImageProvider.getItemImage("bed");
-            case 356:	return ImageProvider.getItemImage("diode");	 // Redstone repeater
-            case 357:	return ImageProvider.getItemImage("cookie");
-            case 358:	return ImageProvider.getItemImage("map");
-            case 359:	return ImageProvider.getItemImage("shears");
-            case 360:	return ImageProvider.getItemImage("melon"); // Melon slice
-            case 361:	return ImageProvider.getItemImage("seeds_pumpkin");
-            case 362:	return ImageProvider.getItemImage("seeds_melon");
-            case 363:	return ImageProvider.getItemImage("beefRaw");
-            case 364:	return ImageProvider.getItemImage("beefCooked"); // Steak
-            case 365:	return ImageProvider.getItemImage("chickenRaw");
-            case 366:	return ImageProvider.getItemImage("chickenCooked");
-            case 367:	return ImageProvider.getItemImage("rottenFlesh");
-            case 368:	return ImageProvider.getItemImage("enderPearl");
-            case 369:	return ImageProvider.getItemImage("blazeRod");
-            case 370:	return ImageProvider.getItemImage("ghastTear");
-            case 371:	return ImageProvider.getItemImage("goldNugget");
-            case 372:	return ImageProvider.getItemImage("netherStalkSeeds"); // Nether Wart
-            case 373:
-            case 374:	return ImageProvider.getItemImage("glassBottle"); // Potion and glass bottle (color of potions is added in ItemPotion)
-            case 375:	return ImageProvider.getItemImage("spiderEye");
-            case 376:	return ImageProvider.getItemImage("fermentedSpiderEye");
-            case 377:	return ImageProvider.getItemImage("blazePowder");
-            case 378:	return ImageProvider.getItemImage("magmaCream");
-            case 380:	return ImageProvider.getItemImage("cauldron");
-            case 381:	return ImageProvider.getItemImage("eyeOfEnder");
-            case 382:	return ImageProvider.getItemImage("speckledMelon"); // Glistening Melon
-            case 383:	return ImageProvider.getAdditionalImage("egg_spawn");
-            case 384:	return ImageProvider.getItemImage("expBottle");	 // Bottle o' Enchanting
-            case 385:	return ImageProvider.getItemImage("fireball"); // Fire Charge
-            case 386:	return ImageProvider.getItemImage("writingBook"); // Book and Quill
-            case 387:	return ImageProvider.getItemImage("writtenBook");
-            case 388:	return ImageProvider.getItemImage("emerald");
-            case 389:	return ImageProvider.getItemImage("frame");
-            case 390:	return ImageProvider.getItemImage("flowerPot");
-            case 391:	return ImageProvider.getItemImage("carrots");
-            case 392:	return ImageProvider.getItemImage("potato");
-            case 393:	return ImageProvider.getItemImage("potatoBaked");
-            case 394:	return ImageProvider.getItemImage("potatoPoisonous");
-            case 395:	return ImageProvider.getItemImage("emptyMap");
-            case 396:	return ImageProvider.getItemImage("carrotGolden");
-            case 397: // heads
-                switch (data) {
-                    case 0:		return ImageProvider.getItemImage("skull_skeleton");
-                    case 1:		return ImageProvider.getItemImage("skull_wither");
-                    case 2:		return ImageProvider.getItemImage("skull_zombie");
-                    case 4:		return ImageProvider.getItemImage("skull_creeper");
-                    case 3:
-                    default:	return ImageProvider.getItemImage("skull_char");
-                }
-            case 398:	return ImageProvider.getItemImage("carrotOnAStick");
-            case 399:	return ImageProvider.getItemImage("netherStar");
-            case 400:	return ImageProvider.getItemImage("pumpkinPie");
-            case 401:	return ImageProvider.getItemImage("fireworks");
-            case 402:	return ImageProvider.getItemImage("fireworksCharge");
-            case 403:	return ImageProvider.getItemImage("enchantedBook");
-            case 404:	return ImageProvider.getItemImage("comparator");
-            case 405:	return ImageProvider.getItemImage("netherbrick");
-            case 406:	return ImageProvider.getItemImage("netherquartz");
-            case 407:	return ImageProvider.getItemImage("minecartTnt");
-            case 408:	return ImageProvider.getItemImage("minecartHopper");
-            case 2256:	return ImageProvider.getItemImage("record_13");
-            case 2257:	return ImageProvider.getItemImage("record_cat");
-            case 2258:	return ImageProvider.getItemImage("record_blocks");
-            case 2259:	return ImageProvider.getItemImage("record_chirp");
-            case 2260:	return ImageProvider.getItemImage("record_far");
-            case 2261:	return ImageProvider.getItemImage("record_mall");
-            case 2262:	return ImageProvider.getItemImage("record_mellohi");
-            case 2263:	return ImageProvider.getItemImage("record_stal");
-            case 2264:	return ImageProvider.getItemImage("record_strad");
-            case 2265:	return ImageProvider.getItemImage("record_ward");
-            case 2266:	return ImageProvider.getItemImage("record_11");
-            case 2267:	return ImageProvider.getItemImage("record_wait");
-            default:	return ImageProvider.getAdditionalImage("unknown");
+    /**
+     * Computes the average color of an image, weighted by alpha so transparent pixels don't darken it
+     * @param img the image
+     * @return the color as non-premultiplied ARGB, its alpha is the average alpha of the image
+     */
+    public static int getAverageColor(BufferedImage img) {
+        int w = img.getWidth();
+        int h = img.getHeight();
+        int[] argb = img.getRGB(0, 0, w, h, null, 0, w);
+        long a = 0, r = 0, g = 0, b = 0;
+        for (int c : argb) {
+            int alpha = c >>> 24;
+            a += alpha;
+            r += ((c >> 16) & 0xFF) * alpha;
+            g += ((c >> 8) & 0xFF) * alpha;
+            b += (c & 0xFF) * alpha;
         }
+        if (a == 0) return 0;
+        int avgA = (int)((a + argb.length / 2) / argb.length);
+        return (avgA << 24) | (int)((r + a / 2) / a) << 16 | (int)((g + a / 2) / a) << 8 | (int)((b + a / 2) / a);
     }
 
-    private static TreeMap<String, BufferedImage> getImagesFromJarDir(ClassLoader classLoader, String dirPath) throws IOException, URISyntaxException {
-        TreeMap<String, BufferedImage> images = new TreeMap<String, BufferedImage>();
+    /**
+     * Lists the png images of the given directory
+     * @param classLoader
+     * @param dirPath the directory
+     * @return the resource paths by lower case file name without extension
+     * @throws IOException
+     * @throws URISyntaxException
+     */
+    private static TreeMap<String, String> getImagesFromJarDir(ClassLoader classLoader, String dirPath) throws IOException, URISyntaxException {
+        TreeMap<String, String> images = new TreeMap<String, String>();
         String paramPath = dirPath;
         if (!paramPath.endsWith("/")) paramPath += "/";
 
@@ -881,14 +639,106 @@ public class ImageProvider {
         for (String fileName : fileNames) {
             if (!fileName.endsWith(".png")) continue;
 
-            // save the name and the image to the map
-            BufferedImage img = ImageIO.read(ClassLoader.getSystemResource(paramPath + fileName));
+            // save the name and the path to the map
+            String path = paramPath + fileName;
             fileName = fileName.substring(0, fileName.lastIndexOf('.')).toLowerCase();
-            images.put(fileName, img);
+            images.put(fileName, path);
         }
         return images;
     }
 
+    /**
+     * Picks the decoding tasks of the given files
+     * @param files the resource paths by name
+     * @param tasks the tasks by resource path
+     * @return the tasks by name
+     */
+    private static TreeMap<String, FutureTask<BufferedImage>> getTasks(TreeMap<String, String> files, TreeMap<String, FutureTask<BufferedImage>> tasks) {
+        TreeMap<String, FutureTask<BufferedImage>> result = new TreeMap<String, FutureTask<BufferedImage>>();
+        for (Map.Entry<String, String> entry : files.entrySet()) {
+            result.put(entry.getKey(), tasks.get(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Waits for all the given decoding tasks
+     * @param tasks the tasks by name
+     * @return the images by name
+     * @throws IOException if an image could not be read
+     */
+    private static TreeMap<String, BufferedImage> getDecodedImages(TreeMap<String, FutureTask<BufferedImage>> tasks) throws IOException {
+        TreeMap<String, BufferedImage> images = new TreeMap<String, BufferedImage>();
+        for (Map.Entry<String, FutureTask<BufferedImage>> entry : tasks.entrySet()) {
+            images.put(entry.getKey(), getDecodedImage(entry.getValue()));
+        }
+        return images;
+    }
+
+    /**
+     * Waits for the given decoding task
+     * @param task the task
+     * @return the image
+     * @throws IOException if the image could not be read
+     */
+    private static BufferedImage getDecodedImage(FutureTask<BufferedImage> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading images");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException)e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets an image that is decoded on its first use. The decoding runs on the calling thread
+     * @param images the decoding tasks by name
+     * @param name the lower case name
+     * @return the image or null if there is none or it could not be read
+     */
+    private static BufferedImage getLazyImage(Map<String, FutureTask<BufferedImage>> images, String name) {
+        FutureTask<BufferedImage> task = images.get(name);
+        if (task == null) return null;
+        task.run(); // does nothing if it already ran
+        try {
+            return getDecodedImage(task);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Reads an image from the class path, unless it's already known from the texture bundle. The images are
+     * converted to TYPE_INT_ARGB, the type of the images from the bundle
+     * @author klaue
+     */
+    private static class ImageReader implements Callable<BufferedImage> {
+        private String path;
+        private BufferedImage image;
+
+        ImageReader(String path, BufferedImage image) {
+            this.path = path;
+            this.image = image;
+        }
+
+        @Override
+        public BufferedImage call() throws IOException {
+            if (this.image != null) return this.image;
+
+            BufferedImage img = ImageIO.read(ClassLoader.getSystemResource(this.path));
+            if (img == null) throw new IOException("Could not decode " + this.path);
+            if (img.getType() == BufferedImage.TYPE_INT_ARGB) return img;
+
+            BufferedImage argb = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            argb.setRGB(0, 0, img.getWidth(), img.getHeight(), img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth()), 0, img.getWidth());
+            return argb;
+        }
+    }
+
     /**
      * List directory contents for a resource folder. Not recursive. This is
      * basically a brute-force implementation. Works for regular files and also
@@ -7,16 +7,18 @@ import javax.imageio.ImageIO
 import schematic.models.blocktypes.redstone._
 import java.awt.image.BufferedImage
 import java.awt._
-import schematic.common.CachedObject
+import schematic.common.{Metrics, CachedObject}
 import schematic.models.blocktypes.redstone.RedstoneComparator.{Compare, Subtract}
 import java.awt.RenderingHints._
 import schematic.models.blocktypes.redstone.RedstoneWire
 import schematic.models.blocktypes.redstone.RedstoneTorch
 import scala.Some
 import schematic.models.blocktypes.redstone.RedstoneRepeater
+import schematic.models.blocktypes.DirectionalBlock.Direction
+import scala.collection.concurrent.TrieMap
 
 object RedstoneImageProvider extends CachedObject[RedstoneImageProvider] {
-    final val REDSTONE_IMAGES_DIRECTORY = s"${ImageProvider.IMAGE_DIRECTORY}/redstone/"
+    final val REDSTONE_IMAGES_DIRECTORY = ImageProvider.REDSTONE_IMAGES_DIRECTORY
     final val IMAGE_EXTENSIONS = Array("png", "jpg")
 
     // image resources are 128x128 by default
@@ -28,9 +30,42 @@ object RedstoneImageProvider extends CachedObject[RedstoneImageProvider] {
     override protected def create: RedstoneImageProvider = new RedstoneImageProvider()
     override def apply(): RedstoneImageProvider = super.apply()     // Java shenanigans
 
+    /**
+     * All states a redstone block can be drawn in: wires of every shape and strength, repeaters, torches
+     * and comparators in every direction and mode
+     */
+    lazy val ALL_STATES: Seq[Redstone] = {
+        val wireShapes =
+            Seq(Direction.N, Direction.E).map((_, true)) ++
+            Seq(Direction.N, Direction.S, Direction.E, Direction.W, Direction.NW, Direction.NE, Direction.SW,
+                Direction.SE, Direction.NONE).map((_, false))
+        val cardinals = Seq(North, East, South, West)
+
+        val wires = for {
+            (dir, isLine) <- wireShapes
+            strength <- 0 to Redstone.MAX_STRENGTH
+        } yield Redstone.javaWire(dir, isLine, strength.toByte)
+        val repeaters = for {
+            isOn <- Seq(false, true)
+            dir <- cardinals
+            delay <- 0 to 3
+        } yield RedstoneRepeater(isOn, dir, delay.toShort)
+        val torches = for {
+            isOn <- Seq(false, true)
+            dir <- None +: cardinals.map(Some(_))
+        } yield RedstoneTorch(isOn, dir)
+        val comparators = for {
+            isOn <- Seq(false, true)
+            dir <- cardinals
+            state <- Seq(Compare, Subtract)
+        } yield RedstoneComparator(isOn, dir, state)
+
+        (wires ++ repeaters ++ torches ++ comparators).distinct
+    }
+
     def createBlankImage() =
         new BufferedImage(
-            DEFAULT_IMAGE_SIZE.width, DEFAULT_IMAGE_SIZE.height, BufferedImage.TYPE_4BYTE_ABGR)
+            DEFAULT_IMAGE_SIZE.width, DEFAULT_IMAGE_SIZE.height, BufferedImage.TYPE_INT_ARGB)
 
     private def interpolate(start: Color, end: Color, amount: Float) = {
         def in(c1: Int, c2: Int) = c1 + Math.round(amount * (c2 - c1))
@@ -91,18 +126,26 @@ sealed class RedstoneImageProvider {
     import RedstoneImageProvider._
     import RenderingHints._
 
-    private val redstoneImages = fetchImagesFromDir(REDSTONE_IMAGES_DIRECTORY)
+    // the sprites come from the ImageProvider (and its texture bundle) if it was initialized
+    private val redstoneImages = ImageProvider.getRedstoneImages.asScala.toMap match {
+        case images if images.isEmpty => fetchImagesFromDir(REDSTONE_IMAGES_DIRECTORY)
+        case images => images
+    }
 
     private def fetchImagesFromDir(dir: String) = {
         val classLoader = Thread.currentThread().getContextClassLoader
         val directory = new File(classLoader.getResource(dir).toURI)
-        val imgListByName = FileUtils.listFiles(directory, IMAGE_EXTENSIONS, true).asScala.collect {
-            case imageFile: File =>
-                println(s"Loading image '${imageFile.getName}' found in '$dir'")
-                FilenameUtils.getBaseName(imageFile.getName) -> ImageIO.read(imageFile)
+        val imageFiles = FileUtils.listFiles(directory, IMAGE_EXTENSIONS, true).asScala.collect {
+            case imageFile: File => imageFile
+        }
+
+        // decode in parallel, the images are independent of each other
+        val imgListByName = imageFiles.toVector.par.map { imageFile =>
+            println(s"Loading image '${imageFile.getName}' found in '$dir'")
+            FilenameUtils.getBaseName(imageFile.getName) -> ImageIO.read(imageFile)
         }
 
-        imgListByName.toMap
+        imgListByName.seq.toMap
     }
 
     private def getImageByName(str: String) = {
@@ -111,7 +154,42 @@ sealed class RedstoneImageProvider {
         }
     }
 
-    def getImage(block: Redstone) = {
+    // the sprites of all states, rendered in parallel on first use
+    private lazy val sprites: Map[Redstone, BufferedImage] =
+        ALL_STATES.toVector.par.map(state => state -> renderImage(state)).seq.toMap
+
+    // the zoomed sprites of the last used zoom
+    @volatile private var zoomedSprites = (-1f, TrieMap.empty[Redstone, BufferedImage])
+
+    /**
+     * Gets the sprite of the given state. The image is shared, don't change it
+     */
+    def getImage(block: Redstone): BufferedImage =
+        sprites.getOrElse(block, renderImage(block))
+
+    /**
+     * Gets the sprite of the given state, zoomed. The image is shared, don't change it
+     */
+    def getImage(block: Redstone, zoom: Float): BufferedImage = {
+        val cache = zoomedSprites match {
+            case (cachedZoom, cached) if cachedZoom == zoom => cached
+            case _ =>
+                val cached = TrieMap.empty[Redstone, BufferedImage]
+                zoomedSprites = (zoom, cached)
+                cached
+        }
+        val stats = Metrics.imageCache(block.getClass)
+        cache.get(block) match {
+            case Some(image) =>
+                stats.hit()
+                image
+            case None =>
+                stats.miss()
+                cache.getOrElseUpdate(block, ImageProvider.zoom(zoom, getImage(block)))
+        }
+    }
+
+    private def renderImage(block: Redstone) = {
         val newImage = RedstoneImageProvider.createBlankImage()
         val g2d = newImage.createGraphics()
 
@@ -0,0 +1,260 @@
+package schematic.models.images;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+/**
+ * A cache file with already decoded textures, so the pngs don't have to be decoded on every start.
+ * The file holds a hash of the png files it was made from, an index (resource path, width and height of every image)
+ * and the raw ARGB values of all images. It is ignored as soon as the hash doesn't match the pngs anymore
+ * @author klaue
+ */
+class TextureBundle {
+    private static final int MAGIC = 0x53324254; // "S2BT"
+    private static final int VERSION = 1;
+    /** the largest width or height of an image in the bundle, anything above means the file is damaged */
+    private static final int MAX_IMAGE_SIZE = 4096;
+
+    private TextureBundle() {
+        // prevent instances
+    }
+
+    /**
+     * @return the bundle file in the home directory of the user
+     */
+    static File getDefaultFile() {
+        return new File(new File(System.getProperty("user.home"), ".schematic2blueprint"), "textures.bundle");
+    }
+
+    /**
+     * Calculates the hash over the names and the content of the given resources. This is a CRC32 and the length per resource,
+     * which is enough to notice changed textures. The directories are only looked up once on the class path, for jars the
+     * CRC32 of the jar entries is used
+     * @param classLoader
+     * @param resourcePaths the class path resources
+     * @return the hash
+     * @throws IOException if a resource could not be read
+     */
+    static byte[] hash(ClassLoader classLoader, Collection<String> resourcePaths) throws IOException {
+        ByteArrayOutputStream hash = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(hash);
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        HashMap<String, URL> dirs = new HashMap<String, URL>();
+        HashMap<String, JarFile> jars = new HashMap<String, JarFile>();
+
+        try {
+            for (String path : new TreeSet<String>(resourcePaths)) {
+                int slash = path.lastIndexOf('/');
+                String dirPath = path.substring(0, slash + 1);
+                String name = path.substring(slash + 1);
+                if (!dirs.containsKey(dirPath)) {
+                    dirs.put(dirPath, classLoader.getResource(dirPath));
+                }
+                URL dirURL = dirs.get(dirPath);
+
+                long value;
+                long length;
+                if (dirURL != null && dirURL.getProtocol().equals("jar")) {
+                    String jarPath = URLDecoder.decode(dirURL.getPath().substring(5, dirURL.getPath().indexOf("!")), "UTF-8");
+                    JarFile jar = jars.get(jarPath);
+                    if (jar == null) {
+                        jar = new JarFile(jarPath);
+                        jars.put(jarPath, jar);
+                    }
+                    JarEntry entry = jar.getJarEntry(path);
+                    if (entry == null) throw new IOException("Resource " + path + " not found");
+                    value = entry.getCrc();
+                    length = entry.getSize();
+                } else {
+                    InputStream in;
+                    if (dirURL != null && dirURL.getProtocol().equals("file")) {
+                        in = new FileInputStream(new File(toFile(dirURL), name));
+                    } else {
+                        in = ClassLoader.getSystemResourceAsStream(path);
+                        if (in == null) throw new IOException("Resource " + path + " not found");
+                    }
+                    crc.reset();
+                    length = 0;
+                    try {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            crc.update(buffer, 0, read);
+                            length += read;
+                        }
+                    } finally {
+                        in.close();
+                    }
+                    value = crc.getValue();
+                }
+                out.writeUTF(path);
+                out.writeInt((int) value);
+                out.writeInt((int) length);
+            }
+        } finally {
+            for (JarFile jar : jars.values()) {
+                jar.close();
+            }
+        }
+        out.close();
+        return hash.toByteArray();
+    }
+
+    private static File toFile(URL url) throws IOException {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reads the images from a bundle file. Every length and size in the file is checked against the size of the file,
+     * so a damaged file is reported as corrupt instead of running out of memory or failing somewhere else
+     * @param file the bundle file
+     * @param hash the expected hash
+     * @return the images by resource path, or null if there is no file or it was made from other pngs
+     * @throws IOException if the file could not be read or is corrupt
+     */
+    static TreeMap<String, BufferedImage> read(File file, byte[] hash) throws IOException {
+        if (!file.isFile()) return null;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            byte[] fileHash = new byte[checkLength(buffer.getInt(), buffer.remaining(), file)];
+            buffer.get(fileHash);
+            if (!Arrays.equals(hash, fileHash)) return null;
+
+            // an index entry has at least a length of the path, a width and a height
+            int count = checkLength(buffer.getInt(), buffer.remaining() / 10, file);
+            String[] paths = new String[count];
+            int[] widths = new int[count];
+            int[] heights = new int[count];
+            long pixelCount = 0;
+            for (int i = 0; i < count; ++i) {
+                byte[] path = new byte[checkLength(buffer.getShort() & 0xFFFF, buffer.remaining(), file)];
+                buffer.get(path);
+                paths[i] = new String(path, "UTF-8");
+                widths[i] = buffer.getInt();
+                heights[i] = buffer.getInt();
+                if (widths[i] <= 0 || heights[i] <= 0 || widths[i] > MAX_IMAGE_SIZE || heights[i] > MAX_IMAGE_SIZE) {
+                    throw corrupt(file);
+                }
+                pixelCount += (long) widths[i] * heights[i];
+            }
+            if (pixelCount > buffer.remaining() / 4) throw corrupt(file);
+
+            TreeMap<String, BufferedImage> images = new TreeMap<String, BufferedImage>();
+            IntBuffer pixels = buffer.slice().asIntBuffer();
+            for (int i = 0; i < count; ++i) {
+                BufferedImage img = new BufferedImage(widths[i], heights[i], BufferedImage.TYPE_INT_ARGB);
+                pixels.get(((DataBufferInt) img.getRaster().getDataBuffer()).getData());
+                images.put(paths[i], img);
+            }
+            return images;
+        } catch (RuntimeException e) {
+            // BufferUnderflowException and anything else a damaged file could cause
+            IOException corrupt = corrupt(file);
+            corrupt.initCause(e);
+            throw corrupt;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @return length if it is between 0 and max
+     * @throws IOException if it isn't
+     */
+    private static int checkLength(int length, int max, File file) throws IOException {
+        if (length < 0 || length > max) throw corrupt(file);
+        return length;
+    }
+
+    private static IOException corrupt(File file) {
+        return new IOException("Texture bundle " + file.getPath() + " is corrupt");
+    }
+
+    /**
+     * Writes the given images to a bundle file. The file is written to a temporary file first and then renamed,
+     * so a running read never sees a half written file
+     * @param file the bundle file
+     * @param hash the hash of the pngs the images were decoded from
+     * @param images the images by resource path
+     * @throws IOException if the file could not be written
+     */
+    static void write(File file, byte[] hash, Map<String, BufferedImage> images) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir.getPath());
+        }
+        File tmp = File.createTempFile("textures", ".tmp", dir);
+
+        boolean renamed = false;
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(hash.length);
+                out.write(hash);
+
+                out.writeInt(images.size());
+                for (Map.Entry<String, BufferedImage> entry : images.entrySet()) {
+                    byte[] path = entry.getKey().getBytes("UTF-8");
+                    out.writeShort(path.length);
+                    out.write(path);
+                    out.writeInt(entry.getValue().getWidth());
+                    out.writeInt(entry.getValue().getHeight());
+                }
+                for (BufferedImage img : images.values()) {
+                    int[] argb = img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
+                    for (int pixel : argb) {
+                        out.writeInt(pixel);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+
+            if (!tmp.renameTo(file)) {
+                // windows can't rename over an existing file
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Could not write " + file.getPath());
+                }
+            }
+            renamed = true;
+        } finally {
+            if (!renamed) tmp.delete(); // a failed write, e.g. a full disk, leaves no temporary file behind
+        }
+    }
+}
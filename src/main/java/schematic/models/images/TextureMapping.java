@@ -0,0 +1,212 @@
+package schematic.models.images;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import schematic.models.blocktypes.Block;
+import schematic.models.blocktypes.Stair;
+import schematic.models.blocktypes.StoneSlab;
+import schematic.models.blocktypes.WoodenSlab;
+
+/**
+ * The image for every block and item id and data value, as a table indexed by (id &lt;&lt; 4) | data. The table is built once
+ * from a mapping file (see images/textures/ids.txt) and every entry resolves its image on first use, so looking up an image is
+ * one array access. Item images stay lazy, they are not decoded before someone asks for them.<br>
+ * Every entry also knows the average color of its image, for overviews that draw one pixel per block
+ * @author klaue
+ */
+final class TextureMapping {
+    /** the highest id + 1 */
+    static final int ID_COUNT = 4096;
+
+    private final Entry[] table = new Entry[ID_COUNT << 4];	// by (id << 4) | data
+    private final Entry[] defaults = new Entry[ID_COUNT];	// by id, for data -1 and data values above 15
+    private final Entry unknown = new Entry(Source.ADDITIONAL, "unknown", (short)0);
+
+    private enum Source {
+        BLOCK, ADDITIONAL, ITEM, BLOCK90, STAIR, STONESLAB, WOODENSLAB
+    }
+
+    /**
+     * One image of the table, shared by all ids and data values that show it
+     */
+    private static final class Entry {
+        final Source source;
+        final String name;
+        final short id;
+        private volatile BufferedImage image = null;
+        private volatile Integer averageColor = null;
+
+        Entry(Source source, String name, short id) {
+            this.source = source;
+            this.name = name;
+            this.id = id;
+        }
+
+        BufferedImage getImage() {
+            BufferedImage img = this.image;
+            if (img == null) {
+                img = resolve();
+                this.image = img;
+            }
+            return img;
+        }
+
+        int getAverageColor() {
+            Integer color = this.averageColor;
+            if (color == null) {
+                BufferedImage img = getImage();
+                color = (img == null) ? 0 : ImageProvider.getAverageColor(img);
+                this.averageColor = color;
+            }
+            return color;
+        }
+
+        private BufferedImage resolve() {
+            switch (this.source) {
+                case BLOCK:			return ImageProvider.getImage(this.name);
+                case ADDITIONAL:	return ImageProvider.getAdditionalImage(this.name);
+                case ITEM:			return ImageProvider.getItemImage(this.name);
+                case BLOCK90: {
+                    BufferedImage img = ImageProvider.getImage(this.name);
+                    return (img == null) ? null : ImageProvider.rotateImage(90, img);
+                }
+                default:			break;
+            }
+
+            // stairs and slabs are cut out of other images according to their data, the blocks know how.
+            // This uses the image caches of the blocks, and the overviews resolve images on their own threads
+            synchronized (Block.IMAGE_LOCK) {
+                switch (this.source) {
+                    case STAIR:			return new Stair(this.id, Byte.parseByte(this.name)).getImage(1);
+                    case STONESLAB:		return new StoneSlab(this.id, Byte.parseByte(this.name)).getImage(1);
+                    case WOODENSLAB:	return new WoodenSlab(this.id, Byte.parseByte(this.name)).getImage(1);
+                    default:			return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the mapping
+     * @param in the mapping file, see images/textures/ids.txt for the format
+     * @throws IOException if the file can't be read or has errors
+     */
+    TextureMapping(InputStream in) throws IOException {
+        Arrays.fill(this.table, this.unknown);
+        Arrays.fill(this.defaults, this.unknown);
+
+        // lines without data values go first, so they don't overwrite the ones with data values
+        List<String[]> specific = new ArrayList<String[]>();
+        HashMap<String, Entry> entries = new HashMap<String, Entry>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                ++lineNumber;
+                int comment = line.indexOf('#');
+                if (comment >= 0) line = line.substring(0, comment);
+                line = line.trim();
+                if (line.isEmpty()) continue;
+
+                String[] parts = line.split("\\s+");
+                if (parts.length != 3) {
+                    throw new IOException("Line " + lineNumber + " of the texture mapping is not <id>[:<data>] <source> <name>");
+                }
+                try {
+                    String[] key = parts[0].split(":", 2);
+                    short id = Short.parseShort(key[0]);
+                    if (id < 0 || id >= ID_COUNT) throw new IOException("Id " + id + " on line " + lineNumber + " is out of range");
+                    Source source = Source.valueOf(parts[1].toUpperCase());
+
+                    // stairs and slabs need their own id, everything else is shared by name
+                    String entryKey = (source.ordinal() >= Source.STAIR.ordinal()) ? parts[1] + ' ' + parts[2] + ' ' + id : parts[1] + ' ' + parts[2];
+                    Entry entry = entries.get(entryKey);
+                    if (entry == null) {
+                        entry = new Entry(source, parts[2], id);
+                        entries.put(entryKey, entry);
+                    }
+
+                    if (key.length == 1) {
+                        this.defaults[id] = entry;
+                        Arrays.fill(this.table, id << 4, (id + 1) << 4, entry);
+                    } else {
+                        specific.add(new String[] {key[0], key[1], entryKey, Integer.toString(lineNumber)});
+                    }
+                } catch (IllegalArgumentException e) { // also NumberFormatException
+                    throw new IOException("Line " + lineNumber + " of the texture mapping: " + e.getMessage());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        for (String[] line : specific) {
+            int id = Integer.parseInt(line[0]);
+            Entry entry = entries.get(line[2]);
+            for (String values : line[1].split(",")) {
+                int dash = values.indexOf('-');
+                int from, to;
+                try {
+                    from = Integer.parseInt(dash < 0 ? values : values.substring(0, dash));
+                    to = (dash < 0) ? from : Integer.parseInt(values.substring(dash + 1));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid data values on line " + line[3] + " of the texture mapping: " + values);
+                }
+                if (from < 0 || to > 15 || from > to) {
+                    throw new IOException("Data values on line " + line[3] + " of the texture mapping have to be between 0 and 15");
+                }
+                Arrays.fill(this.table, (id << 4) | from, ((id << 4) | to) + 1, entry);
+            }
+        }
+    }
+
+    /**
+     * @param id the block or item id
+     * @param data the data value or -1 for the default
+     * @return the image, the unknown image for ids that are not in the mapping
+     */
+    BufferedImage getImage(short id, byte data) {
+        return getEntry(id, data).getImage();
+    }
+
+    /**
+     * @param id the block or item id
+     * @param data the data value or -1 for the default
+     * @return the alpha weighted average color of the image as non-premultiplied ARGB, see ImageProvider.getAverageColor()
+     */
+    int getAverageColor(short id, byte data) {
+        return getEntry(id, data).getAverageColor();
+    }
+
+    /**
+     * Computes the average colors of all blocks, so overviews don't have to resolve images while drawing
+     * @param idCount the highest block id + 1
+     */
+    void computeAverageColors(int idCount) {
+        // stairs and slabs are rendered as blocks to resolve their images, which uses the image caches of the blocks
+        synchronized (Block.IMAGE_LOCK) {
+            for (int i = 0; i < (Math.min(idCount, ID_COUNT) << 4); ++i) {
+                this.table[i].getAverageColor();
+            }
+        }
+    }
+
+    private Entry getEntry(short id, byte data) {
+        if (id < 0 || id >= ID_COUNT) {
+            return this.unknown;
+        } else if ((data & ~0xF) == 0) {
+            return this.table[(id << 4) | data];
+        } else {
+            return this.defaults[id];
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package schematic.models.itemtypes;
 
 import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
+import java.util.WeakHashMap;
 
+import schematic.common.Metrics;
 import schematic.models.images.ImageProvider;
 
 /**
@@ -13,8 +15,8 @@ import schematic.models.images.ImageProvider;
  */
 public class ColoredItem extends Item {
 	protected Color color = Color.WHITE;
-	protected static HashMap<Short, HashMap<Short, HashMap<Color, BufferedImage> > > coloredItemCache = new HashMap<Short, HashMap<Short, HashMap<Color, BufferedImage> > >();
-	protected static double coloredZoomCache = -1;
+	// images with the overlay drawn on top, by the (colored) image without overlay
+	private static WeakHashMap<BufferedImage, BufferedImage> overlayCache = new WeakHashMap<BufferedImage, BufferedImage>();
 	
 	/**
 	 * Generates a new Colored Item of type id, color white
@@ -83,55 +85,45 @@ public class ColoredItem extends Item {
 		return this.color.getRGB();
 	}
 	
+	/**
+	 * Returns the name of an item image that is drawn uncolored over the colored image, like the parts of leather armor
+	 * that don't take the color
+	 * @return the name of the overlay image or null for none
+	 */
+	protected String getOverlayName() {
+		return null;
+	}
+	
 	@Override
 	public synchronized BufferedImage getImage(float zoom) {
-		// don't bother even looking in the cache if uncolored (white), just take image from parent (and parentcache)
-		if (this.color.equals(Color.WHITE)) {
-			return super.getImage(zoom);
-		}
+		BufferedImage img = super.getImage(zoom);
 		
-		if (coloredZoomCache != zoom) {
-			// reset cache
-			coloredItemCache.clear();
-			coloredZoomCache = zoom;
-		} else {
-			if (coloredItemCache.containsKey(this.id) && coloredItemCache.get(this.id).containsKey(this.data)
-					&& coloredItemCache.get(this.id).get(this.data).containsKey(this.color)) {
-				return coloredItemCache.get(this.id).get(this.data).get(this.color);
-			}
+		// don't bother coloring if uncolored (white), just take image from parent (and parentcache)
+		// the colored images are cached by the ImageProvider, per image and color
+		if (!this.color.equals(Color.WHITE)) {
+			img = ImageProvider.multiplyImage(img, this.getColor());
 		}
 		
-		// image not in cache, make new
-		BufferedImage uncoloredImg = super.getImage(zoom);
-		if (uncoloredImg == null) return null;
-		
-		BufferedImage coloredImg = null;
-		try {
-			coloredImg = ImageProvider.multiplyImage(uncoloredImg, this.getColor());
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-			return uncoloredImg; // nothing to save in cache
-		}
+		String overlayName = getOverlayName();
+		if (img == null || overlayName == null) return img;
 		
-		// save image to cache
-		HashMap<Short,HashMap<Color,BufferedImage> > dmgMap = coloredItemCache.get(this.id);
-		if (dmgMap == null) {
-			dmgMap = new HashMap<Short,HashMap<Color,BufferedImage> >();
-			HashMap<Color, BufferedImage> colorMap = new HashMap<Color, BufferedImage>();
-			colorMap.put(this.color, coloredImg);
-			dmgMap.put(this.data, colorMap);
-			coloredItemCache.put(this.id, dmgMap);
-		} else {
-			HashMap<Color, BufferedImage> colorMap = dmgMap.get(this.data);
-			if (colorMap == null) {
-				colorMap = new HashMap<Color, BufferedImage>();
-				colorMap.put(this.color, coloredImg);
-				dmgMap.put(this.data, colorMap);
+		synchronized (overlayCache) {
+			BufferedImage withOverlay = overlayCache.get(img);
+			if (withOverlay != null) {
+				Metrics.cache("coloredItemOverlays").hit();
 			} else {
-				colorMap.put(this.color, coloredImg);
+				Metrics.cache("coloredItemOverlays").miss();
+				BufferedImage overlay = ImageProvider.getItemImage(overlayName);
+				withOverlay = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_ARGB);
+				Graphics2D g = withOverlay.createGraphics();
+				g.drawRenderedImage(img, null);
+				if (overlay != null) {
+					g.drawRenderedImage(ImageProvider.zoom(zoom, overlay), null);
+				}
+				g.dispose();
+				overlayCache.put(img, withOverlay);
 			}
+			return withOverlay;
 		}
-		
-		return coloredImg;
 	}
 }
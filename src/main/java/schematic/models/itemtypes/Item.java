@@ -3,6 +3,8 @@ package schematic.models.itemtypes;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 
+import schematic.common.Metrics;
+import schematic.models.blocktypes.Block;
 import schematic.models.images.ImageProvider;
 import schematic.models.NameProvider;
 
@@ -158,50 +160,70 @@ public class Item {
 		return true;
 	}
 	
+	/**
+	 * Counts a hit of the image cache of this item type, see Metrics#imageCache(Class)
+	 */
+	protected void imageCacheHit() {
+		Metrics.imageCache(getClass()).hit();
+	}
+	
+	/**
+	 * Counts a miss of the image cache of this item type, see Metrics#imageCache(Class)
+	 */
+	protected void imageCacheMiss() {
+		Metrics.imageCache(getClass()).miss();
+	}
+	
 	/**
 	 * Returns a BufferedImage representing the item
 	 * @param zoom the current zoom value (min 1, since a 16x16 image is small enough)
 	 * @return the BufferedImage or null if images are deactivated
 	 */
-	public synchronized BufferedImage getImage(float zoom) {
-		if (!ImageProvider.isActivated()) return null;
-		if (zoom <= 0) return null;
+	public BufferedImage getImage(float zoom) {
+		// the cache is static and tooltips are built while layers are rendered in the background, so lock it like the
+		// caches of the blocks
+		synchronized (Block.IMAGE_LOCK) {
+			if (!ImageProvider.isActivated()) return null;
+			if (zoom <= 0) return null;
 		
-		BufferedImage img = null;
+			BufferedImage img = null;
 		
-		if (zoomCache != zoom) {
-			// reset cache
-			imageCache.clear();
-			zoomCache = zoom;
-		} else {
-			if (imageCache.containsKey(this.id) && imageCache.get(this.id).containsKey(this.data)) {
-				return imageCache.get(this.id).get(this.data);
+			if (zoomCache != zoom) {
+				// reset cache
+				imageCache.clear();
+				zoomCache = zoom;
+			} else {
+				if (imageCache.containsKey(this.id) && imageCache.get(this.id).containsKey(this.data)) {
+					imageCacheHit();
+					return imageCache.get(this.id).get(this.data);
+				}
 			}
-		}
 		
-		// image not in cache, make new
-		// get image from imageprovider
-		img = ImageProvider.getImageByBlockOrItemID(this.id, (byte)this.data);
+			// image not in cache, make new
+			imageCacheMiss();
+			// get image from imageprovider
+			img = ImageProvider.getImageByBlockOrItemID(this.id, (byte)this.data);
 	
-		if (img == null) return null;
+			if (img == null) return null;
 	
-		// zoom
-		img = ImageProvider.zoom(zoom, img);
+			// zoom
+			img = ImageProvider.zoom(zoom, img);
 		
-		// add stacksize
-		// --> done in the tooltips because the shadow of the number is actually outside the image
+			// add stacksize
+			// --> done in the tooltips because the shadow of the number is actually outside the image
 
-		// save image to cache
-		HashMap<Short, BufferedImage> dmgMap = imageCache.get(this.id);
-		if (dmgMap == null) {
-			dmgMap = new HashMap<Short, BufferedImage>();
-			dmgMap.put(this.data, img);
-			imageCache.put(this.id, dmgMap);
-		} else {
-			dmgMap.put(this.data, img);
-		}
+			// save image to cache
+			HashMap<Short, BufferedImage> dmgMap = imageCache.get(this.id);
+			if (dmgMap == null) {
+				dmgMap = new HashMap<Short, BufferedImage>();
+				dmgMap.put(this.data, img);
+				imageCache.put(this.id, dmgMap);
+			} else {
+				dmgMap.put(this.data, img);
+			}
 		
-		return img;
+			return img;
+		}
 	}
 
 	/**
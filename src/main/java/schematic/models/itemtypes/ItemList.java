@@ -0,0 +1,146 @@
+package schematic.models.itemtypes;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.jnbt.ByteTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.ShortTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+
+import schematic.common.Metrics;
+import schematic.models.nbt.RawTag;
+
+/**
+ * The slots of a chest, dispenser or other container. Items read from a schematic are kept as the undecoded "Items" list of
+ * the tile entity and only decoded when they are used for the first time, so containers that are never looked at cost next to
+ * nothing and are saved with exactly the bytes they were read with
+ * @author klaue
+ */
+public class ItemList {
+	private final int size;
+	private Item[] items = null;
+	private RawTag raw = null;
+
+	/**
+	 * @param items the items or null for none, empty slots are Items with id 0
+	 * @param size the number of slots
+	 * @throws IllegalArgumentException if there are more items than slots
+	 */
+	public ItemList(Item[] items, int size) {
+		if (items != null && items.length > size) {
+			throw new IllegalArgumentException("Only " + size + " items fit");
+		}
+		this.size = size;
+		if (items != null && items.length == size) {
+			this.items = items;
+		} else {
+			this.items = new Item[size];
+			Arrays.fill(this.items, new Item());
+			if (items != null) System.arraycopy(items, 0, this.items, 0, items.length);
+		}
+	}
+
+	/**
+	 * @param raw the undecoded "Items" list of a tile entity
+	 * @param size the number of slots
+	 */
+	public ItemList(RawTag raw, int size) {
+		this.size = size;
+		this.raw = raw;
+	}
+
+	/**
+	 * @return the number of slots
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Decodes the items if they weren't yet. Faulty items are left empty
+	 * @return the items, one for every slot. Empty slots are Items with id 0
+	 */
+	public synchronized Item[] getItems() {
+		if (this.items == null) {
+			Metrics.Timer timer = Metrics.timer("items.decode");
+			long start = timer.start();
+			this.items = new Item[this.size];
+			Arrays.fill(this.items, new Item());
+			try {
+				for (Tag tag : ((ListTag)this.raw.decode()).getValue()) {
+					addItemToListFromCompound(this.items, (CompoundTag)tag);
+				}
+			} catch (IOException e) {
+				faulty(e);
+			} catch (RuntimeException e) { // wrong tag types, slots that don't exist
+				faulty(e);
+			}
+			this.raw = null; // the items can be changed from now on
+			timer.stop(start, this.size);
+		}
+		return this.items;
+	}
+
+	/**
+	 * @return the "Items" list as it was read, or null if the items were decoded or not read from a file
+	 */
+	public synchronized RawTag getRaw() {
+		return this.raw;
+	}
+
+	private void faulty(Exception e) {
+		System.err.print("Faulty items in a container: ");
+		e.printStackTrace();
+		Metrics.counter("items.faulty").increment();
+	}
+
+	/**
+	 * Adds the given item to the given item array
+	 * @param items the array of items
+	 * @param itemTag the item-Compoundtag
+	 */
+	private static void addItemToListFromCompound(Item[] items, CompoundTag itemTag) {
+		Map<String, Tag> itemMap = itemTag.getValue();
+		short itemId = ((ShortTag)itemMap.get("id")).getValue();
+		byte itemCount = ((ByteTag)itemMap.get("Count")).getValue();
+		byte itemSlot = ((ByteTag)itemMap.get("Slot")).getValue();
+		short itemDamage = ((ShortTag)itemMap.get("Damage")).getValue();
+		items[itemSlot] = Item.getInstance(itemId, itemDamage, itemCount);
+
+		// add special tag info - null check everywhere because older MC versions (and therefore older schematics) may not have had a tag-tag
+		Tag tag = itemMap.get("tag");
+		if (tag == null || tag instanceof CompoundTag == false) return;
+		Map<String, Tag> tagMap = ((CompoundTag)tag).getValue();
+
+		// display properties - every item "should" have at least the display property "name"
+		Tag display = tagMap.get("display");
+		if (display != null && display instanceof CompoundTag) {
+			Map<String, Tag> displayMap = ((CompoundTag)display).getValue();
+			if (displayMap != null) {
+				// name - special name to be used instead of default one - can be empty
+				Tag name = displayMap.get("Name");
+				if (name != null && name instanceof StringTag) {
+					String nameStr = ((StringTag)name).getValue();
+					items[itemSlot].setName(nameStr);
+				}
+
+				// color - only supported by leather armor
+				if (items[itemSlot].isColoredItem()) {
+					Tag color = displayMap.get("color");
+					if (color != null && color instanceof IntTag) {
+						Integer iColor = ((IntTag)color).getValue();
+						if (iColor != null) {
+							((ColoredItem)items[itemSlot]).setColor(iColor);
+						}
+					}
+				} // items[itemSlot] instanceof LeatherArmor
+			} // displayMap != null
+		} // display != null
+	} // fnc
+}
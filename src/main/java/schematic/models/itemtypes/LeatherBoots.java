@@ -1,10 +1,6 @@
 package schematic.models.itemtypes;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-
-import schematic.models.images.ImageProvider;
 
 /**
  * Colored boots made of leather
@@ -42,29 +38,7 @@ public class LeatherBoots extends ColoredItem {
 	}
 	
 	@Override
-	public synchronized BufferedImage getImage(float zoom) {
-		// since we plan to use the parents getImage and use its imagecache too (no need to waste space storing colored, but incomplete leather armor parts)
-		// we have to check if the image is in the cache before we call the parents getImage (or else it would be there anyway but no one could tell if it was
-		// the completed or just the colored image)
-		// if the image is in the cache, we can just happily return the cached image
-		if (coloredZoomCache != zoom) {
-			// reset cache
-			coloredItemCache.clear();
-			coloredZoomCache = zoom;
-		} else {
-			if (coloredZoomCache == zoom && coloredItemCache.containsKey(this.id) && coloredItemCache.get(this.id).containsKey(this.data)
-					&& coloredItemCache.get(this.id).get(this.data).containsKey(this.color)) {
-				return coloredItemCache.get(this.id).get(this.data).get(this.color);
-			}
-		}
-		
-		// image was not in cache - get parents colored image and add overlay (we make no new image - new image in cache is updated)
-		BufferedImage coloredImage = super.getImage(zoom);
-		BufferedImage overlay = ImageProvider.getItemImage("bootsCloth_overlay");
-		
-		Graphics2D base = coloredImage.createGraphics();
-		base.drawRenderedImage(overlay, null);
-		
-		return coloredImage;
+	protected String getOverlayName() {
+		return "bootsCloth_overlay";
 	}
 }
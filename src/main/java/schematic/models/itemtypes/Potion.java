@@ -311,11 +311,13 @@ public class Potion extends Item {
 		} else {
 			img = potionImageCache.get(this.color);
 			if (img != null) {
+				imageCacheHit();
 				return img;
 			}
 		}
 		
 		// image not in cache, make new
+		imageCacheMiss();
 		// get image from imageprovider
 		if (this.isSplash) {
 			img = ImageProvider.getItemImage("potion_splash");
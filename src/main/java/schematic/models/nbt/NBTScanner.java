@@ -0,0 +1,324 @@
+package schematic.models.nbt;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.ByteTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.EndTag;
+import org.jnbt.FloatTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.LongTag;
+import org.jnbt.NBTConstants;
+import org.jnbt.NBTUtils;
+import org.jnbt.ShortTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+
+/**
+ * Reads an NBT stream tag by tag. Unlike the NBTInputStream of jnbt, which reads the whole file into a tree of tags,
+ * the caller decides for every tag whether to read it as a jnbt tag, skip it or, for byte arrays, read only parts of it.
+ * Skipped data is still decompressed, but nothing is created for it. Tags can also be kept undecoded as RawTags
+ * @author klaue
+ */
+public class NBTScanner implements Closeable {
+	private DataInputStream in;
+	private byte[] skipBuffer = null;
+
+	private int type = -1;
+	private String name = null;
+	private int listType = -1;
+
+	/**
+	 * @param is the stream to read from, gzipped or not
+	 * @throws IOException
+	 */
+	public NBTScanner(InputStream is) throws IOException {
+		BufferedInputStream bis = new BufferedInputStream(is, 65536);
+		bis.mark(2);
+		boolean isGzip = bis.read() == 0x1F && bis.read() == 0x8B;
+		bis.reset();
+		this.in = new DataInputStream(isGzip ? new BufferedInputStream(new GZIPInputStream(bis), 65536) : bis);
+	}
+
+	private NBTScanner(byte[] payload) {
+		this.in = new DataInputStream(new ByteArrayInputStream(payload));
+	}
+
+	/**
+	 * Decodes a tag that was read with readRawTag()
+	 * @param raw the raw tag
+	 * @return the tag
+	 * @throws IOException if the payload is invalid
+	 */
+	public static Tag decode(RawTag raw) throws IOException {
+		NBTScanner scanner = new NBTScanner(raw.getValue());
+		Tag tag = scanner.readPayload(raw.getType(), raw.getName());
+		if (scanner.in.available() > 0) throw new IOException("Tag " + raw.getName() + " is longer than its payload");
+		return tag;
+	}
+
+	/**
+	 * Reads the type and name of the next tag. For TYPE_END (the end of a compound) there is no name
+	 * @return the type of the tag, one of the NBTConstants
+	 * @throws IOException
+	 */
+	public int nextTag() throws IOException {
+		this.type = this.in.readUnsignedByte();
+		this.name = (this.type == NBTConstants.TYPE_END) ? "" : readString();
+		return this.type;
+	}
+
+	/**
+	 * @return the type of the tag read by nextTag()
+	 */
+	public int getType() {
+		return this.type;
+	}
+
+	/**
+	 * @return the name of the tag read by nextTag()
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Reads the payload of the current tag
+	 * @return the tag
+	 * @throws IOException
+	 */
+	public Tag readTag() throws IOException {
+		return readPayload(this.type, this.name);
+	}
+
+	/**
+	 * Skips the payload of the current tag
+	 * @throws IOException
+	 */
+	public void skipTag() throws IOException {
+		skipPayload(this.type);
+	}
+
+	/**
+	 * Reads the payload of the current tag without decoding it
+	 * @return the tag with the payload as it is in the stream
+	 * @throws IOException
+	 */
+	public RawTag readRawTag() throws IOException {
+		final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		DataInputStream original = this.in;
+		this.in = new DataInputStream(new FilterInputStream(original) {
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b >= 0) payload.write(b);
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+				if (n > 0) payload.write(b, off, n);
+				return n;
+			}
+		});
+		try {
+			skipPayload(this.type);
+		} finally {
+			this.in = original;
+		}
+		return new RawTag(this.name, this.type, payload.toByteArray());
+	}
+
+	/**
+	 * Reads the length of the current byte array or list tag. For lists, the type of the elements is read first
+	 * and can be gotten with getListType()
+	 * @return the number of bytes or elements
+	 * @throws IOException
+	 */
+	public int readLength() throws IOException {
+		if (this.type == NBTConstants.TYPE_LIST) {
+			this.listType = this.in.readUnsignedByte();
+		} else if (this.type != NBTConstants.TYPE_BYTE_ARRAY) {
+			throw new IOException("Tag " + this.name + " has no length");
+		}
+		int length = this.in.readInt();
+		if (length < 0) throw new IOException("Negative length of tag " + this.name);
+		return length;
+	}
+
+	/**
+	 * @return the type of the elements of the current list, after readLength()
+	 */
+	public int getListType() {
+		return this.listType;
+	}
+
+	/**
+	 * Reads the next element of the current list, after readLength()
+	 * @return the element
+	 * @throws IOException
+	 */
+	public Tag readListElement() throws IOException {
+		return readPayload(this.listType, "");
+	}
+
+	/**
+	 * Reads the next element of the current list of compounds, after readLength(). The children with the given names
+	 * are kept as RawTags, all others are decoded
+	 * @param rawNames the names of the children not to decode
+	 * @return the children of the compound by name
+	 * @throws IOException
+	 */
+	public Map<String, Tag> readCompoundElement(String... rawNames) throws IOException {
+		if (this.listType != NBTConstants.TYPE_COMPOUND) throw new IOException("Not a list of compounds");
+		Map<String, Tag> children = new HashMap<String, Tag>();
+		while (nextTag() != NBTConstants.TYPE_END) {
+			boolean raw = false;
+			for (String rawName : rawNames) {
+				if (rawName.equals(this.name)) raw = true;
+			}
+			children.put(this.name, raw ? readRawTag() : readTag());
+		}
+		return children;
+	}
+
+	/**
+	 * Skips the next element of the current list, after readLength()
+	 * @throws IOException
+	 */
+	public void skipListElement() throws IOException {
+		skipPayload(this.listType);
+	}
+
+	/**
+	 * Reads a part of the current byte array, after readLength()
+	 * @param bytes the array to read into
+	 * @param offset the index of the first byte
+	 * @param length the number of bytes
+	 * @throws IOException
+	 */
+	public void readBytes(byte[] bytes, int offset, int length) throws IOException {
+		this.in.readFully(bytes, offset, length);
+	}
+
+	/**
+	 * Skips a part of the current byte array, after readLength()
+	 * @param length the number of bytes
+	 * @throws IOException
+	 */
+	public void skipBytes(long length) throws IOException {
+		if (this.skipBuffer == null) this.skipBuffer = new byte[65536];
+		while (length > 0) {
+			int n = (int)Math.min(length, this.skipBuffer.length);
+			this.in.readFully(this.skipBuffer, 0, n);
+			length -= n;
+		}
+	}
+
+	private String readString() throws IOException {
+		byte[] bytes = new byte[this.in.readUnsignedShort()];
+		this.in.readFully(bytes);
+		return new String(bytes, NBTConstants.CHARSET);
+	}
+
+	private Tag readPayload(int type, String name) throws IOException {
+		switch (type) {
+			case NBTConstants.TYPE_END:		return new EndTag();
+			case NBTConstants.TYPE_BYTE:	return new ByteTag(name, this.in.readByte());
+			case NBTConstants.TYPE_SHORT:	return new ShortTag(name, this.in.readShort());
+			case NBTConstants.TYPE_INT:		return new IntTag(name, this.in.readInt());
+			case NBTConstants.TYPE_LONG:	return new LongTag(name, this.in.readLong());
+			case NBTConstants.TYPE_FLOAT:	return new FloatTag(name, this.in.readFloat());
+			case NBTConstants.TYPE_DOUBLE:	return new DoubleTag(name, this.in.readDouble());
+			case NBTConstants.TYPE_STRING:	return new StringTag(name, readString());
+			case NBTConstants.TYPE_BYTE_ARRAY: {
+				int length = this.in.readInt();
+				if (length < 0) throw new IOException("Negative length of tag " + name);
+				byte[] bytes = new byte[length];
+				this.in.readFully(bytes);
+				return new ByteArrayTag(name, bytes);
+			}
+			case NBTConstants.TYPE_LIST: {
+				int elementType = this.in.readUnsignedByte();
+				int length = this.in.readInt();
+				if (length < 0) throw new IOException("Negative length of tag " + name);
+				List<Tag> elements = new ArrayList<Tag>(Math.min(length, 1024));
+				for (int i = 0; i < length; ++i) {
+					elements.add(readPayload(elementType, ""));
+				}
+				return new ListTag(name, NBTUtils.getTypeClass(elementType), elements);
+			}
+			case NBTConstants.TYPE_COMPOUND: {
+				Map<String, Tag> children = new HashMap<String, Tag>();
+				while (true) {
+					int childType = this.in.readUnsignedByte();
+					if (childType == NBTConstants.TYPE_END) break;
+					String childName = readString();
+					children.put(childName, readPayload(childType, childName));
+				}
+				return new CompoundTag(name, children);
+			}
+			default:
+				throw new IOException("Invalid tag type: " + type);
+		}
+	}
+
+	private void skipPayload(int type) throws IOException {
+		switch (type) {
+			case NBTConstants.TYPE_END:		break;
+			case NBTConstants.TYPE_BYTE:	skipBytes(1);	break;
+			case NBTConstants.TYPE_SHORT:	skipBytes(2);	break;
+			case NBTConstants.TYPE_INT:
+			case NBTConstants.TYPE_FLOAT:	skipBytes(4);	break;
+			case NBTConstants.TYPE_LONG:
+			case NBTConstants.TYPE_DOUBLE:	skipBytes(8);	break;
+			case NBTConstants.TYPE_STRING:	skipBytes(this.in.readUnsignedShort());	break;
+			case NBTConstants.TYPE_BYTE_ARRAY: {
+				int length = this.in.readInt();
+				if (length < 0) throw new IOException("Negative length of byte array");
+				skipBytes(length);
+				break;
+			}
+			case NBTConstants.TYPE_LIST: {
+				int elementType = this.in.readUnsignedByte();
+				int length = this.in.readInt();
+				for (int i = 0; i < length; ++i) {
+					skipPayload(elementType);
+				}
+				break;
+			}
+			case NBTConstants.TYPE_COMPOUND: {
+				while (true) {
+					int childType = this.in.readUnsignedByte();
+					if (childType == NBTConstants.TYPE_END) break;
+					skipBytes(this.in.readUnsignedShort());
+					skipPayload(childType);
+				}
+				break;
+			}
+			default:
+				throw new IOException("Invalid tag type: " + type);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+}
@@ -0,0 +1,189 @@
+package schematic.models.nbt;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.jnbt.ByteArrayTag;
+import org.jnbt.ByteTag;
+import org.jnbt.CompoundTag;
+import org.jnbt.DoubleTag;
+import org.jnbt.FloatTag;
+import org.jnbt.IntTag;
+import org.jnbt.ListTag;
+import org.jnbt.LongTag;
+import org.jnbt.NBTConstants;
+import org.jnbt.NBTUtils;
+import org.jnbt.ShortTag;
+import org.jnbt.StringTag;
+import org.jnbt.Tag;
+
+/**
+ * Writes a gzipped NBT stream tag by tag. Unlike the NBTOutputStream of jnbt, which needs the whole tree of tags at once, compounds
+ * are opened and closed explicitly and the content of byte arrays can be written in parts, so big schematics never have to be in
+ * memory completely. Smaller subtrees (tile entities) can still be written as jnbt tags, or as RawTags exactly as they were read
+ * @author klaue
+ */
+public class NBTWriter implements Closeable {
+	private DataOutputStream out;
+
+	/**
+	 * @param os the stream to write to, gets gzipped
+	 * @throws IOException
+	 */
+	public NBTWriter(OutputStream os) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(os), 65536));
+	}
+
+	private void writeHeader(int type, String name) throws IOException {
+		this.out.writeByte(type);
+		byte[] nameBytes = name.getBytes(NBTConstants.CHARSET);
+		this.out.writeShort(nameBytes.length);
+		this.out.write(nameBytes);
+	}
+
+	/**
+	 * Opens a compound tag, all following tags are inside it until endCompound() is called
+	 * @param name the name of the tag
+	 * @throws IOException
+	 */
+	public void beginCompound(String name) throws IOException {
+		writeHeader(NBTConstants.TYPE_COMPOUND, name);
+	}
+
+	/**
+	 * Closes the last opened compound tag
+	 * @throws IOException
+	 */
+	public void endCompound() throws IOException {
+		this.out.writeByte(NBTConstants.TYPE_END);
+	}
+
+	public void writeByte(String name, byte value) throws IOException {
+		writeHeader(NBTConstants.TYPE_BYTE, name);
+		this.out.writeByte(value);
+	}
+
+	public void writeShort(String name, short value) throws IOException {
+		writeHeader(NBTConstants.TYPE_SHORT, name);
+		this.out.writeShort(value);
+	}
+
+	public void writeInt(String name, int value) throws IOException {
+		writeHeader(NBTConstants.TYPE_INT, name);
+		this.out.writeInt(value);
+	}
+
+	public void writeString(String name, String value) throws IOException {
+		writeHeader(NBTConstants.TYPE_STRING, name);
+		writeStringPayload(value);
+	}
+
+	/**
+	 * Opens a byte array tag. Exactly the given number of bytes have to follow with writeBytes()
+	 * @param name the name of the tag
+	 * @param length the number of bytes in the array
+	 * @throws IOException
+	 */
+	public void beginByteArray(String name, int length) throws IOException {
+		writeHeader(NBTConstants.TYPE_BYTE_ARRAY, name);
+		this.out.writeInt(length);
+	}
+
+	/**
+	 * Writes a part of the content of an opened byte array
+	 * @param bytes the bytes
+	 * @param offset the first byte to write
+	 * @param length the number of bytes to write
+	 * @throws IOException
+	 */
+	public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+		this.out.write(bytes, offset, length);
+	}
+
+	/**
+	 * Opens a list tag. Exactly the given number of elements have to follow with writeListElement()
+	 * @param name the name of the tag
+	 * @param type the class of the elements
+	 * @param size the number of elements
+	 * @throws IOException
+	 */
+	public void beginList(String name, Class<? extends Tag> type, int size) throws IOException {
+		writeHeader(NBTConstants.TYPE_LIST, name);
+		this.out.writeByte(NBTUtils.getTypeCode(type));
+		this.out.writeInt(size);
+	}
+
+	/**
+	 * Writes an element of an opened list. List elements have no name, so the name of the tag is ignored
+	 * @param tag the element
+	 * @throws IOException
+	 */
+	public void writeListElement(Tag tag) throws IOException {
+		writePayload(tag);
+	}
+
+	/**
+	 * Writes a complete tag with all its children
+	 * @param tag the tag
+	 * @throws IOException
+	 */
+	public void writeTag(Tag tag) throws IOException {
+		writeHeader((tag instanceof RawTag) ? ((RawTag)tag).getType() : NBTUtils.getTypeCode(tag.getClass()), tag.getName());
+		writePayload(tag);
+	}
+
+	private void writePayload(Tag tag) throws IOException {
+		if (tag instanceof RawTag) {
+			this.out.write(((RawTag)tag).getValue()); // unchanged from the file it was read from
+			return;
+		}
+		switch (NBTUtils.getTypeCode(tag.getClass())) {
+			case NBTConstants.TYPE_BYTE:	this.out.writeByte(((ByteTag)tag).getValue());		break;
+			case NBTConstants.TYPE_SHORT:	this.out.writeShort(((ShortTag)tag).getValue());	break;
+			case NBTConstants.TYPE_INT:		this.out.writeInt(((IntTag)tag).getValue());		break;
+			case NBTConstants.TYPE_LONG:	this.out.writeLong(((LongTag)tag).getValue());		break;
+			case NBTConstants.TYPE_FLOAT:	this.out.writeFloat(((FloatTag)tag).getValue());	break;
+			case NBTConstants.TYPE_DOUBLE:	this.out.writeDouble(((DoubleTag)tag).getValue());	break;
+			case NBTConstants.TYPE_STRING:	writeStringPayload(((StringTag)tag).getValue());	break;
+			case NBTConstants.TYPE_BYTE_ARRAY:
+				byte[] bytes = ((ByteArrayTag)tag).getValue();
+				this.out.writeInt(bytes.length);
+				this.out.write(bytes);
+				break;
+			case NBTConstants.TYPE_LIST:
+				ListTag list = (ListTag)tag;
+				List<Tag> elements = list.getValue();
+				this.out.writeByte(NBTUtils.getTypeCode(list.getType()));
+				this.out.writeInt(elements.size());
+				for (Tag element : elements) {
+					writePayload(element);
+				}
+				break;
+			case NBTConstants.TYPE_COMPOUND:
+				for (Map.Entry<String, Tag> entry : ((CompoundTag)tag).getValue().entrySet()) {
+					writeTag(entry.getValue());
+				}
+				endCompound();
+				break;
+			default:
+				throw new IOException("Invalid tag type: " + tag.getClass().getName());
+		}
+	}
+
+	private void writeStringPayload(String value) throws IOException {
+		byte[] bytes = value.getBytes(NBTConstants.CHARSET);
+		this.out.writeShort(bytes.length);
+		this.out.write(bytes);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.out.close();
+	}
+}
@@ -0,0 +1,54 @@
+package schematic.models.nbt;
+
+import java.io.IOException;
+
+import org.jnbt.Tag;
+
+/**
+ * A tag that was not decoded, only the bytes of its payload were kept as they are in the file. NBTScanner.decode() turns it into
+ * a normal jnbt tag, NBTWriter writes the bytes back unchanged
+ * @author klaue
+ */
+public class RawTag extends Tag {
+	private final int type;
+	private final byte[] payload;
+
+	/**
+	 * @param name the name of the tag
+	 * @param type the type of the tag, one of the NBTConstants
+	 * @param payload the encoded payload, without type and name
+	 */
+	public RawTag(String name, int type, byte[] payload) {
+		super(name);
+		this.type = type;
+		this.payload = payload;
+	}
+
+	/**
+	 * @return the type of the tag, one of the NBTConstants
+	 */
+	public int getType() {
+		return this.type;
+	}
+
+	/**
+	 * @return the encoded payload. Don't change it
+	 */
+	@Override
+	public byte[] getValue() {
+		return this.payload;
+	}
+
+	/**
+	 * @return the decoded tag
+	 * @throws IOException if the payload is invalid
+	 */
+	public Tag decode() throws IOException {
+		return NBTScanner.decode(this);
+	}
+
+	@Override
+	public String toString() {
+		return "TAG_Raw(\"" + getName() + "\"): " + this.payload.length + " bytes of type " + this.type;
+	}
+}
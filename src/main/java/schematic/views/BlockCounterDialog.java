@@ -7,8 +7,6 @@ import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.awt.print.PrinterException;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.TreeSet;
 import java.util.Vector;
 
 import javax.swing.BorderFactory;
@@ -27,16 +25,9 @@ import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableModel;
 import javax.swing.table.TableRowSorter;
 
+import schematic.models.BlockCounter;
 import schematic.models.images.ImageProvider;
-import schematic.models.NameProvider;
-import schematic.models.Slice;
 import schematic.models.SliceStack;
-import schematic.models.blocktypes.Bed;
-import schematic.models.blocktypes.Block;
-import schematic.models.blocktypes.Door;
-import schematic.models.blocktypes.Furnace;
-import schematic.models.blocktypes.PoweredRail;
-import schematic.models.blocktypes.RedstoneTorch;
 
 /**
  * @author klaue
@@ -76,11 +67,6 @@ public class BlockCounterDialog extends JDialog {
 		this.buttonPanel.add(this.btnClose);
 		
 		this.table = buildTable();
-//		TreeSet<MapEntry> bla = countBlocks();
-//		for (Iterator<MapEntry> iter = bla.keySet().iterator(); iter.hasNext(); ) {
-//			MapEntry entry = iter.next();
-//			System.out.println(bla.get(entry) + " x " + entry);
-//		}
 		
 		JScrollPane scrollPane = new JScrollPane(this.table);
 		this.table.setFillsViewportHeight(true);
@@ -131,15 +117,13 @@ public class BlockCounterDialog extends JDialog {
 		
 		Vector<Vector<Object> > rows = new Vector<Vector<Object> >();
 		
-		TreeSet<MapEntry> countedBlocks = countBlocks();
-		for (Iterator<MapEntry> iter = countedBlocks.iterator(); iter.hasNext(); ) {
+		for (BlockCounter.Entry entry : BlockCounter.countBlocks(this.sliceStack)) {
 			Vector<Object> currentRow = new Vector<Object>();
-			MapEntry entry = iter.next();
 			
-			currentRow.add(entry.amount);
-			currentRow.add(entry.image);
-			currentRow.add(entry.name);
-			currentRow.add(entry.id);
+			currentRow.add(entry.getAmount());
+			currentRow.add(ImageProvider.zoom(1.5f, ImageProvider.getImageByBlockOrItemID(entry.getId(), entry.getData())));
+			currentRow.add(entry.getName());
+			currentRow.add(entry.getId());
 			
 			rows.add(currentRow);
 		}
@@ -171,122 +155,6 @@ public class BlockCounterDialog extends JDialog {
 		
 		return table;
 	}
-	
-	private TreeSet<MapEntry> countBlocks() {
-		TreeSet<MapEntry> blockSet = new TreeSet<MapEntry>();
-		for (int i = 0; i < this.sliceStack.getHeight(); i++) {
-			Slice s = this.sliceStack.getSlice(i);
-			for (int j = 0; j < s.getWidth(); j++) {
-				for (int k = 0; k < s.getHeight(); k++) {
-					Block b = s.getBlockAt(j, k);
-					
-					if (b.getId() == 0) { // air
-						continue;
-					}
-					
-					short id = b.getId();
-					byte data = b.getData();
-					
-					// only count one block for: bed, door, furnace (burning and off), reds. torch (burn. and off), redst. ore (glowing and not),
-					// powered rail (on, off), redst. repeater (on, off), redst. wire (on, off) and sign (wall, ground)
-					if (b.isBed()) {
-						if (((Bed)b).isFoot()) continue; // only save head as "Bed"
-						id = (short)355; // item id
-					} else if (b.isDoor()) {
-						Door door = (Door)b;
-						if (door.isBottomHalf()) continue; // only sabe top half as door
-						if (door.getDoorType() == Door.DoorType.IRON) {
-							id = (short)324; // item id
-						} else {
-							id = (short)330; // item id
-						}
-					} else if (b.isFurnace() && ((Furnace)b).isOn()) {
-						id = (short)61; // furnace off
-					} else if (b.isRedstoneTorch() && !((RedstoneTorch)b).isOn()) {
-						id = (short)76; // burning rs torch
-					} else if (id == 74) { // glowing redstone ore
-						id = (short)73; // redstone ore (w/o glowing)
-					} else if (b.isPoweredRail() && !((PoweredRail)b).isOn()) {
-						data = -1; // default value
-					} else if (b.isRepeater()) {
-						id = (short)356; // item id
-					} else if (b.isRedstoneWire()) {
-						id = (short)331; // item id of redstone
-					} else if (b.isTripwire()) {
-						id = (short)287; // item id of string
-					} else if (b.isSign()) {
-						// both wall and freestanding sign replaced by item id
-						id = (short)323;
-					}
-					
-					
-					// add new entry or increase number of old
-					// for performance reasons, the icon is only added for new etries
-					MapEntry entry = new MapEntry();
-					entry.name = NameProvider.getNameOfBlockOrItem(id, data);
-					Iterator<MapEntry> iter = blockSet.iterator();
-					while (iter.hasNext()) {
-						MapEntry e = iter.next();
-						if (e.equals(entry)) {
-							e.amount = e.amount + 1;
-							iter = blockSet.iterator(); // reset to start for if below 
-							break;
-						}
-					}
-					if (!iter.hasNext()) {
-						// new entry
-						entry.id = id;
-						entry.image = ImageProvider.zoom(1.5f, ImageProvider.getImageByBlockOrItemID(id, data));
-						blockSet.add(entry);
-					}
-				}
-			}
-		}
-		return blockSet;
-	}
-}
-
-class MapEntry implements Comparable<MapEntry> {
-	// a struct
-	public String name = "";
-	public BufferedImage image = null;
-	public short id = 0;
-	public int amount = 1;
-	
-	@Override
-	public String toString() {
-		return "name = " + this.name + " id = " + this.id;
-	}
-
-	@Override
-	public int compareTo(MapEntry o) {
-		return this.name.compareTo(o.name);
-	}
-	
-	@Override
-	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((this.name == null) ? 0 : this.name.hashCode());
-		return result;
-	}
-
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
-			return false;
-		MapEntry other = (MapEntry) obj;
-		if (this.name == null) {
-			if (other.name != null)
-				return false;
-		} else if (!this.name.equals(other.name))
-			return false;
-		return true;
-	}
 }
 
 class IconTableCellRenderer extends DefaultTableCellRenderer {
@@ -28,6 +28,7 @@ import javax.swing.JSlider;
 import javax.swing.JTextField;
 import javax.swing.plaf.ColorUIResource;
 
+import schematic.common.Metrics;
 import schematic.models.ImageGridStack;
 import schematic.models.SliceStack;
 
@@ -306,9 +307,9 @@ public class ExportDialog extends JDialog {
 				
 				BufferedImage img = null;
 				if (this.chkTransparent.isSelected()) {
-					img = grids.getGridAtLevel(i).exportImage(null, Color.BLACK);
+					img = grids.exportImage(i, null, Color.BLACK);
 				} else {
-					img = grids.getGridAtLevel(i).exportImage(this.btnColorBack.getBackground(), this.btnColorLine.getBackground());
+					img = grids.exportImage(i, this.btnColorBack.getBackground(), this.btnColorLine.getBackground());
 				}
 				
 				File file = new File(dir, imgName.toString());
@@ -365,15 +366,20 @@ public class ExportDialog extends JDialog {
 			AnimatedGifEncoder encoder = new AnimatedGifEncoder();
 			encoder.setDelay(millis);
 			encoder.setRepeat(0);
+			encoder.setDeltaFrames(true);
 			encoder.start(target.getAbsolutePath());
 			encoder.setTransparent(null);
 			
+			Metrics.Timer gifTimer = Metrics.timer("export.gif");
+			long gifStart = gifTimer.start();
 			for (int i = 0; i < grids.getStackSize(); ++i) {
-				BufferedImage img = grids.getGridAtLevel(i).exportImage(this.btnColorBack.getBackground(), this.btnColorLine.getBackground());
+				BufferedImage img = grids.exportImage(i, this.btnColorBack.getBackground(), this.btnColorLine.getBackground());
 				
 				encoder.addFrame(img);
 			}
 			encoder.finish();
+			gifTimer.stop(gifStart, grids.getStackSize());
+			Metrics.timer("gif.quantize").record(encoder.getQuantizationTime(), grids.getStackSize());
 			JOptionPane.showMessageDialog(this, "All images successfully saved!", "Yay", JOptionPane.INFORMATION_MESSAGE);
 			this.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
 			this.dispose();
@@ -1,6 +1,7 @@
 package schematic.views;
 
 import schematic.models.ImageGridStack;
+import schematic.models.NameProvider;
 import schematic.models.images.ImageProvider;
 import schematic.models.SchematicReader;
 import schematic.models.SliceStack;
@@ -22,7 +23,10 @@ import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Set;
+import java.util.SortedMap;
 
 /**
  * The main frame and initializer of the app
@@ -40,12 +44,14 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
     Color gridLineColor = Color.BLACK;
     Color markColor = Color.RED;
     int currentLayer = 0;
+    Set<NameProvider.Id> searchIds = null;
+    SortedMap<Integer, int[]> searchResults = null;
 
     DragScrollListener dragScrollListener;
 
     JMenuBar menuBar = new JMenuBar();
     JMenu fileMenu, exportMenu, colorMenu, toolMenu, printMenu;
-    JMenuItem miOpen, miExportImages, miExportGif, miExportLayer, miExportTxt, miBackgroundColor, miLineColor, miMarkColor, miBlockCounter, miPrintSlice, miPrintAll;
+    JMenuItem miOpen, miExportImages, miExportGif, miExportLayer, miExportTxt, miBackgroundColor, miLineColor, miMarkColor, miBlockCounter, miFind, miFindNext, miClearSearch, miPrintSlice, miPrintAll;
 
     JButton btnRotateCCW;
     JButton btnRotateCW;
@@ -58,7 +64,9 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
     JPanel pnlRotate = new JPanel();
     JPanel pnlSchematic = new JPanel();
     JPanel pnlGrid = new JPanel();
+    JPanel pnlMinimap = new JPanel(new BorderLayout());
     JScrollPane scrGrid;
+    MinimapPanel minimap;
 
     JLabel lblSize = new JLabel();
 
@@ -165,6 +173,28 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
         this.miBlockCounter.addActionListener(this);
         this.toolMenu.add(this.miBlockCounter);
 
+        this.miFind = new JMenuItem("Find blocks");
+        this.miFind.setMnemonic(KeyEvent.VK_F);
+        this.miFind.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F, InputEvent.CTRL_DOWN_MASK));
+        this.miFind.getAccessibleContext().setAccessibleDescription("This highlights all blocks with the given name");
+        this.miFind.setActionCommand("FIND");
+        this.miFind.addActionListener(this);
+        this.toolMenu.add(this.miFind);
+
+        this.miFindNext = new JMenuItem("Next layer with found blocks");
+        this.miFindNext.setMnemonic(KeyEvent.VK_N);
+        this.miFindNext.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0));
+        this.miFindNext.getAccessibleContext().setAccessibleDescription("This goes to the next layer with found blocks");
+        this.miFindNext.setActionCommand("FINDNEXT");
+        this.miFindNext.addActionListener(this);
+        this.toolMenu.add(this.miFindNext);
+
+        this.miClearSearch = new JMenuItem("Clear found blocks");
+        this.miClearSearch.getAccessibleContext().setAccessibleDescription("This removes the highlights of the found blocks");
+        this.miClearSearch.setActionCommand("CLEARSEARCH");
+        this.miClearSearch.addActionListener(this);
+        this.toolMenu.add(this.miClearSearch);
+
         this.menuBar.add(this.toolMenu);
 
         this.printMenu = new JMenu("Print");
@@ -257,9 +287,17 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
         this.dragScrollListener = new DragScrollListener(this.scrGrid, this.pnlGrid);
         Toolkit.getDefaultToolkit().addAWTEventListener(this.dragScrollListener, eventMask);
 
+        this.minimap = new MinimapPanel(this.scrGrid);
+        this.minimap.setFrameColor(this.markColor);
+        this.pnlMinimap.add(this.minimap, BorderLayout.NORTH);
+        this.pnlMinimap.setBorder(BorderFactory.createTitledBorder("Map"));
+        this.pnlMinimap.setMaximumSize(new Dimension(this.pnlMinimap.getPreferredSize().width, Integer.MAX_VALUE));
+
         this.pnlSchematic.add(this.scrGrid);
         this.pnlSchematic.add(Box.createHorizontalStrut(5));
         this.pnlSchematic.add(this.sldLayer);
+        this.pnlSchematic.add(Box.createHorizontalStrut(5));
+        this.pnlSchematic.add(this.pnlMinimap);
 
         this.lblSize.setAlignmentX(SwingConstants.LEFT);
 
@@ -283,13 +321,18 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
         this.sldZoom.setEnabled(enable);
         this.exportMenu.setEnabled(enable);
         this.miBlockCounter.setEnabled(enable);
+        this.miFind.setEnabled(enable);
+        this.miFindNext.setEnabled(enable && this.searchResults != null);
+        this.miClearSearch.setEnabled(enable && this.searchResults != null);
         this.printMenu.setEnabled(enable);
     }
 
     private void openFile(File file) {
+        if (this.images != null) this.images.cancelPrefetch();
         try {
             this.stack = SchematicReader.readSchematicsFile(file);
             this.stack.trim();
+            this.stack.getBlockIndex().update(); // now, so the first search is instant
             float zoom = (this.sldZoom.getValue() / 10.0f);
             this.currentZoom = zoom;
             this.images = this.stack.getImages(zoom, true);
@@ -334,6 +377,8 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
             return;
         }
 
+        this.searchIds = null;
+        this.searchResults = null;
         enableSchematicControls(true);
         if (this.currentLayer >= this.images.getStackSize())
             this.currentLayer = this.images.getStackSize() - 1;
@@ -343,12 +388,54 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
 
         this.pnlGrid.removeAll();
         this.pnlGrid.add(this.images.getGridAtLevel(this.currentLayer), this.defaultContraints);
+        this.minimap.setStack(this.stack);
+        this.minimap.setGrid(this.images.getGridAtLevel(this.currentLayer));
         this.pnlGrid.repaint();
         this.scrGrid.validate();
-        this.lblSize.setText("Size: " + this.stack.getLength() + " x " + this.stack.getWidth());
+        updateHighlights();
+        this.images.prefetch(this.currentLayer);
         this.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
     }
 
+    /**
+     * Shows the found blocks of the current layer and how many there are
+     */
+    private void updateHighlights() {
+        String text = "Size: " + this.stack.getLength() + " x " + this.stack.getWidth();
+        int[] found = null;
+        if (this.searchResults != null) {
+            found = this.searchResults.get(this.currentLayer);
+            int total = 0;
+            for (int[] positions : this.searchResults.values()) total += positions.length;
+            text += ", found " + ((found == null) ? 0 : found.length) + " on this layer, " + total + " on "
+                    + this.searchResults.size() + " layers";
+        }
+        this.images.getGridAtLevel(this.currentLayer).setHighlightedBlocks(found);
+        this.lblSize.setText(text);
+    }
+
+    /**
+     * Searches the blocks again, after a change of the stack
+     */
+    private void updateSearch() {
+        if (this.searchIds != null) {
+            this.searchResults = this.stack.getBlockIndex().findAll(this.searchIds);
+        }
+        updateHighlights();
+    }
+
+    /**
+     * Goes to the next layer above the current one with found blocks, or the lowest one if there is none above
+     */
+    private void showNextFoundLayer() {
+        if (this.searchResults == null || this.searchResults.isEmpty()) return;
+        SortedMap<Integer, int[]> above = this.searchResults.tailMap(this.currentLayer + 1);
+        int layer = above.isEmpty() ? this.searchResults.firstKey() : above.firstKey();
+        if (layer != this.currentLayer) {
+            this.sldLayer.setValue(layer + 1); // shows the layer in stateChanged
+        }
+    }
+
     private void displayError(Exception e) {
         JOptionPane.showMessageDialog(
                 null, "Error: " + e.getMessage(), e.getClass().getSimpleName(), JOptionPane.ERROR_MESSAGE);
@@ -424,6 +511,7 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
             }
         } else if (arg0.getActionCommand().equals("RCCW") || arg0.getActionCommand().equals("RCW")) {
             this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            this.images.stopPrefetch(); // the old grids must not be rendered while the slices turn
             if (arg0.getActionCommand().equals("RCCW")) {
                 this.stack.turnCCW();
             } else {
@@ -434,9 +522,12 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
 
             this.pnlGrid.removeAll();
             this.pnlGrid.add(this.images.getGridAtLevel(this.currentLayer), this.defaultContraints);
+            this.minimap.setStack(this.stack);
+            this.minimap.setGrid(this.images.getGridAtLevel(this.currentLayer));
             this.pnlGrid.repaint();
             this.scrGrid.validate();
-            this.lblSize.setText("Size: " + this.stack.getLength() + " x " + this.stack.getWidth());
+            updateSearch();
+            this.images.prefetch(this.currentLayer);
             this.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
         } else if (arg0.getActionCommand().equals("EXPSINGLE")) {
             JFileChooser fc = new JFileChooser();
@@ -514,12 +605,14 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
                 if (this.images != null) {
                     this.images.setGridColor(newColor);
                     this.pnlGrid.repaint();
+                    this.images.prefetch(this.currentLayer);
                 }
             }
         } else if (arg0.getActionCommand().equals("COLOR_MARK")) {
             Color newColor = JColorChooser.showDialog(this, "Choose Marker Color", this.markColor);
             if (newColor != null) {
                 this.markColor = newColor;
+                this.minimap.setFrameColor(newColor);
                 if (this.images != null) {
                     this.images.setMarkColor(newColor);
                     this.pnlGrid.repaint();
@@ -527,6 +620,34 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
             }
         } else if (arg0.getActionCommand().equals("BLOCKCOUNTER")) {
             new BlockCounterDialog(this, this.stack);
+        } else if (arg0.getActionCommand().equals("FIND")) {
+            String name = JOptionPane.showInputDialog(this, "Name of the blocks or the start of it (e.g. chest, sign, command):",
+                    "Find blocks", JOptionPane.QUESTION_MESSAGE);
+            if (name == null || name.trim().isEmpty()) return;
+
+            Set<NameProvider.Id> ids = new HashSet<NameProvider.Id>();
+            for (Set<NameProvider.Id> named : NameProvider.findByPrefix(name.trim()).values()) {
+                ids.addAll(named);
+            }
+            if (ids.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "There is no block called \"" + name.trim() + "\"", "Find blocks", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            this.searchIds = ids;
+            updateSearch();
+            enableSchematicControls(true);
+            if (this.searchResults.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No \"" + name.trim() + "\" found", "Find blocks", JOptionPane.INFORMATION_MESSAGE);
+            } else if (!this.searchResults.containsKey(this.currentLayer)) {
+                showNextFoundLayer();
+            }
+        } else if (arg0.getActionCommand().equals("FINDNEXT")) {
+            showNextFoundLayer();
+        } else if (arg0.getActionCommand().equals("CLEARSEARCH")) {
+            this.searchIds = null;
+            this.searchResults = null;
+            updateHighlights();
+            enableSchematicControls(true);
         } else if (arg0.getActionCommand().equals("PRINTSLICE")) {
             this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
             PrinterJob printJob = PrinterJob.getPrinterJob();
@@ -575,6 +696,7 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
 
             this.pnlGrid.repaint();
             this.scrGrid.validate();
+            this.images.prefetch(this.currentLayer);
             this.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
         } else if (source == this.sldLayer){
             this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
@@ -583,8 +705,11 @@ public class MainFrame extends JFrame implements ActionListener, ChangeListener
             this.images.getGridAtLevel(this.currentLayer).setMarkedBlock(markedPoint);
             this.pnlGrid.removeAll();
             this.pnlGrid.add(this.images.getGridAtLevel(this.currentLayer), this.defaultContraints);
+            this.minimap.setGrid(this.images.getGridAtLevel(this.currentLayer));
             this.pnlGrid.repaint();
             this.scrGrid.validate();
+            updateHighlights();
+            this.images.prefetch(this.currentLayer);
             this.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
         }
     }
@@ -0,0 +1,163 @@
+package schematic.views;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import schematic.models.ImageGrid;
+import schematic.models.LayerRasterizer;
+import schematic.models.OverviewRasterizer;
+import schematic.models.SliceStack;
+
+/**
+ * A small map of the whole schematic seen from above, one pixel per block, with a frame around the part that is visible
+ * in the scroll pane. Clicking or dragging on the map scrolls to that part
+ * @author klaue
+ */
+public class MinimapPanel extends JComponent {
+	private static final int SIZE = 150;
+
+	private JScrollPane scrollPane;
+	private ImageGrid grid = null;
+	private BufferedImage overview = null;
+	private Color frameColor = Color.RED;
+
+	/**
+	 * @param scrollPane the scroll pane that shows the grids
+	 */
+	public MinimapPanel(JScrollPane scrollPane) {
+		this.scrollPane = scrollPane;
+		Dimension size = new Dimension(SIZE, SIZE);
+		this.setPreferredSize(size);
+		this.setMinimumSize(size);
+		this.setMaximumSize(size);
+
+		scrollPane.getViewport().addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(ChangeEvent e) {
+				repaint();
+			}
+		});
+		MouseAdapter mouse = new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e) {
+				scrollTo(e.getPoint());
+			}
+
+			@Override
+			public void mouseDragged(MouseEvent e) {
+				scrollTo(e.getPoint());
+			}
+		};
+		this.addMouseListener(mouse);
+		this.addMouseMotionListener(mouse);
+	}
+
+	/**
+	 * Renders the map of the given stack, has to be called again after the stack was changed
+	 * @param stack the stack or null for none
+	 */
+	public void setStack(SliceStack stack) {
+		if (stack == null || stack.getHeight() == 0) {
+			this.overview = null;
+		} else {
+			this.overview = OverviewRasterizer.toImage(OverviewRasterizer.renderTopDown(stack), stack.getSlice(0).getWidth());
+		}
+		repaint();
+	}
+
+	/**
+	 * @param grid the grid shown in the scroll pane, to know where the visible blocks are
+	 */
+	public void setGrid(ImageGrid grid) {
+		this.grid = grid;
+		repaint();
+	}
+
+	/**
+	 * @param frameColor the color of the frame around the visible part
+	 */
+	public void setFrameColor(Color frameColor) {
+		this.frameColor = frameColor;
+		repaint();
+	}
+
+	/**
+	 * @return where the map is drawn, the largest rectangle with the proportions of the schematic that fits in
+	 */
+	private Rectangle getMapBounds() {
+		if (this.overview == null) return null;
+		double scale = Math.min((double)getWidth() / this.overview.getWidth(), (double)getHeight() / this.overview.getHeight());
+		int width = Math.max(1, (int)(this.overview.getWidth() * scale));
+		int height = Math.max(1, (int)(this.overview.getHeight() * scale));
+		return new Rectangle((getWidth() - width) / 2, (getHeight() - height) / 2, width, height);
+	}
+
+	/**
+	 * @return the visible blocks, as a rectangle of block indices
+	 */
+	private Rectangle getVisibleBlocks() {
+		if (this.grid == null || this.grid.getParent() == null) return null;
+		Rectangle view = SwingUtilities.convertRectangle(this.scrollPane.getViewport().getView(),
+				this.scrollPane.getViewport().getViewRect(), this.grid);
+		float zoom = this.grid.getZoom();
+		int left = LayerRasterizer.getBlockIndex(Math.max(0, view.x), zoom);
+		int top = LayerRasterizer.getBlockIndex(Math.max(0, view.y), zoom);
+		int right = LayerRasterizer.getBlockIndex(Math.max(0, view.x + view.width - 1), zoom);
+		int bottom = LayerRasterizer.getBlockIndex(Math.max(0, view.y + view.height - 1), zoom);
+		return new Rectangle(left, top, right - left + 1, bottom - top + 1);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		Rectangle map = getMapBounds();
+		if (map == null) return;
+		g.drawImage(this.overview, map.x, map.y, map.width, map.height, null);
+
+		Rectangle visible = getVisibleBlocks();
+		if (visible == null) return;
+		double scaleX = (double)map.width / this.overview.getWidth();
+		double scaleY = (double)map.height / this.overview.getHeight();
+		int x0 = map.x + (int)(Math.min(visible.x, this.overview.getWidth()) * scaleX);
+		int y0 = map.y + (int)(Math.min(visible.y, this.overview.getHeight()) * scaleY);
+		int x1 = map.x + (int)(Math.min(visible.x + visible.width, this.overview.getWidth()) * scaleX);
+		int y1 = map.y + (int)(Math.min(visible.y + visible.height, this.overview.getHeight()) * scaleY);
+		g.setColor(this.frameColor);
+		g.drawRect(x0, y0, Math.max(1, x1 - x0 - 1), Math.max(1, y1 - y0 - 1));
+	}
+
+	/**
+	 * Centers the scroll pane on the block at the given point of the map
+	 * @param p the point on the map
+	 */
+	private void scrollTo(Point p) {
+		Rectangle map = getMapBounds();
+		if (map == null || this.grid == null || this.grid.getParent() == null) return;
+		int x = (int)((double)(p.x - map.x) * this.overview.getWidth() / map.width);
+		int y = (int)((double)(p.y - map.y) * this.overview.getHeight() / map.height);
+		x = Math.max(0, Math.min(this.overview.getWidth() - 1, x));
+		y = Math.max(0, Math.min(this.overview.getHeight() - 1, y));
+
+		JViewport viewport = this.scrollPane.getViewport();
+		float zoom = this.grid.getZoom();
+		Point center = SwingUtilities.convertPoint(this.grid, LayerRasterizer.getBlockPosition(x, zoom),
+				LayerRasterizer.getBlockPosition(y, zoom), viewport.getView());
+		Dimension view = viewport.getViewSize();
+		Dimension extent = viewport.getExtentSize();
+		int viewX = Math.max(0, Math.min(view.width - extent.width, center.x - extent.width / 2));
+		int viewY = Math.max(0, Math.min(view.height - extent.height, center.y - extent.height / 2));
+		viewport.setViewPosition(new Point(viewX, viewY));
+	}
+}